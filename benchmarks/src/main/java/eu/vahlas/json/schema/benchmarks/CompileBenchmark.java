@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.vahlas.json.schema.JSONSchema;
+import eu.vahlas.json.schema.impl.JacksonSchemaProvider;
+import eu.vahlas.json.schema.impl.SchemaContext;
+import eu.vahlas.json.schema.impl.SchemaProgram;
+import eu.vahlas.json.schema.impl.SchemaSnapshot;
+
+/**
+ * Cost of <code>JacksonSchemaProvider.getSchema</code>: parsing and compiling
+ * a schema (cache disabled) versus finding it in the cache, and versus
+ * loading its <code>SchemaSnapshot</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompileBenchmark {
+
+	private String card;
+	private JacksonSchemaProvider uncached;
+	private JacksonSchemaProvider cached;
+	private SchemaContext context;
+	private ByteBuffer cardSnapshot;
+	private ByteBuffer ordersSnapshot;
+
+	@Setup
+	public void setUp() throws Exception {
+		card = Documents.resource("/card-schema.json");
+		ObjectMapper mapper = new ObjectMapper();
+		uncached = new JacksonSchemaProvider(mapper, 0);
+		cached = new JacksonSchemaProvider(mapper);
+		cached.getSchema(card);
+		cached.getSchema(Documents.ORDERS_SCHEMA);
+
+		context = new SchemaContext(mapper);
+		cardSnapshot = snapshot(mapper, card);
+		ordersSnapshot = snapshot(mapper, Documents.ORDERS_SCHEMA);
+	}
+
+	private ByteBuffer snapshot(ObjectMapper mapper, String schema) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SchemaSnapshot.write(mapper.readTree(schema), context, out);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(out.size());
+		buffer.put(out.toByteArray()).flip();
+		return buffer;
+	}
+
+	@Benchmark
+	public JSONSchema compileCard() {
+		return uncached.getSchema(card);
+	}
+
+	@Benchmark
+	public JSONSchema compileOrders() {
+		return uncached.getSchema(Documents.ORDERS_SCHEMA);
+	}
+
+	@Benchmark
+	public JSONSchema cachedCard() {
+		return cached.getSchema(card);
+	}
+
+	@Benchmark
+	public JSONSchema cachedOrders() {
+		return cached.getSchema(Documents.ORDERS_SCHEMA);
+	}
+
+	@Benchmark
+	public SchemaProgram snapshotCard() {
+		return SchemaSnapshot.read(cardSnapshot, context);
+	}
+
+	@Benchmark
+	public SchemaProgram snapshotOrders() {
+		return SchemaSnapshot.read(ordersSnapshot, context);
+	}
+
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.vahlas.json.schema.impl.CompiledSchema;
+import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.impl.JacksonSchema;
+import eu.vahlas.json.schema.impl.JacksonSchemaProvider;
+import eu.vahlas.json.schema.impl.SchemaCompiler;
+import eu.vahlas.json.schema.impl.SchemaProgram;
+
+/**
+ * <code>isValid</code> on already parsed trees, interpreted, run by the
+ * <code>SchemaProgram</code> VM or by the class generated by the
+ * <code>SchemaCompiler</code>: the sample card, and synthetic arrays of
+ * orders of several sizes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompilerBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Card {
+		@Param({ "interpreted", "program", "compiled" })
+		public String engine;
+
+		JsonNode tree;
+		JSONValidator schema;
+
+		@Setup
+		public void setUp() throws Exception {
+			ObjectMapper mapper = new ObjectMapper();
+			schema = engine(engine, (JacksonSchema) new JacksonSchemaProvider(mapper).getSchema(Documents.resource("/card-schema.json")));
+			tree = mapper.readTree(Documents.resource("/card.json"));
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Orders {
+		@Param({ "interpreted", "program", "compiled" })
+		public String engine;
+
+		@Param({ "10", "1000", "100000" })
+		public int size;
+
+		JsonNode tree;
+		JSONValidator schema;
+
+		@Setup
+		public void setUp() throws Exception {
+			ObjectMapper mapper = new ObjectMapper();
+			schema = engine(engine, (JacksonSchema) new JacksonSchemaProvider(mapper).getSchema(Documents.ORDERS_SCHEMA));
+			tree = mapper.readTree(Documents.orders(size));
+			if ( !schema.isValid(tree, null) )
+				throw new IllegalStateException("The synthetic orders do not match their schema");
+		}
+	}
+
+	static JSONValidator engine(String engine, JacksonSchema schema) {
+		if ( "program".equals(engine) )
+			return SchemaProgram.compile(schema);
+		if ( !"compiled".equals(engine) )
+			return schema;
+		JacksonSchema compiled = SchemaCompiler.compile(schema);
+		if ( !(compiled instanceof CompiledSchema) )
+			throw new IllegalStateException("The schema could not be compiled, is this a JDK?");
+		return compiled;
+	}
+
+	@Benchmark
+	public boolean card(Card card) {
+		return card.schema.isValid(card.tree, null);
+	}
+
+	@Benchmark
+	public boolean orders(Orders orders) {
+		return orders.schema.isValid(orders.tree, null);
+	}
+
+}
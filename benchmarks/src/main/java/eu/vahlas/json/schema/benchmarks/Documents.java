@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+/**
+ * Test data shared by the benchmarks.
+ */
+final class Documents {
+
+	private Documents() {
+	}
+
+	static String resource(String name) throws IOException {
+		InputStream in = Documents.class.getResourceAsStream(name);
+		if ( in == null )
+			throw new IOException("Missing resource " + name);
+		Reader reader = new InputStreamReader(in, "UTF-8");
+		try {
+			StringBuilder out = new StringBuilder();
+			char[] buffer = new char[4096];
+			int n;
+			while ( (n = reader.read(buffer)) != -1 ) {
+				out.append(buffer, 0, n);
+			}
+			return out.toString();
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Schema of the synthetic documents: an array of orders, each with a
+	 * handful of typed, bounded and formatted properties.
+	 */
+	static final String ORDERS_SCHEMA =
+			"{\"type\": \"array\", \"items\": {\"type\": \"object\", \"additionalProperties\": false, \"properties\": {"
+			+ "\"id\": {\"type\": \"integer\", \"minimum\": 1},"
+			+ "\"customer\": {\"type\": \"string\", \"minLength\": 1, \"maxLength\": 32, \"pattern\": \"^[A-Za-z ]+$\"},"
+			+ "\"status\": {\"enum\": [\"new\", \"paid\", \"shipped\", \"cancelled\"]},"
+			+ "\"created\": {\"type\": \"string\", \"format\": \"date-time\"},"
+			+ "\"total\": {\"type\": \"number\", \"minimum\": 0, \"maximum\": 1000000},"
+			+ "\"coupon\": {\"type\": [\"string\", \"null\"], \"optional\": true},"
+			+ "\"lines\": {\"type\": \"array\", \"minItems\": 1, \"items\": {\"type\": \"object\", \"properties\": {"
+			+ "  \"sku\": {\"type\": \"string\"}, \"quantity\": {\"type\": \"integer\", \"minimum\": 1}}}}"
+			+ "}}}";
+
+	/**
+	 * @return an array of <code>size</code> orders matching <code>ORDERS_SCHEMA</code>
+	 */
+	static String orders(int size) {
+		String[] status = { "new", "paid", "shipped", "cancelled" };
+		StringBuilder b = new StringBuilder(size * 200);
+		b.append('[');
+		for ( int i = 0; i < size; i++ ) {
+			if ( i > 0 )
+				b.append(',');
+			b.append("{\"id\": ").append(i + 1)
+				.append(", \"customer\": \"Customer ").append((char) ('A' + i % 26)).append('"')
+				.append(", \"status\": \"").append(status[i % status.length]).append('"')
+				.append(", \"created\": \"2011-08-18T19:03:37Z\"")
+				.append(", \"total\": ").append(i % 1000).append(".5")
+				.append(", \"coupon\": ").append(i % 3 == 0 ? "\"WELCOME\"" : "null")
+				.append(", \"lines\": [{\"sku\": \"A-").append(i).append("\", \"quantity\": ").append(1 + i % 5)
+				.append("}, {\"sku\": \"B-").append(i).append("\", \"quantity\": 1}]}");
+		}
+		b.append(']');
+		return b.toString();
+	}
+
+}
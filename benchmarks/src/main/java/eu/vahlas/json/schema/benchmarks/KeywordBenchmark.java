@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.vahlas.json.schema.ListErrorCollector;
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.impl.JacksonSchema;
+import eu.vahlas.json.schema.impl.KeywordRegistry;
+import eu.vahlas.json.schema.impl.SchemaContext;
+import eu.vahlas.json.schema.impl.resolvers.MapSchemaResolver;
+import eu.vahlas.json.schema.impl.validators.AdditionalPropertiesValidator;
+import eu.vahlas.json.schema.impl.validators.DivisibleByValidator;
+import eu.vahlas.json.schema.impl.validators.MaximumValidator;
+import eu.vahlas.json.schema.impl.validators.MinimumValidator;
+import eu.vahlas.json.schema.impl.validators.NoOpValidator;
+import eu.vahlas.json.schema.impl.validators.PropertiesValidator;
+
+/**
+ * One microbenchmark per class of <code>impl.validators</code>: the validator
+ * is built alone and run on an already parsed instance, both on a matching
+ * and on a failing instance.<br/>
+ * <br/>
+ * Most cases are built by their keyword factory. The classes the registry
+ * only uses in some schemas are built directly: "properties" and
+ * "additionalProperties" measure the validators of wide or split schemas,
+ * while "object" measures the <code>ObjectValidator</code> the registry
+ * builds for the others. Likewise "minimum", "maximum" and "divisibleBy"
+ * measure their single keyword validators, "numeric" the
+ * <code>NumericValidator</code> checking the three keywords at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeywordBenchmark {
+
+	// keyword, schema, valid instance, invalid instance
+	private static final String[][] CASES = {
+		{ "additionalProperties", "{\"properties\": {\"a\": {}, \"b\": {}}, \"additionalProperties\": false}",
+				"{\"a\": 1, \"b\": 2}", "{\"a\": 1, \"c\": 2}" },
+		{ "disallow", "{\"disallow\": [\"string\", \"boolean\"]}", "12", "\"s\"" },
+		{ "divisibleBy", "{\"divisibleBy\": 7}", "49", "50" },
+		{ "enum", "{\"enum\": [\"red\", \"green\", \"blue\", 1, 2, 3, {\"a\": 1}]}", "\"blue\"", "\"pink\"" },
+		{ "format", "{\"format\": \"date-time\"}", "\"2011-08-18T19:03:37Z\"", "\"2011-08-18 19:03\"" },
+		{ "items", "{\"items\": {\"type\": \"integer\"}}", "[1, 2, 3, 4, 5, 6, 7, 8]", "[1, 2, 3, 4, \"5\", 6, 7, 8]" },
+		{ "maxItems", "{\"maxItems\": 8}", "[1, 2, 3, 4, 5, 6, 7, 8]", "[1, 2, 3, 4, 5, 6, 7, 8, 9]" },
+		{ "maxLength", "{\"maxLength\": 8}", "\"abcdefgh\"", "\"abcdefghi\"" },
+		{ "maximum", "{\"maximum\": 100, \"maximumCanEqual\": false}", "99.5", "100" },
+		{ "minItems", "{\"minItems\": 2}", "[1, 2]", "[1]" },
+		{ "minLength", "{\"minLength\": 2}", "\"ab\"", "\"a\"" },
+		{ "minimum", "{\"minimum\": 0}", "12", "-1" },
+		{ "noop", "{}", "{\"a\": 1}", "[1]" },
+		{ "numeric", "{\"minimum\": 0, \"maximum\": 100, \"divisibleBy\": 7}", "49", "50" },
+		{ "object", "{\"properties\": {\"a\": {\"type\": \"string\"}, \"b\": {\"type\": \"integer\", \"optional\": true}}, " +
+				"\"additionalProperties\": false}", "{\"a\": \"x\", \"b\": 1}", "{\"b\": \"x\", \"c\": 2}" },
+		{ "pattern", "{\"pattern\": \"^[a-z]+-[0-9]{3}$\"}", "\"abc-123\"", "\"abc-12\"" },
+		{ "properties", "{\"properties\": {\"a\": {\"type\": \"string\"}, \"b\": {\"type\": \"integer\", \"optional\": true}}}",
+				"{\"a\": \"x\", \"b\": 1}", "{\"b\": \"x\"}" },
+		{ "$ref", "{\"$ref\": \"mem:positive\"}", "3", "-3" },
+		{ "requires", "{\"requires\": [\"zip\", \"country\"]}", "{\"zip\": \"1\", \"country\": \"x\"}", "{\"zip\": \"1\"}" },
+		{ "type", "{\"type\": \"object\"}", "{}", "[]" },
+		{ "unionType", "{\"type\": [\"null\", \"boolean\", {\"type\": \"object\", \"properties\": {\"a\": {}}}]}",
+				"{\"a\": 1}", "1" },
+		{ "uniqueItems", "{\"uniqueItems\": true}", "[1, 2, 3, 4, 5, 6, 7, 8]", "[1, 2, 3, 4, 5, 6, 7, 1]" },
+	};
+
+	@Param({ "additionalProperties", "disallow", "divisibleBy", "enum", "format", "items", "maxItems",
+			"maxLength", "maximum", "minItems", "minLength", "minimum", "noop", "numeric", "object", "pattern", "properties",
+			"$ref", "requires", "type", "unionType", "uniqueItems" })
+	public String keyword;
+
+	@Param({ "true", "false" })
+	public boolean valid;
+
+	private JSONValidator validator;
+	private JsonNode instance;
+
+	@Setup
+	public void setUp() throws Exception {
+		ObjectMapper mapper = new ObjectMapper();
+		MapSchemaResolver resolver = new MapSchemaResolver().register("mem:positive", "{\"minimum\": 0}");
+		SchemaContext context = new SchemaContext(mapper, resolver, KeywordRegistry.getDefault());
+
+		for ( String[] c : CASES ) {
+			if ( !c[0].equals(keyword) )
+				continue;
+			JsonNode schemaNode = mapper.readTree(c[1]);
+			instance = mapper.readTree(valid ? c[2] : c[3]);
+			if ( "noop".equals(keyword) ) {
+				validator = new NoOpValidator(schemaNode);
+			} else if ( "properties".equals(keyword) ) {
+				validator = new PropertiesValidator(schemaNode.get("properties"), context);
+			} else if ( "additionalProperties".equals(keyword) ) {
+				validator = new AdditionalPropertiesValidator(schemaNode.get("properties"),
+						schemaNode.get("additionalProperties"), context);
+			} else if ( "minimum".equals(keyword) ) {
+				validator = new MinimumValidator(schemaNode.get("minimum"), schemaNode.get("minimumCanEqual"));
+			} else if ( "maximum".equals(keyword) ) {
+				validator = new MaximumValidator(schemaNode.get("maximum"), schemaNode.get("maximumCanEqual"));
+			} else if ( "divisibleBy".equals(keyword) ) {
+				validator = new DivisibleByValidator(schemaNode.get("divisibleBy"));
+			} else if ( "numeric".equals(keyword) ) {
+				validator = KeywordRegistry.getDefault().get("minimum").create(schemaNode, schemaNode.get("minimum"), context);
+			} else if ( "object".equals(keyword) ) {
+				validator = KeywordRegistry.getDefault().get("properties").create(schemaNode, schemaNode.get("properties"), context);
+			} else if ( "$ref".equals(keyword) ) {
+				// the ref is the only validator of its schema
+				validator = new JacksonSchema(context, schemaNode);
+			} else {
+				String name = "unionType".equals(keyword) ? "type" : keyword;
+				validator = KeywordRegistry.getDefault().get(name).create(schemaNode, schemaNode.get(name), context);
+			}
+			return;
+		}
+		throw new IllegalArgumentException("No case for " + keyword);
+	}
+
+	@Benchmark
+	public boolean isValid() {
+		return validator.isValid(instance, null);
+	}
+
+	@Benchmark
+	public ListErrorCollector validate() {
+		ListErrorCollector errors = new ListErrorCollector();
+		validator.validate(instance, null, JSONPath.ROOT, errors);
+		return errors;
+	}
+
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.vahlas.json.schema.ListErrorCollector;
+import eu.vahlas.json.schema.ValidationListener;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.FormatRegistry;
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.JacksonSchema;
+import eu.vahlas.json.schema.impl.KeywordRegistry;
+import eu.vahlas.json.schema.impl.SchemaContext;
+import eu.vahlas.json.schema.impl.resolvers.URLSchemaResolver;
+
+/**
+ * Cost of observing <code>validate</code> on 1000 orders: no listener (a null
+ * check per schema), a listener doing nothing, and a listener building the
+ * <code>"validate( node, parent, at)"</code> text the validators used to
+ * concatenate for their debug logs on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListenerBenchmark {
+
+	@Param({ "none", "noop", "concat" })
+	public String listener;
+
+	private JsonNode tree;
+	private JacksonSchema schema;
+	/** keeps the text from being optimized away */
+	private int sink;
+
+	@Setup
+	public void setUp() throws Exception {
+		ValidationListener l = null;
+		if ( "noop".equals(listener) ) {
+			l = new ValidationListener() {
+				@Override
+				public void enter(String keyword, JsonNode node, JSONPath at) {
+				}
+
+				@Override
+				public void exit(String keyword, JsonNode node, JSONPath at, int errors) {
+				}
+
+				@Override
+				public void error(ValidationMessage message) {
+				}
+			};
+		} else if ( "concat".equals(listener) ) {
+			l = new ValidationListener() {
+				@Override
+				public void enter(String keyword, JsonNode node, JSONPath at) {
+					sink += ("validate( " + node + ", " + at + ")").length();
+				}
+
+				@Override
+				public void exit(String keyword, JsonNode node, JSONPath at, int errors) {
+				}
+
+				@Override
+				public void error(ValidationMessage message) {
+				}
+			};
+		}
+
+		ObjectMapper mapper = new ObjectMapper();
+		SchemaContext context = new SchemaContext(mapper, new URLSchemaResolver(), KeywordRegistry.getDefault(),
+				FormatRegistry.getDefault(), null, l);
+		schema = new JacksonSchema(context, mapper.readTree(Documents.ORDERS_SCHEMA));
+		tree = mapper.readTree(Documents.orders(1000));
+	}
+
+	@Benchmark
+	public ListErrorCollector validate() {
+		ListErrorCollector errors = new ListErrorCollector();
+		schema.validate(tree, null, JSONPath.ROOT, errors);
+		return errors;
+	}
+
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.DeserializationConfig;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.vahlas.json.schema.impl.NumericRange;
+
+/**
+ * The numeric kernel alone: "minimum", "maximum" and "divisibleBy" checked on
+ * 1024 numbers of one type, with a power of two divisor or not. The
+ * <code>decimal</code> instances are read as <code>BigDecimal</code> and take
+ * the exact path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumericBenchmark {
+
+	private static final int SIZE = 1024;
+
+	@Param({ "int", "long", "double", "decimal" })
+	public String type;
+
+	@Param({ "4", "3" })
+	public int divisor;
+
+	private NumericRange range;
+	private JsonNode[] numbers;
+
+	@Setup
+	public void setUp() throws Exception {
+		ObjectMapper mapper = new ObjectMapper();
+		range = new NumericRange(mapper.readTree("-1000000"), null, mapper.readTree("1e15"), null,
+				mapper.readTree(String.valueOf(divisor)));
+
+		ObjectMapper reader = new ObjectMapper();
+		reader.configure(DeserializationConfig.Feature.USE_BIG_DECIMAL_FOR_FLOATS, "decimal".equals(type));
+		numbers = new JsonNode[SIZE];
+		for ( int i = 0; i < SIZE; i++ ) {
+			long n = (long) i * 12;
+			String text;
+			if ( "long".equals(type) )
+				text = String.valueOf(n + 10000000000L);
+			else if ( "int".equals(type) )
+				text = String.valueOf(n);
+			else
+				text = n + ".0";
+			numbers[i] = reader.readTree(text);
+		}
+	}
+
+	@Benchmark
+	public int check() {
+		int failed = 0;
+		for ( JsonNode n : numbers ) {
+			failed |= range.check(n);
+		}
+		return failed;
+	}
+
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.benchmarks;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.vahlas.json.schema.ListErrorCollector;
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.JacksonSchema;
+import eu.vahlas.json.schema.impl.JacksonSchemaProvider;
+
+/**
+ * End-to-end throughput: the sample card, and synthetic arrays of orders of
+ * several sizes, validated from text (parse included), from an already
+ * parsed tree, fail-fast, and from the token stream.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Card {
+		String json;
+		JsonNode tree;
+		JacksonSchema schema;
+
+		@Setup
+		public void setUp() throws Exception {
+			ObjectMapper mapper = new ObjectMapper();
+			schema = (JacksonSchema) new JacksonSchemaProvider(mapper).getSchema(Documents.resource("/card-schema.json"));
+			json = Documents.resource("/card.json");
+			tree = mapper.readTree(json);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Orders {
+		@Param({ "10", "1000", "100000" })
+		public int size;
+
+		String json;
+		JsonNode tree;
+		JacksonSchema schema;
+
+		@Setup
+		public void setUp() throws Exception {
+			ObjectMapper mapper = new ObjectMapper();
+			schema = (JacksonSchema) new JacksonSchemaProvider(mapper).getSchema(Documents.ORDERS_SCHEMA);
+			json = Documents.orders(size);
+			tree = mapper.readTree(json);
+			if ( !schema.isValid(tree, null) )
+				throw new IllegalStateException("The synthetic orders do not match their schema");
+		}
+	}
+
+	@Benchmark
+	public List<String> cardText(Card card) {
+		return card.schema.validate(card.json);
+	}
+
+	@Benchmark
+	public ListErrorCollector cardTree(Card card) {
+		ListErrorCollector errors = new ListErrorCollector();
+		card.schema.validate(card.tree, null, JSONPath.ROOT, errors);
+		return errors;
+	}
+
+	@Benchmark
+	public boolean cardIsValid(Card card) {
+		return card.schema.isValid(card.tree, null);
+	}
+
+	@Benchmark
+	public ListErrorCollector cardStream(Card card) {
+		ListErrorCollector errors = new ListErrorCollector();
+		card.schema.validateStream(new StringReader(card.json), errors);
+		return errors;
+	}
+
+	@Benchmark
+	public List<String> ordersText(Orders orders) {
+		return orders.schema.validate(orders.json);
+	}
+
+	@Benchmark
+	public ListErrorCollector ordersTree(Orders orders) {
+		ListErrorCollector errors = new ListErrorCollector();
+		orders.schema.validate(orders.tree, null, JSONPath.ROOT, errors);
+		return errors;
+	}
+
+	@Benchmark
+	public boolean ordersIsValid(Orders orders) {
+		return orders.schema.isValid(orders.tree, null);
+	}
+
+	@Benchmark
+	public ListErrorCollector ordersStream(Orders orders) {
+		ListErrorCollector errors = new ListErrorCollector();
+		orders.schema.validateStream(new StringReader(orders.json), errors);
+		return errors;
+	}
+
+}
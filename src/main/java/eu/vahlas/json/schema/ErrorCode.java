@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Error codes reported in a <code>ValidationMessage</code>.<br/>
+ * <br/>
+ * Each code carries the template of its message text; <code>{0}</code>,
+ * <code>{1}</code>... are replaced by the arguments of the message. Templates
+ * are split once, when the enum is loaded, so rendering a message only
+ * appends the literal parts and the arguments.
+ */
+public enum ErrorCode {
+
+	ADDITIONAL_PROPERTIES("is not defined in the schema and the schema does not allow additional properties"),
+	DISALLOW("{0} is not a type allowed on this property"),
+	DISALLOW_NUMBER("{0} is not an allowed type for this property"),
+	DIVISIBLE_BY("must be divisible by {0}"),
+	ENUM("does not have a value in the enumeration {0}"),
+	FORMAT("incorrect format, {0} expected"),
+	FORMAT_UNKNOWN("{0}: unknown or unimplemented format type"),
+	ITEMS_TUPLE_INDEX("no validator found at this index"),
+	MAX_ITEMS("there must be a maximum of {0} items in the array"),
+	MAX_LENGTH("may only be {0} characters long"),
+	MAXIMUM("must have a maximum value of {0}"),
+	MIN_ITEMS("there must be a minimum of {0} items in the array"),
+	MIN_LENGTH("must be at least {0} characters long"),
+	MINIMUM("must have a minimum value of {0}"),
+	PATTERN("does not match the regex pattern {0}"),
+	PATTERN_TYPE("cannot match a {0} against a regex pattern ({1})"),
+	PROPERTY_MISSING("is missing and it is not optional"),
+	REQUIRES("the presence of this property requires that {0} also be present"),
+	TYPE("{0} found, {1} expected"),
+	UNION_TYPE("{0} found, but {1} is required"),
+	UNIQUE_ITEMS("the items in the array must be unique, [{1}] is equal to [{0}]"),
+
+	/**
+	 * The instance could not be read; the argument is the reason given by the parser.
+	 */
+	PARSE("is not a valid JSON document: {0}"),
+
+	/**
+	 * Code of the messages reported by custom keywords: the first argument is the text.
+	 */
+	CUSTOM("{0}");
+
+	private final String template;
+	private final String[] literals;
+	private final int[] arguments;
+
+	private ErrorCode(String template) {
+		this.template = template;
+
+		List<String> l = new ArrayList<String>();
+		List<Integer> a = new ArrayList<Integer>();
+		int start = 0;
+		int open;
+		while ( (open = template.indexOf('{', start)) >= 0 ) {
+			int close = template.indexOf('}', open);
+			l.add(template.substring(start, open));
+			a.add(Integer.valueOf(template.substring(open + 1, close)));
+			start = close + 1;
+		}
+		l.add(template.substring(start));
+
+		literals = l.toArray(new String[l.size()]);
+		arguments = new int[a.size()];
+		for ( int i = 0; i < arguments.length; i++ ) {
+			arguments[i] = a.get(i);
+		}
+	}
+
+	public String getTemplate() {
+		return template;
+	}
+
+	/**
+	 * Appends the message text built from the template and <code>args</code> to <code>sb</code>.
+	 */
+	public StringBuilder format(StringBuilder sb, Object... args) {
+		for ( int i = 0; i < arguments.length; i++ ) {
+			sb.append(literals[i]);
+			int n = arguments[i];
+			sb.append(args != null && n < args.length ? args[n] : null);
+		}
+		return sb.append(literals[arguments.length]);
+	}
+}
@@ -0,0 +1,31 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema;
+
+/**
+ * Receives the errors found during a validation.<br/>
+ * <br/>
+ * Validators write into the collector as they walk the instance instead of
+ * returning and merging lists, so a valid document does not allocate any
+ * result structure. Implementations may count, aggregate, log or store the
+ * messages; <code>ListErrorCollector</code> keeps them in a list.
+ */
+public interface ErrorCollector {
+
+	void add(ValidationMessage message);
+
+}
@@ -35,6 +35,71 @@ public enum FORMAT {
      * Type "date" as defined by the paragraph 5.20 of the JSON Schema specification
      */
     DATE("date"),
+    /**
+     * Type "time" (hh:mm:ss) as defined by the paragraph 5.20 of the JSON Schema specification
+     */
+    TIME("time"),
+    /**
+     * Type "utc-millisec" (a number of milliseconds since the epoch) as defined by the paragraph 5.20 of the JSON
+     * Schema specification
+     */
+    UTC_MILLISEC("utc-millisec"),
+    /**
+     * Type "regex" as defined by the paragraph 5.20 of the JSON Schema specification
+     */
+    REGEX("regex"),
+    /**
+     * Type "color" (CSS 2.1) as defined by the paragraph 5.20 of the JSON Schema specification
+     */
+    COLOR("color"),
+    /**
+     * Type "style" (CSS style declarations) as defined by the paragraph 5.20 of the JSON Schema specification
+     */
+    STYLE("style"),
+    /**
+     * Type "phone" (E.123) as defined by the paragraph 5.20 of the JSON Schema specification
+     */
+    PHONE("phone"),
+    /**
+     * Type "uri" as defined by the paragraph 5.20 of the JSON Schema specification
+     */
+    URI("uri"),
+    /**
+     * Type "email" as defined by the paragraph 5.20 of the JSON Schema specification
+     */
+    EMAIL("email"),
+    /**
+     * Type "ip-address" (IPv4) as defined by the paragraph 5.20 of the JSON Schema specification
+     */
+    IP_ADDRESS("ip-address"),
+    /**
+     * Type "ipv6" as defined by the paragraph 5.20 of the JSON Schema specification
+     */
+    IPV6("ipv6"),
+    /**
+     * Type "host-name" (RFC 1123), defined by the later drafts of the JSON Schema specification
+     */
+    HOST_NAME("host-name"),
+    /**
+     * Type "street-address" as defined by the paragraph 5.20 of the JSON Schema specification
+     */
+    STREET_ADDRESS("street-address"),
+    /**
+     * Type "locality" as defined by the paragraph 5.20 of the JSON Schema specification
+     */
+    LOCALITY("locality"),
+    /**
+     * Type "region" as defined by the paragraph 5.20 of the JSON Schema specification
+     */
+    REGION("region"),
+    /**
+     * Type "postal-code" as defined by the paragraph 5.20 of the JSON Schema specification
+     */
+    POSTAL_CODE("postal-code"),
+    /**
+     * Type "country" as defined by the paragraph 5.20 of the JSON Schema specification
+     */
+    COUNTRY("country"),
 
     UNKNOWN("unknown");
 
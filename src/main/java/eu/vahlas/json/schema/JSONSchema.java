@@ -26,4 +26,40 @@ public interface JSONSchema {
 	List<String> validate(InputStream jsonStream);
 	List<String> validate(Reader jsonReader);
 	List<String> validate(URL jsonURL);
+
+	/**
+	 * Checks the instance without reporting errors: validation stops at the
+	 * first violation and no error message is built.
+	 */
+	boolean isValid(String json);
+	boolean isValid(InputStream jsonStream);
+	boolean isValid(Reader jsonReader);
+	boolean isValid(URL jsonURL);
+
+	/**
+	 * Validates the instance and returns structured messages: the keyword,
+	 * path, code and arguments of each error are available without parsing
+	 * the message text, which is only built when asked for.
+	 */
+	List<ValidationMessage> validateMessages(String json);
+	List<ValidationMessage> validateMessages(InputStream jsonStream);
+	List<ValidationMessage> validateMessages(Reader jsonReader);
+	List<ValidationMessage> validateMessages(URL jsonURL);
+
+	/**
+	 * Validates the instance and reports the errors to <code>errors</code>;
+	 * nothing is allocated for the result when the instance is valid.
+	 */
+	void validate(String json, ErrorCollector errors);
+	void validate(InputStream jsonStream, ErrorCollector errors);
+	void validate(Reader jsonReader, ErrorCollector errors);
+	void validate(URL jsonURL, ErrorCollector errors);
+
+	/**
+	 * Validates the instance as it is read, without loading the whole document
+	 * in memory first. The errors are the same as with <code>validate</code>,
+	 * but may be reported in a different order.
+	 */
+	void validateStream(InputStream jsonStream, ErrorCollector errors);
+	void validateStream(Reader jsonReader, ErrorCollector errors);
 }
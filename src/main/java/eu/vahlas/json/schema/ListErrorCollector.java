@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Default <code>ErrorCollector</code>: keeps the messages in the order they
+ * were reported. The list is only allocated when the first error is added.
+ */
+public class ListErrorCollector implements ErrorCollector {
+
+	private List<ValidationMessage> messages;
+
+	@Override
+	public void add(ValidationMessage message) {
+		if ( messages == null )
+			messages = new ArrayList<ValidationMessage>();
+		messages.add(message);
+	}
+
+	public boolean isEmpty() {
+		return messages == null;
+	}
+
+	public int size() {
+		return messages == null ? 0 : messages.size();
+	}
+
+	/**
+	 * @return the collected messages, or an empty immutable list when there was no error
+	 */
+	public List<ValidationMessage> getMessages() {
+		if ( messages == null )
+			return Collections.emptyList();
+		return messages;
+	}
+
+	/**
+	 * @return the text of the collected messages
+	 */
+	public List<String> getErrors() {
+		List<String> errors = new ArrayList<String>(size());
+		for ( ValidationMessage m : getMessages() ) {
+			errors.add(m.getMessage());
+		}
+		return errors;
+	}
+}
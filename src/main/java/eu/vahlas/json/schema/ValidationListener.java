@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema;
+
+import org.codehaus.jackson.JsonNode;
+
+import eu.vahlas.json.schema.impl.JSONPath;
+
+/**
+ * Observes a validation keyword by keyword, e.g. to trace or profile it.<br/>
+ * <br/>
+ * A listener is installed on the <code>SchemaContext</code> the schemas are
+ * compiled with; without one, validation only pays a null check per schema.
+ * Every keyword run by <code>validate</code> is surrounded by
+ * <code>enter</code> and <code>exit</code>, nested schemas included, and
+ * every error is passed to <code>error</code> once, before it reaches the
+ * <code>ErrorCollector</code>. The fail-fast <code>isValid</code> and the
+ * keywords checked on the tokens by <code>validateStream</code> are not
+ * observed.<br/>
+ * <br/>
+ * With a <code>Parallelism</code>, the ranges of large arrays and objects
+ * report their events from the worker threads.
+ */
+public interface ValidationListener {
+
+	void enter(String keyword, JsonNode node, JSONPath at);
+
+	/**
+	 * @param errors the number of errors the keyword reported, nested schemas included
+	 */
+	void exit(String keyword, JsonNode node, JSONPath at, int errors);
+
+	void error(ValidationMessage message);
+
+}
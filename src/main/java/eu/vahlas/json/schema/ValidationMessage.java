@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema;
+
+import java.io.Serializable;
+
+import eu.vahlas.json.schema.impl.JSONPath;
+
+/**
+ * One validation error: the keyword which failed, where it failed in the
+ * instance, an error code and the arguments of the message.<br/>
+ * <br/>
+ * The text returned by <code>getMessage</code> (<code>$.a.b[3]: must be at
+ * least 5 characters long</code>) is only built when it is first asked for,
+ * so callers which count or group errors by code or path never pay for it.
+ */
+public class ValidationMessage implements Serializable {
+
+	private static final long serialVersionUID = 3152887042215914236L;
+
+	private final String keyword;
+	private final JSONPath path;
+	private final ErrorCode code;
+	private final Object[] arguments;
+
+	private transient String message;
+
+	public ValidationMessage(String keyword, JSONPath path, ErrorCode code, Object... arguments) {
+		this.keyword = keyword;
+		this.path = path;
+		this.code = code;
+		this.arguments = arguments;
+	}
+
+	/**
+	 * @return the schema keyword which reported the error, e.g. <code>maxLength</code>
+	 */
+	public String getKeyword() { return keyword; }
+
+	/**
+	 * @return the location of the invalid node in the instance
+	 */
+	public JSONPath getPath() { return path; }
+
+	public ErrorCode getCode() { return code; }
+
+	public Object[] getArguments() { return arguments.clone(); }
+
+	public Object getArgument(int i) { return arguments[i]; }
+
+	/**
+	 * @return the message text, prefixed with the location of the node
+	 */
+	public String getMessage() {
+		String m = message;
+		if ( m == null ) {
+			StringBuilder sb = new StringBuilder(64).append(path).append(": ");
+			m = code.format(sb, arguments).toString();
+			message = m;
+		}
+		return m;
+	}
+
+	@Override
+	public String toString() {
+		return getMessage();
+	}
+}
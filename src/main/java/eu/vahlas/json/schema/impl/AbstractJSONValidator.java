@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import java.util.List;
+
+import org.codehaus.jackson.JsonNode;
+
+import eu.vahlas.json.schema.ListErrorCollector;
+import eu.vahlas.json.schema.ValidationMessage;
+
+/**
+ * Base class of the validators: adapts the list returning entry points of
+ * <code>JSONValidator</code> to <code>validate(JsonNode, JsonNode, JSONPath,
+ * ErrorCollector)</code>, which is the only validation method subclasses
+ * have to implement.
+ */
+public abstract class AbstractJSONValidator implements JSONValidator {
+
+	@Override
+	public List<String> validate(JsonNode node, String at) {
+		return validate(node, null, JSONPath.of(at));
+	}
+
+	@Override
+	public List<String> validate(JsonNode node, JsonNode parent, String at) {
+		return validate(node, parent, JSONPath.of(at));
+	}
+
+	@Override
+	public List<String> validate(JsonNode node, JsonNode parent, JSONPath at) {
+		ListErrorCollector errors = new ListErrorCollector();
+		validate(node, parent, at, errors);
+		return errors.getErrors();
+	}
+
+	@Override
+	public List<ValidationMessage> validateMessages(JsonNode node, JsonNode parent, JSONPath at) {
+		ListErrorCollector errors = new ListErrorCollector();
+		validate(node, parent, at, errors);
+		return errors.getMessages();
+	}
+
+}
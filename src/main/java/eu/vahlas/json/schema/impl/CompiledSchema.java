@@ -0,0 +1,42 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import org.codehaus.jackson.JsonNode;
+
+/**
+ * A schema whose <code>isValid</code> runs the class generated for it by the
+ * <code>SchemaCompiler</code>; everything else is inherited. The generated
+ * class is not serialized: a deserialized schema is interpreted.
+ */
+public class CompiledSchema extends JacksonSchema {
+
+	private static final long serialVersionUID = 5318826470924355183L;
+
+	private final transient JSONValidator generated;
+
+	CompiledSchema(JacksonSchema schema, JSONValidator generated) {
+		super(schema);
+		this.generated = generated;
+	}
+
+	@Override
+	public boolean isValid(JsonNode jsonNode, JsonNode parent) {
+		JSONValidator g = generated;
+		return g != null ? g.isValid(jsonNode, parent) : super.isValid(jsonNode, parent);
+	}
+}
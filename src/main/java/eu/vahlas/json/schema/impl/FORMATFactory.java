@@ -14,18 +14,27 @@ package eu.vahlas.json.schema.impl;
 
 import eu.vahlas.json.schema.FORMAT;
 import eu.vahlas.json.schema.JSONSchemaException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import org.codehaus.jackson.JsonNode;
 
+/**
+ * Schema formats and the checks of the instance values.<br/> <br/> Every format but "regex" is checked by a
+ * hand-written single pass scanner (dates follow the RFC 3339 profile of ISO-8601): it reads the characters in place,
+ * allocates nothing and keeps no state, so it is safe to call from any thread.
+ */
 public class FORMATFactory {
 
-    //Formats for SimpleDateFormat
-    private static String DATETIME_FMT = "yyyy-MM-dd'T'HH:mm:ssz";
-    private static String DATE_FMT = "yyyy-MM-dd";
-    private static String ZULU = "Z";
-    private static String GMT = "GMT";
-    private static String GMT_UTC_OFFSET = "GMT-00:00";
+    private static final int[] DAYS_IN_MONTH = {31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private static final String[] COLOR_NAMES = {
+        "aqua", "black", "blue", "fuchsia", "gray", "green", "lime", "maroon", "navy",
+        "olive", "orange", "purple", "red", "silver", "teal", "white", "yellow"
+    };
+
+    // besides letters and digits
+    private static final String URI_CHARS = "-._~:/?#[]@!$&'()*+,;=";
+    private static final String ATEXT = "!#$%&'*+/=?^_`{|}~-";
 
     /**
      * Translates the "format" property of the
@@ -36,8 +45,15 @@ public class FORMATFactory {
      * @return the format as defined by the JSON Schema specification
      */
     public static FORMAT getFormat(JsonNode node) {
+        return forName(getFormatName(node));
+    }
+
+    /**
+     * @param the node containing the "format" property, or its value
+     * @return the name of the format, <code>null</code> if it is not a string
+     */
+    public static String getFormatName(JsonNode node) {
 
-        FORMAT fmt = FORMAT.UNKNOWN;
         JsonNode formatNode = null;
 
         if (node.isTextual()) {  //comes from JacksonSchema
@@ -50,26 +66,82 @@ public class FORMATFactory {
 
         if (formatNode == null) {
             throw new JSONSchemaException("Invalid schema provided: property format is not defined!");
-        } else {
-            if (formatNode.isTextual()) {
-                String format = formatNode.getTextValue();
+        }
+        return formatNode.isTextual() ? formatNode.getTextValue() : null;
+    }
 
-                if ("date-time".equals(format)) {
-                    fmt = FORMAT.DATE_TIME;
-                } else {
-                    if ("date".equals(format)) {
-                        fmt = FORMAT.DATE;
-                    }
-                }
+    /**
+     * @return the format named <code>name</code> by the specification, <code>FORMAT.UNKNOWN</code> for other names
+     */
+    public static FORMAT forName(String name) {
+        for (FORMAT fmt : FORMAT.values()) {
+            if (fmt != FORMAT.UNKNOWN && fmt.toString().equals(name)) {
+                return fmt;
             }
         }
-        return fmt;
+        return FORMAT.UNKNOWN;
+    }
+
+    /**
+     * Checks the value of a node against a single format: only the grammar of <code>format</code> is scanned.<br/>
+     * <br/> "utc-millisec" expects a number, all the other formats a string.
+     *
+     * @return <code>true</code> if the node is written in <code>format</code>, always <code>false</code> for an
+     * unknown format
+     */
+    public static boolean matches(JsonNode node, FORMAT format) {
+        if (null == node) {
+            return false;
+        }
+        if (format == FORMAT.UTC_MILLISEC) {
+            return node.isNumber();
+        }
+        if (!node.isTextual()) {
+            return false;
+        }
+        String value = node.getTextValue();
+        switch (format) {
+            case DATE_TIME:
+                return isDateTime(value);
+            case DATE:
+                return isDate(value);
+            case TIME:
+                return isTime(value);
+            case REGEX:
+                return isRegex(value);
+            case COLOR:
+                return isColor(value);
+            case STYLE:
+                return isStyle(value);
+            case PHONE:
+                return isPhone(value);
+            case URI:
+                return isUri(value);
+            case EMAIL:
+                return isEmail(value);
+            case IP_ADDRESS:
+                return isIpAddress(value);
+            case IPV6:
+                return isIpv6(value);
+            case HOST_NAME:
+                return isHostName(value, 0, value.length());
+            case STREET_ADDRESS:
+            case LOCALITY:
+            case REGION:
+            case POSTAL_CODE:
+            case COUNTRY:
+                // free text
+                return true;
+            default:
+                return false;
+        }
     }
 
     /**
      * Translates the format of a
      * <code>org.codehaus.jackson.JsonNode</code> passed into a format as defined in the paragraph 5.20 of the JSON
-     * Schema specification.<br/> <br/> This method returns the "real" format of the node passed.
+     * Schema specification.<br/> <br/> This method returns the "real" format of the node passed. Prefer
+     * <code>matches</code> to check a single format.
      *
      *
      * @return the JSON Schema format of this node
@@ -82,10 +154,10 @@ public class FORMATFactory {
 
             if (node.isTextual()) {
                 String propertyValue = node.getTextValue();
-                if (isValidDateTime(propertyValue)) {
+                if (isDateTime(propertyValue)) {
                     fmt = FORMAT.DATE_TIME;
                 } else {
-                    if (isValidDate(propertyValue)) {
+                    if (isDate(propertyValue)) {
                         fmt = FORMAT.DATE;
                     }
                 }
@@ -94,44 +166,446 @@ public class FORMATFactory {
         return fmt;
     }
 
-    private static boolean isValidDateTime(String inStr) {
-        return isParseableAsDateWithFmt(inStr, DATETIME_FMT);
+    /**
+     * RFC 3339 <code>full-date</code>: <code>YYYY-MM-DD</code>, the day being checked against the month and leap years.
+     */
+    public static boolean isDate(CharSequence s) {
+        return s != null && s.length() == 10 && isFullDate(s, 0);
+    }
+
+    /**
+     * RFC 3339 <code>date-time</code>: <code>YYYY-MM-DDThh:mm:ss[.fraction](Z|+hh:mm|-hh:mm)</code>. As allowed by the
+     * RFC, "T" and "Z" may be lower case and the seconds may be 60 (leap second).
+     */
+    public static boolean isDateTime(CharSequence s) {
+        if (s == null || s.length() < 20 || !isFullDate(s, 0)) {
+            return false;
+        }
+        char t = s.charAt(10);
+        if ((t != 'T' && t != 't') || !isHourMinute(s, 11) || s.charAt(16) != ':' || !isNumber(s, 17, 2, 60)) {
+            return false;
+        }
+
+        int len = s.length();
+        int i = 19;
+        if (s.charAt(i) == '.') {
+            int start = ++i;
+            while (i < len && isDigit(s.charAt(i))) {
+                i++;
+            }
+            if (i == start || i == len) {
+                return false;
+            }
+        }
+
+        char offset = s.charAt(i);
+        if (offset == 'Z' || offset == 'z') {
+            return i + 1 == len;
+        }
+        return (offset == '+' || offset == '-') && i + 6 == len && isHourMinute(s, i + 1);
+    }
+
+    /**
+     * <code>hh:mm:ss</code>
+     */
+    public static boolean isTime(CharSequence s) {
+        return s != null && s.length() == 8 && isHourMinute(s, 0) && s.charAt(5) == ':' && isNumber(s, 6, 2, 59);
+    }
+
+    /**
+     * A regular expression accepted by <code>java.util.regex.Pattern</code>.
+     */
+    public static boolean isRegex(String s) {
+        if (s == null) {
+            return false;
+        }
+        try {
+            Pattern.compile(s);
+            return true;
+        } catch (PatternSyntaxException pse) {
+            return false;
+        }
+    }
+
+    /**
+     * CSS 2.1 color: <code>#rgb</code>, <code>#rrggbb</code>, <code>rgb(r, g, b)</code> (integers or percentages) or
+     * one of the 17 named colors.
+     */
+    public static boolean isColor(CharSequence s) {
+        if (s == null || s.length() == 0) {
+            return false;
+        }
+        int len = s.length();
+        if (s.charAt(0) == '#') {
+            if (len != 4 && len != 7) {
+                return false;
+            }
+            for (int i = 1; i < len; i++) {
+                if (!isHexDigit(s.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (len > 5 && regionMatches(s, 0, "rgb(") && s.charAt(len - 1) == ')') {
+            return isRgb(s, 4, len - 1);
+        }
+        for (String name : COLOR_NAMES) {
+            if (name.length() == len && regionMatches(s, 0, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * CSS style declarations: <code>property: value</code> pairs separated by semicolons.
+     */
+    public static boolean isStyle(CharSequence s) {
+        if (s == null) {
+            return false;
+        }
+        int len = s.length();
+        int i = skipSpaces(s, 0, len);
+        int declarations = 0;
+        while (i < len) {
+            // property
+            if (s.charAt(i) == '-') {
+                i++;
+            }
+            if (i == len || !isLetter(s.charAt(i))) {
+                return false;
+            }
+            while (i < len && (isLetter(s.charAt(i)) || isDigit(s.charAt(i)) || s.charAt(i) == '-')) {
+                i++;
+            }
+            i = skipSpaces(s, i, len);
+            if (i == len || s.charAt(i) != ':') {
+                return false;
+            }
+            // value, up to the next semicolon
+            i = skipSpaces(s, i + 1, len);
+            int value = i;
+            while (i < len && s.charAt(i) != ';') {
+                i++;
+            }
+            if (i == value) {
+                return false;
+            }
+            declarations++;
+            i = skipSpaces(s, i < len ? i + 1 : i, len);
+        }
+        return declarations > 0;
+    }
+
+    /**
+     * International (E.123) or local phone number: an optional leading "+", then digits which may be grouped with
+     * spaces, hyphens, dots and one pair of parentheses. At most 15 digits, as in E.164.
+     */
+    public static boolean isPhone(CharSequence s) {
+        if (s == null) {
+            return false;
+        }
+        int len = s.length();
+        int i = len > 0 && s.charAt(0) == '+' ? 1 : 0;
+        int digits = 0;
+        boolean parentheses = false;
+        boolean open = false;
+        char previous = '+';
+        for (; i < len; i++) {
+            char c = s.charAt(i);
+            if (isDigit(c)) {
+                digits++;
+            } else if (c == ' ' || c == '-' || c == '.') {
+                if (!isDigit(previous) && previous != ')') {
+                    return false;
+                }
+            } else if (c == '(') {
+                if (parentheses || isDigit(previous)) {
+                    return false;
+                }
+                parentheses = true;
+                open = true;
+            } else if (c == ')') {
+                if (!open || !isDigit(previous)) {
+                    return false;
+                }
+                open = false;
+            } else {
+                return false;
+            }
+            previous = c;
+        }
+        return !open && digits > 0 && digits <= 15 && (isDigit(previous) || previous == ')');
+    }
+
+    /**
+     * Absolute URI (RFC 3986): a scheme, a colon, then only characters allowed in a URI, percent signs being followed
+     * by two hexadecimal digits.
+     */
+    public static boolean isUri(CharSequence s) {
+        if (s == null || s.length() < 2 || !isLetter(s.charAt(0))) {
+            return false;
+        }
+        int len = s.length();
+        int i = 1;
+        while (i < len && (isLetter(s.charAt(i)) || isDigit(s.charAt(i)) || "+-.".indexOf(s.charAt(i)) >= 0)) {
+            i++;
+        }
+        if (i == len || s.charAt(i) != ':') {
+            return false;
+        }
+        for (i++; i < len; i++) {
+            char c = s.charAt(i);
+            if (c == '%') {
+                if (i + 2 >= len || !isHexDigit(s.charAt(i + 1)) || !isHexDigit(s.charAt(i + 2))) {
+                    return false;
+                }
+                i += 2;
+            } else if (!isLetter(c) && !isDigit(c) && URI_CHARS.indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private static boolean isValidDate(String inStr) {
-        return isParseableAsDateWithFmt(inStr, DATE_FMT);
+    /**
+     * <code>local@host-name</code>, the local part being made of dot separated RFC 5322 atoms.
+     */
+    public static boolean isEmail(CharSequence s) {
+        if (s == null) {
+            return false;
+        }
+        int len = s.length();
+        int at = -1;
+        char previous = '.';
+        for (int i = 0; i < len && at < 0; i++) {
+            char c = s.charAt(i);
+            if (c == '@') {
+                at = i;
+            } else if (c == '.') {
+                if (previous == '.') {
+                    return false;
+                }
+            } else if (!isLetter(c) && !isDigit(c) && ATEXT.indexOf(c) < 0) {
+                return false;
+            }
+            previous = c;
+        }
+        return at > 0 && at <= 64 && s.charAt(at - 1) != '.' && isHostName(s, at + 1, len);
+    }
+
+    /**
+     * IPv4 dotted quad: four decimal numbers from 0 to 255, without leading zeros.
+     */
+    public static boolean isIpAddress(CharSequence s) {
+        return s != null && isIpAddress(s, 0, s.length());
     }
 
-    private static boolean isParseableAsDateWithFmt(String inStr, String dateFmt) {
-        if (inStr == null) {
+    /**
+     * IPv6 text form (RFC 4291): eight groups of one to four hexadecimal digits, one run of groups may be replaced by
+     * "::" and the last two by an IPv4 address.
+     */
+    public static boolean isIpv6(CharSequence s) {
+        if (s == null || s.length() < 2) {
             return false;
         }
-        // Set the format to use as a constructor argument.
-        SimpleDateFormat dateFormat = new SimpleDateFormat(dateFmt);
-        dateFormat.setLenient(false);
+        int len = s.length();
+        int i = 0;
+        int groups = 0;
+        boolean compressed = false;
+        if (s.charAt(0) == ':') {
+            if (s.charAt(1) != ':') {
+                return false;
+            }
+            compressed = true;
+            i = 2;
+        }
+        while (i < len) {
+            int start = i;
+            while (i < len && isHexDigit(s.charAt(i))) {
+                i++;
+            }
+            if (i < len && s.charAt(i) == '.') {
+                // trailing IPv4 address, worth two groups
+                if (!isIpAddress(s, start, len)) {
+                    return false;
+                }
+                groups += 2;
+                break;
+            }
+            if (i == start || i - start > 4) {
+                return false;
+            }
+            groups++;
+            if (i == len) {
+                break;
+            }
+            if (s.charAt(i) != ':' || ++i == len) {
+                return false;
+            }
+            if (s.charAt(i) == ':') {
+                if (compressed) {
+                    return false;
+                }
+                compressed = true;
+                i++;
+            }
+        }
+        return compressed ? groups <= 7 : groups == 8;
+    }
 
-        if (dateFmt.equals(DATETIME_FMT)) {  //ISO-8601
-            //SimpleDateFormat uses GMT[-+]hh:mm for the TZ which breaks things a bit.
-            if (inStr.endsWith(ZULU)) {
-                inStr = inStr.substring(0, inStr.length() - 1) + GMT_UTC_OFFSET;
+    /**
+     * RFC 1123 host name between <code>from</code> and <code>to</code>: dot separated labels of at most 63 letters,
+     * digits and hyphens, not starting nor ending with a hyphen, 253 characters at most.
+     */
+    public static boolean isHostName(CharSequence s, int from, int to) {
+        if (s == null || to <= from || to - from > 253) {
+            return false;
+        }
+        int label = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || s.charAt(i) == '.') {
+                if (i == label || i - label > 63 || s.charAt(label) == '-' || s.charAt(i - 1) == '-') {
+                    return false;
+                }
+                label = i + 1;
             } else {
-                int inset = 6;
-                try {
-                    String s0 = inStr.substring(0, inStr.length() - inset);
-                    String s1 = inStr.substring(inStr.length() - inset, inStr.length());
-                    inStr = s0 + GMT + s1;
-                } catch (java.lang.StringIndexOutOfBoundsException obe) {
+                char c = s.charAt(i);
+                if (!isLetter(c) && !isDigit(c) && c != '-') {
                     return false;
                 }
             }
         }
+        return true;
+    }
 
-        try {
-            //parse the inDate parameter
-            dateFormat.parse(inStr.trim());
-        } catch (ParseException pe) {
+    // dotted quad between from and to
+    private static boolean isIpAddress(CharSequence s, int from, int to) {
+        int i = from;
+        for (int part = 0; part < 4; part++) {
+            if (part > 0) {
+                if (i >= to || s.charAt(i) != '.') {
+                    return false;
+                }
+                i++;
+            }
+            int start = i;
+            int n = 0;
+            while (i < to && i - start < 3 && isDigit(s.charAt(i))) {
+                n = n * 10 + (s.charAt(i) - '0');
+                i++;
+            }
+            if (i == start || n > 255 || (s.charAt(start) == '0' && i - start > 1)) {
+                return false;
+            }
+        }
+        return i == to;
+    }
+
+    // r, g, b between from and to: three integers (0-255) or three percentages (0-100)
+    private static boolean isRgb(CharSequence s, int from, int to) {
+        int i = from;
+        int percent = -1;
+        for (int part = 0; part < 3; part++) {
+            i = skipSpaces(s, i, to);
+            if (part > 0) {
+                if (i == to || s.charAt(i) != ',') {
+                    return false;
+                }
+                i = skipSpaces(s, i + 1, to);
+            }
+            int start = i;
+            int n = 0;
+            while (i < to && i - start < 3 && isDigit(s.charAt(i))) {
+                n = n * 10 + (s.charAt(i) - '0');
+                i++;
+            }
+            if (i == start) {
+                return false;
+            }
+            boolean p = i < to && s.charAt(i) == '%';
+            if (p) {
+                i++;
+            }
+            if ((percent >= 0 && percent != (p ? 1 : 0)) || n > (p ? 100 : 255)) {
+                return false;
+            }
+            percent = p ? 1 : 0;
+        }
+        return skipSpaces(s, i, to) == to;
+    }
+
+    // case insensitive comparison of s at from with the lower case ascii word
+    private static boolean regionMatches(CharSequence s, int from, String word) {
+        if (s.length() - from < word.length()) {
             return false;
         }
+        for (int i = 0; i < word.length(); i++) {
+            char c = s.charAt(from + i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            if (c != word.charAt(i)) {
+                return false;
+            }
+        }
         return true;
     }
+
+    private static int skipSpaces(CharSequence s, int from, int to) {
+        while (from < to && s.charAt(from) == ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isHexDigit(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    // YYYY-MM-DD at from
+    private static boolean isFullDate(CharSequence s, int from) {
+        int year = number(s, from, 4);
+        int month = number(s, from + 5, 2);
+        int day = number(s, from + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || s.charAt(from + 4) != '-' || s.charAt(from + 7) != '-') {
+            return false;
+        }
+        if (month == 2 && day == 29) {
+            return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+        }
+        return day <= DAYS_IN_MONTH[month - 1];
+    }
+
+    // hh:mm at from
+    private static boolean isHourMinute(CharSequence s, int from) {
+        return isNumber(s, from, 2, 23) && s.charAt(from + 2) == ':' && isNumber(s, from + 3, 2, 59);
+    }
+
+    private static boolean isNumber(CharSequence s, int from, int count, int max) {
+        int n = number(s, from, count);
+        return n >= 0 && n <= max;
+    }
+
+    // the value of count digits at from, -1 if one of them is not a digit
+    private static int number(CharSequence s, int from, int count) {
+        int n = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            n = n * 10 + (c - '0');
+        }
+        return n;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
 }
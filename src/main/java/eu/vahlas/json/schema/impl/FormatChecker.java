@@ -0,0 +1,36 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import java.io.Serializable;
+
+import org.codehaus.jackson.JsonNode;
+
+/**
+ * Checks the values of a "format". Checkers are registered by format name
+ * in a <code>FormatRegistry</code> and shared by all the schemas compiled
+ * with it: they must be thread-safe, and serializable like the validators
+ * holding them.
+ */
+public interface FormatChecker extends Serializable {
+
+	/**
+	 * @param value the instance value, never <code>null</code>
+	 * @return <code>true</code> if <code>value</code> is written in the format
+	 */
+	boolean check(JsonNode value);
+}
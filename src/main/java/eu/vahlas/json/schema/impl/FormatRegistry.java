@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codehaus.jackson.JsonNode;
+
+import eu.vahlas.json.schema.FORMAT;
+
+/**
+ * The checkers of the "format" values, by format name.<br/>
+ * <br/>
+ * The default registry holds a checker for every format of the
+ * specification (see <code>FORMAT</code>) and cannot be modified. To add
+ * custom formats, or replace a built-in checker, create a new registry
+ * (which starts with the same formats), register the checkers and compile
+ * the schemas with a <code>SchemaContext</code> using it.<br/>
+ * <br/>
+ * Each <code>FormatValidator</code> looks its checker up once, when the
+ * schema is compiled.
+ */
+public class FormatRegistry {
+
+	private static final FormatRegistry DEFAULT = new FormatRegistry(true);
+
+	private final Map<String, FormatChecker> checkers = new ConcurrentHashMap<String, FormatChecker>();
+	private final boolean frozen;
+
+	/**
+	 * Creates a registry holding the built-in formats.
+	 */
+	public FormatRegistry() {
+		this(false);
+	}
+
+	private FormatRegistry(boolean frozen) {
+		for ( FORMAT format : FORMAT.values() ) {
+			if ( format != FORMAT.UNKNOWN )
+				checkers.put(format.toString(), new BuiltinChecker(format));
+		}
+		this.frozen = frozen;
+	}
+
+	public static FormatRegistry getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Registers (or replaces) the checker of a format.
+	 *
+	 * @throws UnsupportedOperationException on the default registry
+	 */
+	public FormatRegistry register(String format, FormatChecker checker) {
+		if ( frozen )
+			throw new UnsupportedOperationException("The default format registry cannot be modified");
+		checkers.put(format, checker);
+		return this;
+	}
+
+	/**
+	 * @return the checker of <code>format</code> or <code>null</code> if the format is unknown
+	 */
+	public FormatChecker get(String format) {
+		return format == null ? null : checkers.get(format);
+	}
+
+	public boolean contains(String format) {
+		return format != null && checkers.containsKey(format);
+	}
+
+	private static final class BuiltinChecker implements FormatChecker {
+
+		private static final long serialVersionUID = 3152617937284066413L;
+
+		private final FORMAT format;
+
+		BuiltinChecker(FORMAT format) {
+			this.format = format;
+		}
+
+		@Override
+		public boolean check(JsonNode value) {
+			return FORMATFactory.matches(value, format);
+		}
+	}
+
+}
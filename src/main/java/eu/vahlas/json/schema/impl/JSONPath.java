@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import java.io.Serializable;
+
+/**
+ * Location of a node in the validated instance.<br/>
+ * <br/>
+ * A path is an immutable link to its parent plus one segment (a property
+ * name or an array index), so descending into a child costs a single small
+ * object. The textual form (<code>$.a.b[3]</code>, or <code>/a/b/3</code>
+ * as a JSON Pointer) is only built when an error message needs it.
+ */
+public final class JSONPath implements Serializable {
+
+	private static final long serialVersionUID = -2210429645318530148L;
+
+	public static final JSONPath ROOT = new JSONPath(null, JSONValidator.AT_ROOT, -1);
+
+	private final JSONPath parent;
+	private final String name;
+	private final int index;
+
+	private JSONPath(JSONPath parent, String name, int index) {
+		this.parent = parent;
+		this.name = name;
+		this.index = index;
+	}
+
+	/**
+	 * Returns a root path rendered as <code>at</code>, used to adapt callers
+	 * which still pass the location as a string.
+	 */
+	public static JSONPath of(String at) {
+		if ( at == null || JSONValidator.AT_ROOT.equals(at) )
+			return ROOT;
+		return new JSONPath(null, at, -1);
+	}
+
+	public JSONPath property(String name) {
+		return new JSONPath(this, name, -1);
+	}
+
+	public JSONPath index(int index) {
+		return new JSONPath(this, null, index);
+	}
+
+	public JSONPath getParent() { return parent; }
+
+	public boolean isRoot() { return parent == null; }
+
+	public boolean isIndex() { return parent != null && name == null; }
+
+	/**
+	 * @return the property name of this segment, or <code>null</code> for an array index
+	 */
+	public String getName() { return parent == null ? null : name; }
+
+	/**
+	 * @return the array index of this segment, or <code>-1</code> for a property
+	 */
+	public int getIndex() { return index; }
+
+	public int depth() {
+		int depth = 0;
+		for ( JSONPath p = this; p.parent != null; p = p.parent ) {
+			depth++;
+		}
+		return depth;
+	}
+
+	/**
+	 * Renders the path as a RFC 6901 JSON Pointer; the root is the empty string.
+	 */
+	public String toPointer() {
+		StringBuilder sb = new StringBuilder();
+		appendPointer(sb);
+		return sb.toString();
+	}
+
+	/**
+	 * Renders the path in the <code>$.a.b[3]</code> notation used by error messages.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		appendTo(sb);
+		return sb.toString();
+	}
+
+	private void appendTo(StringBuilder sb) {
+		if ( parent == null ) {
+			sb.append(name);
+			return;
+		}
+		parent.appendTo(sb);
+		if ( name == null )
+			sb.append('[').append(index).append(']');
+		else
+			sb.append('.').append(name);
+	}
+
+	private void appendPointer(StringBuilder sb) {
+		if ( parent == null )
+			return;
+		parent.appendPointer(sb);
+		sb.append('/');
+		if ( name == null ) {
+			sb.append(index);
+			return;
+		}
+		for ( int i = 0; i < name.length(); i++ ) {
+			char c = name.charAt(i);
+			if ( c == '~' )
+				sb.append("~0");
+			else if ( c == '/' )
+				sb.append("~1");
+			else
+				sb.append(c);
+		}
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if ( this == o )
+			return true;
+		if ( !(o instanceof JSONPath) )
+			return false;
+		JSONPath a = this;
+		JSONPath b = (JSONPath) o;
+		while ( a != null && b != null ) {
+			if ( a.index != b.index || (a.name == null ? b.name != null : !a.name.equals(b.name)) )
+				return false;
+			a = a.parent;
+			b = b.parent;
+		}
+		return a == b;
+	}
+
+	@Override
+	public int hashCode() {
+		int h = 1;
+		for ( JSONPath p = this; p != null; p = p.parent ) {
+			h = 31 * h + (p.name == null ? p.index : p.name.hashCode());
+		}
+		return h;
+	}
+}
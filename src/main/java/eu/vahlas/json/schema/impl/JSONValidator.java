@@ -20,10 +20,39 @@ import java.util.List;
 
 import org.codehaus.jackson.JsonNode;
 
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.ValidationMessage;
+
 public interface JSONValidator {
 	String AT_ROOT = "$";
 	
 	List<String> validate(JsonNode node, String at);
 	
 	List<String> validate(JsonNode node, JsonNode parent, String at);
+
+	/**
+	 * Validates <code>node</code> found at <code>at</code> in the instance.
+	 * The path is only rendered as a string when an error is reported.
+	 */
+	List<String> validate(JsonNode node, JsonNode parent, JSONPath at);
+
+	/**
+	 * Structured counterpart of <code>validate</code>: the messages keep the
+	 * keyword, path, code and arguments of each error and only build their
+	 * text on demand.
+	 */
+	List<ValidationMessage> validateMessages(JsonNode node, JsonNode parent, JSONPath at);
+
+	/**
+	 * Reports the errors found on <code>node</code> to <code>errors</code>.
+	 * This is the method every other <code>validate</code> variant relies on;
+	 * it allocates nothing when the node is valid.
+	 */
+	void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors);
+
+	/**
+	 * Short-circuit counterpart of <code>validate</code>: returns as soon as
+	 * a violation is found, without building any error message.
+	 */
+	boolean isValid(JsonNode node, JsonNode parent);
 }
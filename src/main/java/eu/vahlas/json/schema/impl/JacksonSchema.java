@@ -20,65 +20,165 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.io.Serializable;
-import java.lang.reflect.Constructor;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import eu.vahlas.json.schema.ErrorCollector;
 import eu.vahlas.json.schema.JSONSchema;
 import eu.vahlas.json.schema.JSONSchemaException;
-import eu.vahlas.json.schema.impl.validators.*;
+import eu.vahlas.json.schema.ListErrorCollector;
+import eu.vahlas.json.schema.TYPE;
+import eu.vahlas.json.schema.ValidationListener;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.validators.RefValidator;
 
-public class JacksonSchema implements JSONSchema, JSONValidator, Serializable {
+/**
+ * A compiled schema.<br/>
+ * <br/>
+ * Instances are immutable once constructed: every field is final, the
+ * validators are held in unmodifiable collections and keep no reference to
+ * the schema <code>JsonNode</code>. A schema can therefore be shared by any
+ * number of threads without synchronization, however it is published.<br/>
+ * <br/>
+ * The validators are also sorted into one plan per instance type (see
+ * <code>TypedValidator</code>): the type of a node is worked out once, and
+ * only the validators which can fail on it are run. <code>isValid</code> runs
+ * them cheapest first, <code>validate</code> in schema order so the errors
+ * are reported in the same order as the keywords. The exception is the
+ * <code>ObjectValidator</code>, which checks "properties",
+ * "additionalProperties" and the "requires" of the properties in one pass:
+ * their errors follow the order of the instance fields, the missing
+ * properties and unmet "requires" coming last.
+ */
+public class JacksonSchema extends AbstractJSONValidator implements JSONSchema, Serializable {
 
 	private static final long serialVersionUID = -3585793275135068320L;
 
 	private static final Logger LOG = LoggerFactory.getLogger(JacksonSchema.class);
 
-	protected ObjectMapper mapper;
-	protected List<JSONValidator> validators;
+	protected final ObjectMapper mapper;
+	protected final List<JSONValidator> validators;
+	/** the validators to run on the nodes of each type, by <code>TYPE</code> ordinal */
+	private final JSONValidator[][] plans;
+	/** the same validators, cheapest first */
+	private final JSONValidator[][] probes;
 
         // This indicates that the instance property in the instance object is optional,
         // implying that its schema/validations would be optional too. Therefore, there is no
         // such thing as an OptionalValidator.
         // (false by default)
         public static final String OPTIONAL = "optional";
-	protected boolean optional = false;
+	protected final boolean optional;
+
+	/** the keyword of each validator */
+	private final List<String> names;
+	/** the keyword of each validator of <code>plans</code> */
+	private final String[][] keywords;
+	private final transient ValidationListener listener;
+
+	private transient volatile StreamingValidator streamingValidator;
 
 	public JacksonSchema(ObjectMapper mapper, JsonNode schemaNode) {
-		this.mapper = mapper;
-		validators = new ArrayList<JSONValidator>();
-		read(schemaNode);
+		this(new SchemaContext(mapper), schemaNode);
 	}
 
 	public JacksonSchema(JsonNode schemaNode) {
-		validators = new ArrayList<JSONValidator>();
-		read(schemaNode);
+		this(new SchemaContext(null), schemaNode);
 	}
 
-	@SuppressWarnings("unchecked")
-	protected void read(JsonNode schemaNode) {
+	public JacksonSchema(SchemaContext context, JsonNode schemaNode) {
+		this.mapper = context.getMapper();
+		List<JSONValidator> list = new ArrayList<JSONValidator>();
+		List<String> names = new ArrayList<String>();
+		this.optional = read(context, schemaNode, list, names);
+		this.validators = Collections.unmodifiableList(list);
+		this.names = Collections.unmodifiableList(names);
+		this.plans = plan(list, false);
+		this.probes = plan(list, true);
+		this.keywords = keywords(list, names, plans);
+		this.listener = context.getListener();
+	}
+
+	/**
+	 * Shares the compiled keywords of <code>schema</code>, for subclasses which
+	 * change the way they are run.
+	 */
+	protected JacksonSchema(JacksonSchema schema) {
+		this.mapper = schema.mapper;
+		this.validators = schema.validators;
+		this.names = schema.names;
+		this.optional = schema.optional;
+		this.plans = schema.plans;
+		this.probes = schema.probes;
+		this.keywords = schema.keywords;
+		this.listener = schema.listener;
+	}
+
+	private JacksonSchema(JacksonSchema schema, List<JSONValidator> validators, List<String> names) {
+		this.mapper = schema.mapper;
+		this.validators = Collections.unmodifiableList(validators);
+		this.names = Collections.unmodifiableList(names);
+		this.optional = schema.optional;
+		this.plans = plan(validators, false);
+		this.probes = plan(validators, true);
+		this.keywords = keywords(validators, names, plans);
+		this.listener = schema.listener;
+	}
+
+	/**
+	 * @return a schema running the keywords of this one but <code>removed</code>,
+	 *         for validators checking some keywords of their sub-schemas themselves
+	 */
+	public JacksonSchema without(Collection<? extends JSONValidator> removed) {
+		List<JSONValidator> kept = new ArrayList<JSONValidator>();
+		List<String> keptNames = new ArrayList<String>();
+		for ( int i = 0; i < validators.size(); i++ ) {
+			if ( !removed.contains(validators.get(i)) ) {
+				kept.add(validators.get(i));
+				keptNames.add(names.get(i));
+			}
+		}
+		return kept.size() == validators.size() ? this : new JacksonSchema(this, kept, keptNames);
+	}
+
+	/**
+	 * Compiles the keywords of <code>schemaNode</code> into <code>validators</code>,
+	 * their names into <code>keywords</code>.
+	 * @return whether the schema is optional
+	 */
+	private static boolean read(SchemaContext context, JsonNode schemaNode, List<JSONValidator> validators,
+			List<String> keywords) {
+		boolean optional = false;
+		KeywordRegistry registry = context.getKeywordRegistry();
 		Iterator<String> pnames = schemaNode.getFieldNames();
 		while ( pnames.hasNext() ) {
 			String pname = pnames.next();
 			JsonNode n = schemaNode.get(pname);
 
-			// If a $ref node is contained in the node, then we replace the node with the target of the ref
-			// This is an experimental implementation based on the assumption that the $ref property
-			// contains a valid URL
-			if (pname.equals("$ref")) {
-				try {
-					JsonNode refNode = mapper.readTree(new URL(n.getTextValue()).openStream());
-					read(refNode);
-				} catch (Exception e) {
-					LOG.error("$ref resolution failed: " + n.getTextValue(), e);
+			// A $ref node is validated by the target of the ref, which is resolved, compiled
+			// and shared through the context
+			if ( RefValidator.PROPERTY.equals(pname) ) {
+				if ( !n.isTextual() )
+					throw new JSONSchemaException("Invalid JSON Schema: $ref must be a string!");
+				RefValidator ref = context.resolveRef(n.getTextValue());
+				validators.add(ref);
+				keywords.add(pname);
+				if ( ref.isResolved() && ref.getTarget().isOptional() ) {
+					optional = true;
 				}
+				continue;
 			}
 
 			// Optional must be defined a priori
@@ -89,104 +189,186 @@ public class JacksonSchema implements JSONSchema, JSONValidator, Serializable {
 				continue;
 			}
 
-			// Additional Properties validator need the list of allowed properties
-			if ( AdditionalPropertiesValidator.PROPERTY.equals(pname) ) {
-				validators.add(
-						new AdditionalPropertiesValidator(
-								schemaNode.get(PropertiesValidator.PROPERTY),
-								schemaNode.get(AdditionalPropertiesValidator.PROPERTY)
-								)
-						);
+			// title, description and unknown keywords have nothing to validate
+			KeywordFactory factory = registry.get(pname);
+			if ( factory == null ) {
+				LOG.debug("Ignoring keyword {}", pname);
 				continue;
 			}
 
-			// Minimum needs MinimumCanEqual (if present) ...
-			if ( MinimumValidator.PROPERTY.equals(pname)) {
-				validators.add(
-						new MinimumValidator(
-								schemaNode.get(MinimumValidator.PROPERTY),
-								schemaNode.get(MinimumValidator.PROPERTY_CANEQUAL)
-								)
-						);
-				continue;
-			}
-			// ... and MinimumCanEqual alone is a nonsense
-			if ( MinimumValidator.PROPERTY_CANEQUAL.equals(pname)) {
-				continue;
+			JSONValidator validator = factory.create(schemaNode, n, context);
+			if ( validator != null ) {
+				validators.add(validator);
+				keywords.add(pname);
 			}
+		}
+		return optional;
+	}
 
-			// Maximum needs MaximumCanEqual (if present) ...
-			if ( MaximumValidator.PROPERTY.equals(pname)) {
-				validators.add(
-						new MaximumValidator(
-								schemaNode.get(MaximumValidator.PROPERTY),
-								schemaNode.get(MaximumValidator.PROPERTY_CANEQUAL)
-								)
-						);
-				continue;
-			}
-			// ... and MaximumCanEqual alone is a nonsense
-			if ( MaximumValidator.PROPERTY_CANEQUAL.equals(pname)) {
-				continue;
+	/**
+	 * Sorts <code>validators</code> by the instance types they can fail on and,
+	 * if <code>byCost</code>, by cost within a type. Validators which are not
+	 * typed are run on every type, after the others when sorted by cost.
+	 */
+	private static JSONValidator[][] plan(List<JSONValidator> validators, boolean byCost) {
+		int untyped = TypedValidator.NESTED + 1;
+		TYPE[] types = TYPE.values();
+		JSONValidator[][] plans = new JSONValidator[types.length][];
+		for ( TYPE t : types ) {
+			List<JSONValidator> plan = new ArrayList<JSONValidator>();
+			for ( int cost = TypedValidator.CHEAP; cost <= untyped; cost++ ) {
+				for ( JSONValidator v : validators ) {
+					boolean typed = v instanceof TypedValidator;
+					if ( byCost && cost != (typed ? ((TypedValidator) v).getCost() : untyped) )
+						continue;
+					if ( !typed || (((TypedValidator) v).getTypes() & TYPEFactory.bit(t)) != 0 )
+						plan.add(v);
+				}
+				if ( !byCost )
+					break;
 			}
+			plans[t.ordinal()] = plan.toArray(new JSONValidator[plan.size()]);
+		}
+		return plans;
+	}
 
-			// General case
-			String className = Character.toUpperCase( pname.charAt(0) ) + pname.substring(1) + "Validator";
-			if ( n != null ) {
-				try {
-					Class<JSONValidator> clazz = (Class<JSONValidator>) getClass().getClassLoader().loadClass(
-							"eu.vahlas.json.schema.impl.validators." + className);
-					Constructor<JSONValidator> c = null;
-					try {
-						c = clazz.getConstructor(JsonNode.class);
-						validators.add(c.newInstance(n));
-					} catch (NoSuchMethodException nsme) {
-						c = clazz.getConstructor( new Class[] {JsonNode.class, ObjectMapper.class} );
-						validators.add(c.newInstance(n, mapper));
-					}
-				} catch (Exception e) {
-					LOG.warn("Could not load validator " + pname, e);
-					validators.add(new NoOpValidator(n));
-				}
-			} else {
-				if ( TypeValidator.PROPERTY.equals( pname ) )
-					throw new JSONSchemaException("Invalid JSON Schema: \"type\" property not found!");
+	/**
+	 * Lines the keywords of <code>validators</code> up with the validators of each plan.
+	 */
+	private static String[][] keywords(List<JSONValidator> validators, List<String> names, JSONValidator[][] plans) {
+		Map<JSONValidator, String> byValidator = new IdentityHashMap<JSONValidator, String>();
+		for ( int i = 0; i < validators.size(); i++ ) {
+			byValidator.put(validators.get(i), names.get(i));
+		}
+		String[][] keywords = new String[plans.length][];
+		for ( int t = 0; t < plans.length; t++ ) {
+			keywords[t] = new String[plans[t].length];
+			for ( int i = 0; i < plans[t].length; i++ ) {
+				keywords[t][i] = byValidator.get(plans[t][i]);
 			}
 		}
+		return keywords;
 	}
 
 	// --------------------------------------------------- Implement JSONValidator
 	@Override
-	public List<String> validate(JsonNode jsonNode, String at) {
-		return validate(jsonNode, null, at);
+	public void validate(JsonNode jsonNode, JsonNode parent, JSONPath at, ErrorCollector errors) {
+		int type = TYPEFactory.getNodeType(jsonNode).ordinal();
+		JSONValidator[] plan = plans[type];
+		if ( listener != null ) {
+			trace(plan, keywords[type], jsonNode, parent, at, errors);
+			return;
+		}
+		for ( JSONValidator v : plan ) {
+			v.validate(jsonNode, parent, at, errors);
+		}
+	}
+
+	private void trace(JSONValidator[] plan, String[] names, JsonNode jsonNode, JsonNode parent, JSONPath at,
+			ErrorCollector errors) {
+		TracingCollector tracer = TracingCollector.of(listener, errors);
+		for ( int i = 0; i < plan.length; i++ ) {
+			int before = tracer.getCount();
+			listener.enter(names[i], jsonNode, at);
+			plan[i].validate(jsonNode, parent, at, tracer);
+			listener.exit(names[i], jsonNode, at, tracer.getCount() - before);
+		}
 	}
 
 	@Override
-	public List<String> validate(JsonNode jsonNode, JsonNode parent, String at) {
-		List<String> errors = new ArrayList<String>();
-		for ( JSONValidator v : validators ) {
-			errors.addAll(v.validate(jsonNode, parent, at));
+	public boolean isValid(JsonNode jsonNode, JsonNode parent) {
+		for ( JSONValidator v : probes[TYPEFactory.getNodeType(jsonNode).ordinal()] ) {
+			if ( !v.isValid(jsonNode, parent) )
+				return false;
 		}
-		return errors;
+		return true;
 	}
 
 	// ----------------------------------------------------- Implement JSONSchema
 	@Override
 	public List<String> validate(String json) {
-		try {
-			JsonNode jsonNode = mapper.readTree(json);
-			return validate(jsonNode, JSONValidator.AT_ROOT);
-		} catch (IOException ioe) {
-			LOG.error("Failed to load json instance!", ioe);
-			throw new JSONSchemaException(ioe);
-		}
+		return validateInstance(readInstance(json), new ListErrorCollector()).getErrors();
 	}
 
 	@Override
 	public List<String> validate(InputStream jsonStream) {
+		return validateInstance(readInstance(jsonStream), new ListErrorCollector()).getErrors();
+	}
+
+	@Override
+	public List<String> validate(Reader jsonReader) {
+		return validateInstance(readInstance(jsonReader), new ListErrorCollector()).getErrors();
+	}
+
+	@Override
+	public List<String> validate(URL jsonURL) {
+		return validateInstance(readInstance(jsonURL), new ListErrorCollector()).getErrors();
+	}
+
+	@Override
+	public List<ValidationMessage> validateMessages(String json) {
+		return validateInstance(readInstance(json), new ListErrorCollector()).getMessages();
+	}
+
+	@Override
+	public List<ValidationMessage> validateMessages(InputStream jsonStream) {
+		return validateInstance(readInstance(jsonStream), new ListErrorCollector()).getMessages();
+	}
+
+	@Override
+	public List<ValidationMessage> validateMessages(Reader jsonReader) {
+		return validateInstance(readInstance(jsonReader), new ListErrorCollector()).getMessages();
+	}
+
+	@Override
+	public List<ValidationMessage> validateMessages(URL jsonURL) {
+		return validateInstance(readInstance(jsonURL), new ListErrorCollector()).getMessages();
+	}
+
+	@Override
+	public void validate(String json, ErrorCollector errors) {
+		validateInstance(readInstance(json), errors);
+	}
+
+	@Override
+	public void validate(InputStream jsonStream, ErrorCollector errors) {
+		validateInstance(readInstance(jsonStream), errors);
+	}
+
+	@Override
+	public void validate(Reader jsonReader, ErrorCollector errors) {
+		validateInstance(readInstance(jsonReader), errors);
+	}
+
+	@Override
+	public void validate(URL jsonURL, ErrorCollector errors) {
+		validateInstance(readInstance(jsonURL), errors);
+	}
+
+	@Override
+	public boolean isValid(String json) {
+		return isValid(readInstance(json), null);
+	}
+
+	@Override
+	public boolean isValid(InputStream jsonStream) {
+		return isValid(readInstance(jsonStream), null);
+	}
+
+	@Override
+	public boolean isValid(Reader jsonReader) {
+		return isValid(readInstance(jsonReader), null);
+	}
+
+	@Override
+	public boolean isValid(URL jsonURL) {
+		return isValid(readInstance(jsonURL), null);
+	}
+
+	@Override
+	public void validateStream(InputStream jsonStream, ErrorCollector errors) {
 		try {
-			JsonNode jsonNode = mapper.readTree(jsonStream);
-			return validate(jsonNode, JSONValidator.AT_ROOT);
+			validateStream(mapper.getJsonFactory().createJsonParser(jsonStream), errors);
 		} catch (IOException ioe) {
 			LOG.error("Failed to load json instance!", ioe);
 			throw new JSONSchemaException(ioe);
@@ -194,21 +376,46 @@ public class JacksonSchema implements JSONSchema, JSONValidator, Serializable {
 	}
 
 	@Override
-	public List<String> validate(Reader jsonReader) {
+	public void validateStream(Reader jsonReader, ErrorCollector errors) {
 		try {
-			JsonNode jsonNode = mapper.readTree(jsonReader);
-			return validate(jsonNode, JSONValidator.AT_ROOT);
+			validateStream(mapper.getJsonFactory().createJsonParser(jsonReader), errors);
 		} catch (IOException ioe) {
 			LOG.error("Failed to load json instance!", ioe);
 			throw new JSONSchemaException(ioe);
 		}
 	}
 
-	@Override
-	public List<String> validate(URL jsonURL) {
+	/**
+	 * Validates the next value of <code>jp</code> without building the tree of
+	 * the whole instance, see <code>StreamingValidator</code>.
+	 */
+	public void validateStream(JsonParser jp, ErrorCollector errors) throws IOException {
+		StreamingValidator v = streamingValidator;
+		if ( v == null ) {
+			v = new StreamingValidator(this, mapper);
+			streamingValidator = v;
+		}
+		v.validate(jp, errors);
+	}
+
+	// Most instances are valid: the fail-fast pass answers them without building any
+	// error message, and the detailed pass only runs on the instances which fail.
+	// A listener observes the detailed pass, which then runs on every instance.
+	protected <C extends ErrorCollector> C validateInstance(JsonNode jsonNode, C errors) {
+		if ( listener != null || !isValid(jsonNode, null) )
+			validate(jsonNode, null, JSONPath.ROOT, errors);
+		return errors;
+	}
+
+	protected JsonNode readInstance(Object json) {
 		try {
-			JsonNode jsonNode = mapper.readTree(jsonURL.openStream());
-			return validate(jsonNode, JSONValidator.AT_ROOT);
+			if ( json instanceof String )
+				return mapper.readTree((String) json);
+			if ( json instanceof InputStream )
+				return mapper.readTree((InputStream) json);
+			if ( json instanceof Reader )
+				return mapper.readTree((Reader) json);
+			return mapper.readTree(((URL) json).openStream());
 		} catch (IOException ioe) {
 			LOG.error("Failed to load json instance!", ioe);
 			throw new JSONSchemaException(ioe);
@@ -216,4 +423,14 @@ public class JacksonSchema implements JSONSchema, JSONValidator, Serializable {
 	}
 
 	public boolean isOptional() { return optional; }
+
+	/**
+	 * @return the compiled keywords of this schema, in schema order
+	 */
+	public List<JSONValidator> getValidators() { return validators; }
+
+	/**
+	 * @return the keywords which can fail on a node of <code>type</code>, cheapest first
+	 */
+	JSONValidator[] getProbes(TYPE type) { return probes[type.ordinal()]; }
 }
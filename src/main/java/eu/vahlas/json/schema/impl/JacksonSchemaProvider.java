@@ -16,11 +16,15 @@
 
 package eu.vahlas.json.schema.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.ObjectInputStream;
 import java.io.Reader;
 import java.io.Serializable;
 import java.net.URL;
+import java.util.concurrent.Callable;
 
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.map.ObjectMapper;
@@ -31,45 +35,101 @@ import eu.vahlas.json.schema.JSONSchema;
 import eu.vahlas.json.schema.JSONSchemaException;
 import eu.vahlas.json.schema.JSONSchemaProvider;
 
+/**
+ * Compiles JSON schemas into <code>JacksonSchema</code> instances.<br/>
+ * <br/>
+ * Compiled schemas are kept in a bounded <code>SchemaCache</code>: schemas
+ * given as text, stream or reader are keyed by a digest of their content,
+ * schemas given as a URL are keyed by the URL. Use a cache size of 0 to
+ * compile a fresh schema on every call.<br/>
+ * <br/>
+ * Each schema is compiled in its own scope of the context, see
+ * <code>SchemaContext.newScope</code>: the targets of its references are
+ * dropped with it when the cache evicts it.
+ */
 public class JacksonSchemaProvider implements JSONSchemaProvider, Serializable {
 
 	private static final long serialVersionUID = 7600020194154713323L;
 
 	private static final Logger LOG = LoggerFactory.getLogger(JacksonSchemaProvider.class);
 
-	protected ObjectMapper mapper;
+	public static final int DEFAULT_CACHE_SIZE = SchemaCache.DEFAULT_MAX_SIZE;
+
+	protected final ObjectMapper mapper;
+	protected final SchemaContext context;
+	protected transient SchemaCache cache;
+	private final int cacheSize;
 	
 	public JacksonSchemaProvider(ObjectMapper mapper) {
-		this.mapper = mapper;
+		this(mapper, DEFAULT_CACHE_SIZE);
+	}
+
+	public JacksonSchemaProvider(ObjectMapper mapper, int cacheSize) {
+		this(new SchemaContext(mapper), cacheSize);
+	}
+
+	/**
+	 * @param resolver used to load the targets of <code>$ref</code> properties, which are
+	 *        compiled once per schema returned by this provider
+	 */
+	public JacksonSchemaProvider(ObjectMapper mapper, SchemaResolver resolver) {
+		this(new SchemaContext(mapper, resolver), DEFAULT_CACHE_SIZE);
+	}
+
+	public JacksonSchemaProvider(ObjectMapper mapper, SchemaResolver resolver, int cacheSize) {
+		this(new SchemaContext(mapper, resolver), cacheSize);
+	}
+
+	public JacksonSchemaProvider(SchemaContext context, int cacheSize) {
+		this.context = context;
+		this.mapper = context.getMapper();
+		this.cacheSize = cacheSize;
+		this.cache = new SchemaCache(cacheSize);
 	}
 	
 	@Override
-	public JSONSchema getSchema(String schema) {
-		try {
-			JsonNode schemaNode = mapper.readTree(schema);
-			return new JacksonSchema(mapper, schemaNode);
-		} catch (IOException ioe) {
-			LOG.error("Failed to load json schema!", ioe);
-			throw new JSONSchemaException(ioe);
-		} 
+	public JSONSchema getSchema(final String schema) {
+		return cache.get(SchemaCache.contentKey(schema), new Callable<JacksonSchema>() {
+			@Override
+			public JacksonSchema call() {
+				try {
+					JsonNode schemaNode = mapper.readTree(schema);
+					return new JacksonSchema(context.newScope(), schemaNode);
+				} catch (IOException ioe) {
+					LOG.error("Failed to load json schema!", ioe);
+					throw new JSONSchemaException(ioe);
+				}
+			}
+		});
 	}
 
 	@Override
 	public JSONSchema getSchema(InputStream schemaStream) {
+		final byte[] content;
 		try {
-			JsonNode schemaNode = mapper.readTree(schemaStream);
-			return new JacksonSchema(mapper, schemaNode);
+			content = readFully(schemaStream);
 		} catch (IOException ioe) {
 			LOG.error("Failed to load json schema!", ioe);
 			throw new JSONSchemaException(ioe);
 		}
+		return cache.get(SchemaCache.contentKey(content), new Callable<JacksonSchema>() {
+			@Override
+			public JacksonSchema call() {
+				try {
+					JsonNode schemaNode = mapper.readTree(new ByteArrayInputStream(content));
+					return new JacksonSchema(context.newScope(), schemaNode);
+				} catch (IOException ioe) {
+					LOG.error("Failed to load json schema!", ioe);
+					throw new JSONSchemaException(ioe);
+				}
+			}
+		});
 	}
 
 	@Override
 	public JSONSchema getSchema(Reader schemaReader) {
 		try {
-			JsonNode schemaNode = mapper.readTree(schemaReader);
-			return new JacksonSchema(mapper, schemaNode);
+			return getSchema(readFully(schemaReader));
 		} catch (IOException ioe) {
 			LOG.error("Failed to load json schema!", ioe);
 			throw new JSONSchemaException(ioe);
@@ -77,13 +137,55 @@ public class JacksonSchemaProvider implements JSONSchemaProvider, Serializable {
 	}
 
 	@Override
-	public JSONSchema getSchema(URL schemaURL) {
-		try {
-			JsonNode schemaNode = mapper.readTree(schemaURL.openStream());
-			return new JacksonSchema(mapper, schemaNode);
-		} catch (IOException ioe) {
-			LOG.error("Failed to load json schema!", ioe);
-			throw new JSONSchemaException(ioe);
+	public JSONSchema getSchema(final URL schemaURL) {
+		return cache.get(SchemaCache.urlKey(schemaURL), new Callable<JacksonSchema>() {
+			@Override
+			public JacksonSchema call() {
+				try {
+					JsonNode schemaNode = mapper.readTree(schemaURL.openStream());
+					return new JacksonSchema(context.newScope(), schemaNode);
+				} catch (IOException ioe) {
+					LOG.error("Failed to load json schema!", ioe);
+					throw new JSONSchemaException(ioe);
+				}
+			}
+		});
+	}
+
+	public SchemaContext getContext() {
+		return context;
+	}
+
+	/**
+	 * Gives access to the compiled schema cache, e.g. to read its hit, miss
+	 * and eviction counters.
+	 */
+	public SchemaCache getCache() {
+		return cache;
+	}
+
+	private static byte[] readFully(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int n;
+		while ( (n = in.read(buffer)) != -1 ) {
+			out.write(buffer, 0, n);
 		}
+		return out.toByteArray();
+	}
+
+	private static String readFully(Reader in) throws IOException {
+		StringBuilder out = new StringBuilder();
+		char[] buffer = new char[4096];
+		int n;
+		while ( (n = in.read(buffer)) != -1 ) {
+			out.append(buffer, 0, n);
+		}
+		return out.toString();
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		cache = new SchemaCache(cacheSize);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,254 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.JSONSchemaException;
+import eu.vahlas.json.schema.ListErrorCollector;
+import eu.vahlas.json.schema.ValidationMessage;
+
+/**
+ * Validates JSON Lines (newline delimited JSON) files against one compiled
+ * schema.<br/>
+ * <br/>
+ * The file is memory-mapped and split into chunks of about
+ * <code>chunkSize</code> bytes, each ending on a line boundary. The chunks are
+ * validated concurrently on the <code>ExecutorService</code> given by the
+ * caller; every line is checked with the fail-fast pass first and only the
+ * invalid ones are validated again to collect their messages. Results are
+ * reported in file order, with the line number and byte offset of each line.
+ * Blank lines are counted but not validated.
+ */
+public class JsonLinesValidator {
+
+	private static final Logger LOG = LoggerFactory.getLogger(JsonLinesValidator.class);
+
+	public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+	/**
+	 * Receives the lines which are not valid, in file order, on the calling thread.
+	 */
+	public interface LineHandler {
+		void invalid(LineResult result);
+	}
+
+	private final JacksonSchema schema;
+	private final ExecutorService pool;
+	private final int chunkSize;
+
+	public JsonLinesValidator(JacksonSchema schema, ExecutorService pool) {
+		this(schema, pool, DEFAULT_CHUNK_SIZE);
+	}
+
+	public JsonLinesValidator(JacksonSchema schema, ExecutorService pool, int chunkSize) {
+		if ( chunkSize <= 0 )
+			throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+		this.schema = schema;
+		this.pool = pool;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Validates every line of <code>file</code> and returns the invalid ones.
+	 *
+	 * @return the invalid lines, in file order
+	 */
+	public List<LineResult> validate(File file) throws IOException {
+		final List<LineResult> invalid = new ArrayList<LineResult>();
+		validate(file, new LineHandler() {
+			@Override
+			public void invalid(LineResult result) {
+				invalid.add(result);
+			}
+		});
+		return invalid;
+	}
+
+	/**
+	 * Validates every line of <code>file</code>, reporting the invalid ones to <code>handler</code>.
+	 *
+	 * @return the number of lines in the file
+	 */
+	public long validate(File file, LineHandler handler) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			List<Future<Chunk>> chunks = new ArrayList<Future<Chunk>>();
+			long size = channel.size();
+			long start = 0;
+			while ( start < size ) {
+				long end = lineEnd(channel, Math.min(start + chunkSize, size), size);
+				chunks.add(pool.submit(new ChunkTask(channel, start, end)));
+				start = end;
+			}
+
+			long lines = 0;
+			for ( Future<Chunk> f : chunks ) {
+				Chunk c = get(f);
+				for ( int i = 0; i < c.invalid.size(); i++ ) {
+					LineResult r = c.invalid.get(i);
+					handler.invalid(new LineResult(lines + r.getLine(), r.getOffset(), r.getLength(), r.getMessages()));
+				}
+				lines += c.lines;
+			}
+			return lines;
+		} finally {
+			raf.close();
+		}
+	}
+
+	// Returns the position following the first '\n' found from pos, or size.
+	private static long lineEnd(FileChannel channel, long pos, long size) throws IOException {
+		if ( pos >= size )
+			return size;
+		ByteBuffer buf = ByteBuffer.allocate(4096);
+		while ( pos < size ) {
+			buf.clear();
+			int n = channel.read(buf, pos);
+			if ( n <= 0 )
+				break;
+			for ( int i = 0; i < n; i++ ) {
+				if ( buf.get(i) == '\n' )
+					return pos + i + 1;
+			}
+			pos += n;
+		}
+		return size;
+	}
+
+	private static Chunk get(Future<Chunk> f) throws IOException {
+		try {
+			return f.get();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new JSONSchemaException("Interrupted while validating JSON lines", ie);
+		} catch (ExecutionException ee) {
+			Throwable t = ee.getCause();
+			if ( t instanceof IOException )
+				throw (IOException) t;
+			if ( t instanceof RuntimeException )
+				throw (RuntimeException) t;
+			if ( t instanceof Error )
+				throw (Error) t;
+			throw new JSONSchemaException(t);
+		}
+	}
+
+	/**
+	 * Lines of one chunk: the line numbers of the results are relative to the chunk.
+	 */
+	private static final class Chunk {
+		long lines;
+		final List<LineResult> invalid = new ArrayList<LineResult>();
+	}
+
+	private final class ChunkTask implements Callable<Chunk> {
+		private final FileChannel channel;
+		private final long start;
+		private final long end;
+
+		ChunkTask(FileChannel channel, long start, long end) {
+			this.channel = channel;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public Chunk call() throws IOException {
+			MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+			JsonFactory factory = schema.mapper.getJsonFactory();
+			Chunk chunk = new Chunk();
+			byte[] line = new byte[256];
+
+			int limit = buf.limit();
+			int from = 0;
+			while ( from < limit ) {
+				int to = from;
+				while ( to < limit && buf.get(to) != '\n' ) {
+					to++;
+				}
+				int len = to > from && buf.get(to - 1) == '\r' ? to - from - 1 : to - from;
+				chunk.lines++;
+
+				if ( line.length < len )
+					line = new byte[Math.max(len, line.length * 2)];
+				buf.position(from);
+				buf.get(line, 0, len);
+				if ( !isBlank(line, len) ) {
+					List<ValidationMessage> messages = validate(factory, line, len, start + from);
+					if ( !messages.isEmpty() )
+						chunk.invalid.add(new LineResult(chunk.lines, start + from, len, messages));
+				}
+				from = to + 1;
+			}
+			return chunk;
+		}
+
+		private List<ValidationMessage> validate(JsonFactory factory, byte[] line, int len, long offset) throws IOException {
+			JsonNode node;
+			try {
+				JsonParser jp = factory.createJsonParser(line, 0, len);
+				node = schema.mapper.readTree(jp);
+				if ( jp.nextToken() != null )
+					throw new JsonParseException("unexpected content after the JSON value", jp.getCurrentLocation());
+			} catch (JsonProcessingException jpe) {
+				LOG.debug("Invalid JSON line at offset {}", offset);
+				String reason = jpe.getMessage();
+				int eol = reason.indexOf('\n');
+				return Collections.singletonList(new ValidationMessage(null, JSONPath.ROOT, ErrorCode.PARSE,
+						eol < 0 ? reason : reason.substring(0, eol)));
+			}
+
+			if ( schema.isValid(node, null) )
+				return Collections.emptyList();
+			ListErrorCollector errors = new ListErrorCollector();
+			schema.validate(node, null, JSONPath.ROOT, errors);
+			return errors.getMessages();
+		}
+	}
+
+	private static boolean isBlank(byte[] line, int len) {
+		for ( int i = 0; i < len; i++ ) {
+			byte b = line[i];
+			if ( b != ' ' && b != '\t' && b != '\r' )
+				return false;
+		}
+		return true;
+	}
+}
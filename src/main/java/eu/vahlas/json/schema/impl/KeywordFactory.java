@@ -0,0 +1,35 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import org.codehaus.jackson.JsonNode;
+
+/**
+ * Builds the validator of a schema keyword. Factories are registered by
+ * keyword name in a <code>KeywordRegistry</code>.
+ */
+public interface KeywordFactory {
+
+	/**
+	 * @param schemaNode the schema declaring the keyword, for keywords depending on their siblings
+	 *        (e.g. "minimum" and "minimumCanEqual")
+	 * @param keywordNode the value of the keyword
+	 * @param context the compilation context, to build sub-schemas
+	 * @return the validator, or <code>null</code> if there is nothing to validate
+	 */
+	JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context);
+}
@@ -0,0 +1,215 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codehaus.jackson.JsonNode;
+
+import eu.vahlas.json.schema.impl.validators.*;
+
+/**
+ * Maps schema keywords to the factories of their validators.<br/>
+ * <br/>
+ * The default registry knows every keyword implemented in
+ * <code>eu.vahlas.json.schema.impl.validators</code> and cannot be modified.
+ * To add custom keywords, create a new registry (which starts with the
+ * same keywords), register the factories and compile the schemas with a
+ * <code>SchemaContext</code> using it.<br/>
+ * <br/>
+ * Keywords without a factory (e.g. "title" or "description") are ignored.
+ */
+public class KeywordRegistry {
+
+	// Sibling keywords read by another factory: known, but nothing to build
+	private static final KeywordFactory NONE = new KeywordFactory() {
+		@Override
+		public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+			return null;
+		}
+	};
+
+	private static final KeywordRegistry DEFAULT = new KeywordRegistry(true);
+
+	private final Map<String, KeywordFactory> factories = new ConcurrentHashMap<String, KeywordFactory>();
+	private final boolean frozen;
+
+	/**
+	 * Creates a registry holding the built-in keywords.
+	 */
+	public KeywordRegistry() {
+		this(false);
+	}
+
+	private KeywordRegistry(boolean frozen) {
+		registerDefaults();
+		this.frozen = frozen;
+	}
+
+	public static KeywordRegistry getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Registers (or replaces) the factory of a keyword.
+	 *
+	 * @throws UnsupportedOperationException on the default registry
+	 */
+	public KeywordRegistry register(String keyword, KeywordFactory factory) {
+		if ( frozen )
+			throw new UnsupportedOperationException("The default keyword registry cannot be modified");
+		factories.put(keyword, factory);
+		return this;
+	}
+
+	/**
+	 * @return the factory of <code>keyword</code> or <code>null</code> if the keyword is unknown
+	 */
+	public KeywordFactory get(String keyword) {
+		return factories.get(keyword);
+	}
+
+	public boolean contains(String keyword) {
+		return factories.containsKey(keyword);
+	}
+
+	// minimum, maximum and divisibleBy are checked together, by the validator of the first one
+	private static JSONValidator numeric(JsonNode schemaNode, String keyword) {
+		return keyword.equals(NumericValidator.getKeyword(schemaNode)) ? new NumericValidator(schemaNode) : null;
+	}
+
+	private void registerDefaults() {
+		factories.put(AdditionalPropertiesValidator.PROPERTY, new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				// Additional Properties validator need the list of allowed properties
+				if ( ObjectValidator.accepts(schemaNode, context) ) {
+					// checked along with "properties" when there are some
+					return schemaNode.has(PropertiesValidator.PROPERTY) ? null : new ObjectValidator(schemaNode, context);
+				}
+				return new AdditionalPropertiesValidator(
+						schemaNode.get(PropertiesValidator.PROPERTY), keywordNode, context);
+			}
+		});
+		factories.put(DisallowValidator.PROPERTY, new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				return new DisallowValidator(keywordNode);
+			}
+		});
+		factories.put(DivisibleByValidator.PROPERTY, new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				return numeric(schemaNode, DivisibleByValidator.PROPERTY);
+			}
+		});
+		factories.put(EnumValidator.PROPERTY, new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				return new EnumValidator(keywordNode);
+			}
+		});
+		factories.put(FormatValidator.PROPERTY, new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				return new FormatValidator(keywordNode, context);
+			}
+		});
+		factories.put(ItemsValidator.PROPERTY, new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				return new ItemsValidator(keywordNode, context);
+			}
+		});
+		factories.put(MaxItemsValidator.PROPERTY, new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				return new MaxItemsValidator(keywordNode);
+			}
+		});
+		factories.put(MaxLengthValidator.PROPERTY, new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				return new MaxLengthValidator(keywordNode);
+			}
+		});
+		// Maximum needs MaximumCanEqual (if present) ...
+		factories.put(MaximumValidator.PROPERTY, new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				return numeric(schemaNode, MaximumValidator.PROPERTY);
+			}
+		});
+		// ... and MaximumCanEqual alone is a nonsense
+		factories.put(MaximumValidator.PROPERTY_CANEQUAL, NONE);
+		factories.put(MinItemsValidator.PROPERTY, new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				return new MinItemsValidator(keywordNode);
+			}
+		});
+		factories.put(MinLengthValidator.PROPERTY, new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				return new MinLengthValidator(keywordNode);
+			}
+		});
+		// Minimum needs MinimumCanEqual (if present) ...
+		factories.put(MinimumValidator.PROPERTY, new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				return numeric(schemaNode, MinimumValidator.PROPERTY);
+			}
+		});
+		// ... and MinimumCanEqual alone is a nonsense
+		factories.put(MinimumValidator.PROPERTY_CANEQUAL, NONE);
+		factories.put(PatternValidator.PROPERTY, new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				return new PatternValidator(keywordNode);
+			}
+		});
+		factories.put(PropertiesValidator.PROPERTY, new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				// one pass over the fields for properties, additionalProperties and requires
+				if ( ObjectValidator.accepts(schemaNode, context) )
+					return new ObjectValidator(schemaNode, context);
+				return new PropertiesValidator(keywordNode, context);
+			}
+		});
+		factories.put(RequiresValidator.PROPERTY, new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				return new RequiresValidator(keywordNode, context);
+			}
+		});
+		factories.put(TypeValidator.PROPERTY, new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				return new TypeValidator(keywordNode, context);
+			}
+		});
+		factories.put(UniqueItemsValidator.PROPERTY, new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				return new UniqueItemsValidator(keywordNode);
+			}
+		});
+	}
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import java.util.List;
+
+import eu.vahlas.json.schema.ValidationMessage;
+
+/**
+ * Outcome of the validation of one line of a JSON Lines file.
+ */
+public class LineResult {
+
+	private final long line;
+	private final long offset;
+	private final int length;
+	private final List<ValidationMessage> messages;
+
+	public LineResult(long line, long offset, int length, List<ValidationMessage> messages) {
+		this.line = line;
+		this.offset = offset;
+		this.length = length;
+		this.messages = messages;
+	}
+
+	/**
+	 * @return the number of the line in the file, starting at 1
+	 */
+	public long getLine() { return line; }
+
+	/**
+	 * @return the position of the first byte of the line in the file
+	 */
+	public long getOffset() { return offset; }
+
+	/**
+	 * @return the length of the line in bytes, without the line terminator
+	 */
+	public int getLength() { return length; }
+
+	public boolean isValid() { return messages.isEmpty(); }
+
+	public List<ValidationMessage> getMessages() { return messages; }
+
+	@Override
+	public String toString() {
+		return "line " + line + " (offset " + offset + "): " + messages;
+	}
+}
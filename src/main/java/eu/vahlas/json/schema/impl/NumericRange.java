@@ -0,0 +1,263 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+import org.codehaus.jackson.JsonNode;
+
+/**
+ * The numeric constraints of a schema ("minimum", "maximum" and their
+ * "CanEqual" flags, "divisibleBy") compiled into primitive values, checked
+ * together on a number node.<br/>
+ * <br/>
+ * The bounds and the divisor are kept as <code>long</code> and
+ * <code>double</code> when they can be represented exactly, and always as a
+ * <code>BigDecimal</code>. An <code>int</code> or <code>long</code> node is
+ * compared as a <code>long</code>, a floating point node as a
+ * <code>double</code>, and only big numbers, or a mix of types which would
+ * lose precision, are compared as decimals. Numbers of different types are
+ * compared by value: 2 is equal to 2.0. A power of two divisor is checked with
+ * a mask.<br/>
+ * <br/>
+ * Instances are immutable and thread-safe.
+ */
+public final class NumericRange implements Serializable {
+
+	private static final long serialVersionUID = 3917446210958227461L;
+
+	/** returned by <code>check</code> when the node is below the minimum */
+	public static final int BELOW_MINIMUM = 1;
+	/** returned by <code>check</code> when the node is above the maximum */
+	public static final int ABOVE_MAXIMUM = 2;
+	/** returned by <code>check</code> when the node is not divisible by the divisor */
+	public static final int NOT_DIVISIBLE = 4;
+
+	// the longs which convert to a double without rounding
+	private static final long EXACT_DOUBLE = 1L << 53;
+
+	private final Bound minimum;
+	private final Bound maximum;
+
+	private final BigDecimal divisor;
+	/** the divisor if it is a positive long, 0 otherwise */
+	private final long longDivisor;
+	/** divisor - 1 if the divisor is a power of two, -1 otherwise */
+	private final long divisorMask;
+
+	/**
+	 * @param minimumNode the minimum, or <code>null</code>
+	 * @param minimumCanEqualNode the "minimumCanEqual" flag, <code>true</code> unless it is <code>false</code>
+	 * @param maximumNode the maximum, or <code>null</code>
+	 * @param maximumCanEqualNode the "maximumCanEqual" flag, <code>true</code> unless it is <code>false</code>
+	 * @param divisibleByNode the divisor, or <code>null</code>; 0 does not constrain anything
+	 */
+	public NumericRange(JsonNode minimumNode, JsonNode minimumCanEqualNode,
+			JsonNode maximumNode, JsonNode maximumCanEqualNode, JsonNode divisibleByNode) {
+		minimum = isNumber(minimumNode) ? new Bound(minimumNode, canEqual(minimumCanEqualNode)) : null;
+		maximum = isNumber(maximumNode) ? new Bound(maximumNode, canEqual(maximumCanEqualNode)) : null;
+
+		BigDecimal d = isNumber(divisibleByNode) ? divisibleByNode.getDecimalValue().abs() : null;
+		if ( d == null || d.signum() == 0 ) {
+			divisor = null;
+			longDivisor = 0;
+			divisorMask = -1;
+		} else {
+			divisor = d;
+			longDivisor = longValue(d);
+			divisorMask = longDivisor > 0 && (longDivisor & (longDivisor - 1)) == 0 ? longDivisor - 1 : -1;
+		}
+	}
+
+	/**
+	 * @return a combination of <code>BELOW_MINIMUM</code>, <code>ABOVE_MAXIMUM</code>
+	 *         and <code>NOT_DIVISIBLE</code>, 0 if <code>node</code> meets all the
+	 *         constraints or is not a number
+	 */
+	public int check(JsonNode node) {
+		if ( !node.isNumber() )
+			return 0;
+
+		int failed = 0;
+		switch ( node.getNumberType() ) {
+		case INT:
+		case LONG:
+			long l = node.getLongValue();
+			if ( minimum != null && minimum.below(l) )
+				failed |= BELOW_MINIMUM;
+			if ( maximum != null && maximum.above(l) )
+				failed |= ABOVE_MAXIMUM;
+			if ( divisor != null && !isDivisible(l) )
+				failed |= NOT_DIVISIBLE;
+			return failed;
+
+		case FLOAT:
+		case DOUBLE:
+			double d = node.getDoubleValue();
+			if ( minimum != null && minimum.below(d) )
+				failed |= BELOW_MINIMUM;
+			if ( maximum != null && maximum.above(d) )
+				failed |= ABOVE_MAXIMUM;
+			if ( divisor != null && !isDivisible(d) )
+				failed |= NOT_DIVISIBLE;
+			return failed;
+
+		default:
+			BigDecimal b = node.getDecimalValue();
+			if ( minimum != null && minimum.below(b) )
+				failed |= BELOW_MINIMUM;
+			if ( maximum != null && maximum.above(b) )
+				failed |= ABOVE_MAXIMUM;
+			if ( divisor != null && !isDivisible(b) )
+				failed |= NOT_DIVISIBLE;
+			return failed;
+		}
+	}
+
+	private boolean isDivisible(long l) {
+		if ( divisorMask >= 0 )
+			return (l & divisorMask) == 0;
+		if ( longDivisor > 0 )
+			return l % longDivisor == 0;
+		return isDivisible(BigDecimal.valueOf(l));
+	}
+
+	private boolean isDivisible(double d) {
+		if ( longDivisor > 0 ) {
+			// a number with a fraction is not a multiple of an integer
+			if ( d != Math.floor(d) )
+				return false;
+			if ( Math.abs(d) < EXACT_DOUBLE )
+				return isDivisible((long) d);
+		}
+		return isDivisible(BigDecimal.valueOf(d));
+	}
+
+	private boolean isDivisible(BigDecimal b) {
+		return b.remainder(divisor).signum() == 0;
+	}
+
+	private static boolean isNumber(JsonNode node) {
+		return node != null && node.isNumber();
+	}
+
+	private static boolean canEqual(JsonNode canEqualNode) {
+		return canEqualNode == null || !canEqualNode.isBoolean() || canEqualNode.getBooleanValue();
+	}
+
+	/**
+	 * @return the value of <code>b</code> if it is an integer which fits in a
+	 *         <code>long</code> and is not <code>Long.MIN_VALUE</code>, 0 otherwise
+	 */
+	private static long longValue(BigDecimal b) {
+		if ( b.signum() == 0 )
+			return 0;
+		BigDecimal stripped = b.stripTrailingZeros();
+		if ( stripped.scale() > 0 || stripped.precision() - stripped.scale() > 19 )
+			return 0;
+		try {
+			long l = stripped.longValueExact();
+			return l == Long.MIN_VALUE ? 0 : l;
+		} catch (ArithmeticException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * A minimum or a maximum: its exact value, and its primitive values when
+	 * they are exact.
+	 */
+	private static final class Bound implements Serializable {
+
+		private static final long serialVersionUID = -2181722547011834735L;
+
+		final BigDecimal exact;
+		final boolean canEqual;
+		/** whether the bound is an integer held by <code>longValue</code> */
+		final boolean isLong;
+		final long longValue;
+		/** whether the bound is the double <code>doubleValue</code> */
+		final boolean isDouble;
+		final double doubleValue;
+
+		Bound(JsonNode boundNode, boolean canEqual) {
+			this.canEqual = canEqual;
+			exact = boundNode.getDecimalValue();
+			long l = longValue(exact);
+			isLong = l != 0 || exact.signum() == 0;
+			longValue = l;
+			if ( boundNode.isFloatingPointNumber() && !boundNode.isBigDecimal() ) {
+				isDouble = true;
+				doubleValue = boundNode.getDoubleValue();
+			} else {
+				isDouble = isLong && Math.abs(l) <= EXACT_DOUBLE;
+				doubleValue = l;
+			}
+		}
+
+		boolean below(long l) {
+			int c = compare(l);
+			return c < 0 || (c == 0 && !canEqual);
+		}
+
+		boolean above(long l) {
+			int c = compare(l);
+			return c > 0 || (c == 0 && !canEqual);
+		}
+
+		boolean below(double d) {
+			int c = compare(d);
+			return c < 0 || (c == 0 && !canEqual);
+		}
+
+		boolean above(double d) {
+			int c = compare(d);
+			return c > 0 || (c == 0 && !canEqual);
+		}
+
+		boolean below(BigDecimal b) {
+			int c = b.compareTo(exact);
+			return c < 0 || (c == 0 && !canEqual);
+		}
+
+		boolean above(BigDecimal b) {
+			int c = b.compareTo(exact);
+			return c > 0 || (c == 0 && !canEqual);
+		}
+
+		// the sign of l - bound
+		private int compare(long l) {
+			if ( isLong )
+				return l < longValue ? -1 : (l == longValue ? 0 : 1);
+			if ( isDouble && Math.abs(l) <= EXACT_DOUBLE )
+				return compare((double) l, doubleValue);
+			return BigDecimal.valueOf(l).compareTo(exact);
+		}
+
+		// the sign of d - bound
+		private int compare(double d) {
+			if ( isDouble )
+				return compare(d, doubleValue);
+			return BigDecimal.valueOf(d).compareTo(exact);
+		}
+
+		private static int compare(double a, double b) {
+			return a < b ? -1 : (a > b ? 1 : 0);
+		}
+	}
+}
@@ -0,0 +1,226 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.JSONSchemaException;
+import eu.vahlas.json.schema.ListErrorCollector;
+import eu.vahlas.json.schema.ValidationMessage;
+
+/**
+ * Optional intra-document parallelism: splits the items of a large array,
+ * or the properties of a wide schema, into ranges validated concurrently.<br/>
+ * <br/>
+ * Only collections of at least <code>threshold</code> elements are split, in
+ * at most <code>parallelism</code> ranges. The calling thread validates the
+ * first range itself while the others run on the executor, and each range
+ * reports to its own collector: the messages are then replayed range after
+ * range, so they come out in the same order as a sequential validation.<br/>
+ * <br/>
+ * The calling thread never waits for a range no worker has started: it runs
+ * such ranges itself, and ranges are never split again. A bounded pool thus
+ * cannot wait on itself, even when its own threads call the validation.<br/>
+ * <br/>
+ * Enabled per <code>SchemaContext</code>; the executor is owned by the caller.
+ */
+public class Parallelism implements Serializable {
+
+	private static final long serialVersionUID = -5313806911722640157L;
+
+	public static final int DEFAULT_THRESHOLD = 10000;
+
+	private static final ThreadLocal<Boolean> IN_RANGE = new ThreadLocal<Boolean>();
+
+	private final transient ExecutorService executor;
+	private final int threshold;
+	private final int parallelism;
+
+	public Parallelism(ExecutorService executor) {
+		this(executor, DEFAULT_THRESHOLD, Runtime.getRuntime().availableProcessors());
+	}
+
+	public Parallelism(ExecutorService executor, int threshold, int parallelism) {
+		if ( threshold < 2 || parallelism < 1 )
+			throw new IllegalArgumentException("threshold must be at least 2 and parallelism at least 1");
+		this.executor = executor;
+		this.threshold = threshold;
+		this.parallelism = parallelism;
+	}
+
+	public int getThreshold() {
+		return threshold;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Validates the elements <code>[from, to)</code> of a collection.
+	 */
+	public interface Range {
+		void validate(int from, int to, ErrorCollector errors);
+	}
+
+	/**
+	 * Fail-fast check of the elements <code>[from, to)</code> of a collection.
+	 */
+	public interface Check {
+		boolean isValid(int from, int to);
+	}
+
+	/**
+	 * Runs <code>range</code> over <code>size</code> elements, concurrently if
+	 * the collection is large enough.
+	 */
+	public static void validate(Parallelism p, int size, final Range range, final ErrorCollector errors) {
+		int parts = p == null ? 1 : p.parts(size);
+		if ( parts == 1 ) {
+			range.validate(0, size, errors);
+			return;
+		}
+
+		List<FutureTask<ListErrorCollector>> futures = new ArrayList<FutureTask<ListErrorCollector>>(parts - 1);
+		for ( int i = 1; i < parts; i++ ) {
+			final int from = bound(size, parts, i);
+			final int to = bound(size, parts, i + 1);
+			futures.add(p.submit(new Callable<ListErrorCollector>() {
+				@Override
+				public ListErrorCollector call() {
+					ListErrorCollector c = new ListErrorCollector();
+					range.validate(from, to, TracingCollector.fork(errors, c));
+					return c;
+				}
+			}));
+		}
+
+		ListErrorCollector first = new ListErrorCollector();
+		inRange(true);
+		try {
+			range.validate(0, bound(size, parts, 1), TracingCollector.fork(errors, first));
+		} finally {
+			inRange(false);
+		}
+		replay(first, errors);
+		for ( FutureTask<ListErrorCollector> f : futures ) {
+			replay(get(f), errors);
+		}
+	}
+
+	/**
+	 * Fail-fast counterpart of <code>validate</code>.
+	 */
+	public static boolean isValid(Parallelism p, int size, final Check check) {
+		int parts = p == null ? 1 : p.parts(size);
+		if ( parts == 1 )
+			return check.isValid(0, size);
+
+		List<FutureTask<Boolean>> futures = new ArrayList<FutureTask<Boolean>>(parts - 1);
+		for ( int i = 1; i < parts; i++ ) {
+			final int from = bound(size, parts, i);
+			final int to = bound(size, parts, i + 1);
+			futures.add(p.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					return check.isValid(from, to);
+				}
+			}));
+		}
+
+		boolean valid;
+		inRange(true);
+		try {
+			valid = check.isValid(0, bound(size, parts, 1));
+		} finally {
+			inRange(false);
+		}
+		for ( FutureTask<Boolean> f : futures ) {
+			if ( !valid ) {
+				f.cancel(false);
+			} else {
+				valid = get(f);
+			}
+		}
+		return valid;
+	}
+
+	private int parts(int size) {
+		if ( executor == null || size < threshold || IN_RANGE.get() != null )
+			return 1;
+		return Math.max(1, Math.min(parallelism, size / (threshold / 2)));
+	}
+
+	private static int bound(int size, int parts, int i) {
+		return (int) ((long) size * i / parts);
+	}
+
+	private <T> FutureTask<T> submit(final Callable<T> c) {
+		FutureTask<T> task = new FutureTask<T>(new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				inRange(true);
+				try {
+					return c.call();
+				} finally {
+					inRange(false);
+				}
+			}
+		});
+		executor.execute(task);
+		return task;
+	}
+
+	private static void inRange(boolean in) {
+		if ( in )
+			IN_RANGE.set(Boolean.TRUE);
+		else
+			IN_RANGE.remove();
+	}
+
+	private static void replay(ListErrorCollector from, ErrorCollector to) {
+		// the errors of a traced range have been passed to the listener already
+		for ( ValidationMessage m : from.getMessages() ) {
+			TracingCollector.replay(m, to);
+		}
+	}
+
+	private static <T> T get(FutureTask<T> f) {
+		// runs the range here unless a worker has started it already
+		f.run();
+		try {
+			return f.get();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new JSONSchemaException("Interrupted during parallel validation", ie);
+		} catch (ExecutionException ee) {
+			Throwable t = ee.getCause();
+			if ( t instanceof RuntimeException )
+				throw (RuntimeException) t;
+			if ( t instanceof Error )
+				throw (Error) t;
+			throw new JSONSchemaException(t);
+		}
+	}
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import eu.vahlas.json.schema.JSONSchemaException;
+
+/**
+ * Bounded LRU cache of compiled "pattern" values, shared by all the
+ * schemas: a pattern used by many properties (or many schemas) is
+ * compiled once.
+ */
+public class RegexCache {
+
+	public static final int MAX_SIZE = 1024;
+
+	private static final Map<String, RegexMatcher> CACHE = new LinkedHashMap<String, RegexMatcher>(64, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, RegexMatcher> eldest) {
+			return size() > MAX_SIZE;
+		}
+	};
+
+	private RegexCache() {
+	}
+
+	/**
+	 * Returns the compiled form of <code>pattern</code>.
+	 *
+	 * @throws JSONSchemaException if <code>pattern</code> is not a valid regular expression
+	 */
+	public static RegexMatcher get(String pattern) {
+		synchronized (CACHE) {
+			RegexMatcher matcher = CACHE.get(pattern);
+			if ( matcher != null ) {
+				return matcher;
+			}
+		}
+
+		RegexMatcher matcher = compile(pattern);
+		synchronized (CACHE) {
+			RegexMatcher existing = CACHE.get(pattern);
+			if ( existing != null ) {
+				return existing;
+			}
+			CACHE.put(pattern, matcher);
+		}
+		return matcher;
+	}
+
+	/**
+	 * Compiles <code>pattern</code> without caching it.
+	 *
+	 * @throws JSONSchemaException if <code>pattern</code> is not a valid regular expression
+	 */
+	public static RegexMatcher compile(String pattern) {
+		Pattern compiled;
+		try {
+			compiled = Pattern.compile(pattern);
+		} catch (PatternSyntaxException pse) {
+			throw new JSONSchemaException("Invalid JSON Schema: invalid RE syntax [" + pattern + "]", pse);
+		}
+
+		RegexMatcher matcher = RegexMatcher.charClass(compiled);
+		if ( matcher == null ) {
+			matcher = new RegexMatcher.JavaRegexMatcher(compiled);
+		}
+		return matcher;
+	}
+
+	public static int size() {
+		synchronized (CACHE) {
+			return CACHE.size();
+		}
+	}
+}
@@ -0,0 +1,303 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import java.io.Serializable;
+import java.util.regex.Pattern;
+
+/**
+ * A compiled "pattern" as used by the <code>PatternValidator</code>: the
+ * whole string must match, as with <code>Matcher.matches()</code>.<br/>
+ * <br/>
+ * Instances are immutable and thread-safe. Use <code>RegexCache.get</code>
+ * to obtain them: it shares identical patterns and picks the fastest
+ * implementation available.
+ */
+public abstract class RegexMatcher implements Serializable {
+
+	private static final long serialVersionUID = 3873637294745342563L;
+
+	protected final Pattern pattern;
+
+	protected RegexMatcher(Pattern pattern) {
+		this.pattern = pattern;
+	}
+
+	/**
+	 * @return <code>true</code> if the whole <code>input</code> matches the pattern
+	 */
+	public abstract boolean matches(String input);
+
+	public String getPattern() {
+		return pattern.pattern();
+	}
+
+	@Override
+	public String toString() {
+		return pattern.pattern();
+	}
+
+	/**
+	 * General case, backed by <code>java.util.regex</code>.
+	 */
+	static class JavaRegexMatcher extends RegexMatcher {
+
+		private static final long serialVersionUID = -5291806574306651522L;
+
+		JavaRegexMatcher(Pattern pattern) {
+			super(pattern);
+		}
+
+		@Override
+		public boolean matches(String input) {
+			return pattern.matcher(input).matches();
+		}
+	}
+
+	/**
+	 * Fast path for a single, possibly anchored and negated, ASCII character
+	 * class with a quantifier, e.g. <code>^[a-z0-9_-]+$</code> or
+	 * <code>[A-Z]{3}</code>: the input is scanned against a lookup table
+	 * instead of running the regex engine.
+	 */
+	static class CharClassMatcher extends RegexMatcher {
+
+		private static final long serialVersionUID = -2925011283931103457L;
+
+		private final boolean[] table;
+		private final boolean negated;
+		private final int min;
+		private final int max;
+
+		CharClassMatcher(Pattern pattern, boolean[] table, boolean negated, int min, int max) {
+			super(pattern);
+			this.table = table;
+			this.negated = negated;
+			this.min = min;
+			this.max = max;
+		}
+
+		@Override
+		public boolean matches(String input) {
+			int length = input.length();
+			if ( !negated ) {
+				if ( length < min || length > max ) {
+					return false;
+				}
+				for ( int i = 0; i < length; i++ ) {
+					char c = input.charAt(i);
+					if ( c >= 128 || !table[c] ) {
+						return false;
+					}
+				}
+				return true;
+			}
+
+			for ( int i = 0; i < length; i++ ) {
+				char c = input.charAt(i);
+				if ( c < 128 ) {
+					if ( table[c] ) {
+						return false;
+					}
+				} else if ( c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE ) {
+					// a negated class counts code points, not chars
+					return pattern.matcher(input).matches();
+				}
+			}
+			return length >= min && length <= max;
+		}
+	}
+
+	/**
+	 * Builds the fast matcher for <code>pattern</code>, or returns
+	 * <code>null</code> when it is not a simple character class.
+	 */
+	static RegexMatcher charClass(Pattern compiled) {
+		String p = compiled.pattern();
+		if ( compiled.flags() != 0 ) {
+			return null;
+		}
+
+		int i = 0;
+		int end = p.length();
+		if ( i < end && p.charAt(i) == '^' ) {
+			i++;
+		}
+		if ( end > i && p.charAt(end - 1) == '$' && !escaped(p, end - 1) ) {
+			end--;
+		}
+		if ( i >= end || p.charAt(i) != '[' ) {
+			return null;
+		}
+		i++;
+
+		boolean negated = false;
+		if ( i < end && p.charAt(i) == '^' ) {
+			negated = true;
+			i++;
+		}
+		if ( i < end && p.charAt(i) == ']' ) {
+			return null;
+		}
+
+		boolean[] table = new boolean[128];
+		boolean closed = false;
+		while ( i < end ) {
+			char c = p.charAt(i++);
+			if ( c == ']' ) {
+				closed = true;
+				break;
+			}
+			if ( c == '[' || (c == '&' && i < end && p.charAt(i) == '&') || c >= 128 ) {
+				return null;
+			}
+			if ( c == '\\' ) {
+				if ( i >= end ) {
+					return null;
+				}
+				char e = p.charAt(i++);
+				// a range starting with an escape, e.g. [\.-z], is left to java.util.regex
+				if ( i + 1 < end && p.charAt(i) == '-' && p.charAt(i + 1) != ']' ) {
+					return null;
+				}
+				if ( !escape(e, table) ) {
+					return null;
+				}
+				continue;
+			}
+			// range?
+			if ( i + 1 < end && p.charAt(i) == '-' && p.charAt(i + 1) != ']' ) {
+				char to = p.charAt(i + 1);
+				if ( to == '\\' || to == '[' || to >= 128 || to < c ) {
+					return null;
+				}
+				for ( char x = c; x <= to; x++ ) {
+					table[x] = true;
+				}
+				i += 2;
+				continue;
+			}
+			table[c] = true;
+		}
+		if ( !closed ) {
+			return null;
+		}
+
+		// quantifier
+		int min;
+		int max;
+		if ( i == end ) {
+			min = 1;
+			max = 1;
+		} else {
+			char q = p.charAt(i++);
+			if ( q == '+' ) {
+				min = 1;
+				max = Integer.MAX_VALUE;
+			} else if ( q == '*' ) {
+				min = 0;
+				max = Integer.MAX_VALUE;
+			} else if ( q == '?' ) {
+				min = 0;
+				max = 1;
+			} else if ( q == '{' ) {
+				int close = p.indexOf('}', i);
+				if ( close < 0 || close >= end ) {
+					return null;
+				}
+				String bounds = p.substring(i, close);
+				i = close + 1;
+				try {
+					int comma = bounds.indexOf(',');
+					if ( comma < 0 ) {
+						min = Integer.parseInt(bounds);
+						max = min;
+					} else {
+						min = Integer.parseInt(bounds.substring(0, comma));
+						String upper = bounds.substring(comma + 1);
+						max = upper.length() == 0 ? Integer.MAX_VALUE : Integer.parseInt(upper);
+					}
+				} catch (NumberFormatException nfe) {
+					return null;
+				}
+			} else {
+				return null;
+			}
+			// lazy and possessive variants, or anything else after the class
+			if ( i != end ) {
+				return null;
+			}
+		}
+
+		return new CharClassMatcher(compiled, table, negated, min, max);
+	}
+
+	private static boolean escape(char e, boolean[] table) {
+		switch ( e ) {
+			case 'd':
+				fill(table, '0', '9');
+				return true;
+			case 'w':
+				fill(table, 'a', 'z');
+				fill(table, 'A', 'Z');
+				fill(table, '0', '9');
+				table['_'] = true;
+				return true;
+			case 's':
+				table[' '] = true;
+				table['\t'] = true;
+				table['\n'] = true;
+				table[0x0B] = true;
+				table['\f'] = true;
+				table['\r'] = true;
+				return true;
+			case 't':
+				table['\t'] = true;
+				return true;
+			case 'n':
+				table['\n'] = true;
+				return true;
+			case 'r':
+				table['\r'] = true;
+				return true;
+			case 'f':
+				table['\f'] = true;
+				return true;
+			default:
+				// escaped punctuation stands for itself, other escapes are left to the regex engine
+				if ( e < 128 && !Character.isLetterOrDigit(e) ) {
+					table[e] = true;
+					return true;
+				}
+				return false;
+		}
+	}
+
+	private static void fill(boolean[] table, char from, char to) {
+		for ( char c = from; c <= to; c++ ) {
+			table[c] = true;
+		}
+	}
+
+	private static boolean escaped(String p, int index) {
+		int backslashes = 0;
+		for ( int i = index - 1; i >= 0 && p.charAt(i) == '\\'; i-- ) {
+			backslashes++;
+		}
+		return backslashes % 2 == 1;
+	}
+}
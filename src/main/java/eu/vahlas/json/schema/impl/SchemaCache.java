@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import eu.vahlas.json.schema.JSONSchemaException;
+
+/**
+ * Bounded, thread-safe cache of compiled schemas used by the
+ * <code>JacksonSchemaProvider</code>.<br/>
+ * <br/>
+ * Entries are keyed either by a digest of the schema content or by the
+ * URL the schema was loaded from, and are evicted in LRU order once
+ * <code>maxSize</code> is reached. When several threads miss on the same
+ * key at once, only one of them compiles the schema; the others wait for
+ * its result.<br/>
+ * <br/>
+ * A <code>maxSize</code> of zero (or less) disables caching: every lookup
+ * compiles a fresh schema and counts as a miss.
+ */
+public class SchemaCache {
+
+	public static final int DEFAULT_MAX_SIZE = 256;
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final int maxSize;
+	private final Map<String, FutureTask<JacksonSchema>> entries;
+
+	// guarded by "this"
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	public SchemaCache(int maxSize) {
+		this.maxSize = maxSize;
+		this.entries = new LinkedHashMap<String, FutureTask<JacksonSchema>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, FutureTask<JacksonSchema>> eldest) {
+				if ( size() > SchemaCache.this.maxSize ) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns the schema cached under <code>key</code>, compiling it with
+	 * <code>compiler</code> on a miss. Compilation failures are not cached.
+	 *
+	 * @param key the cache key, see <code>contentKey</code> and <code>urlKey</code>
+	 * @param compiler builds the schema when it is not cached yet
+	 * @return the compiled schema
+	 */
+	public JacksonSchema get(String key, Callable<JacksonSchema> compiler) {
+		if ( maxSize <= 0 ) {
+			synchronized (this) {
+				misses++;
+			}
+			return call(compiler);
+		}
+
+		FutureTask<JacksonSchema> task;
+		boolean owner = false;
+		synchronized (this) {
+			task = entries.get(key);
+			if ( task == null ) {
+				task = new FutureTask<JacksonSchema>(compiler);
+				entries.put(key, task);
+				owner = true;
+				misses++;
+			} else {
+				hits++;
+			}
+		}
+
+		if ( owner ) {
+			task.run();
+		}
+
+		try {
+			return task.get();
+		} catch (ExecutionException ee) {
+			synchronized (this) {
+				if ( entries.get(key) == task ) {
+					entries.remove(key);
+				}
+			}
+			throw unwrap(ee.getCause());
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new JSONSchemaException("Interrupted while waiting for schema compilation", ie);
+		}
+	}
+
+	public synchronized long getHitCount() { return hits; }
+
+	public synchronized long getMissCount() { return misses; }
+
+	public synchronized long getEvictionCount() { return evictions; }
+
+	public synchronized int size() { return entries.size(); }
+
+	public int getMaxSize() { return maxSize; }
+
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Builds a cache key from the SHA-256 digest of the UTF-8 encoded schema text.
+	 */
+	public static String contentKey(String content) {
+		try {
+			return contentKey(content.getBytes("UTF-8"));
+		} catch (UnsupportedEncodingException uee) {
+			throw new JSONSchemaException(uee);
+		}
+	}
+
+	/**
+	 * Builds a cache key from the SHA-256 digest of the raw schema bytes.
+	 */
+	public static String contentKey(byte[] content) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+			char[] hex = new char[digest.length * 2];
+			for ( int i = 0; i < digest.length; i++ ) {
+				hex[2 * i] = HEX[(digest[i] >> 4) & 0x0f];
+				hex[2 * i + 1] = HEX[digest[i] & 0x0f];
+			}
+			return "sha-256:" + new String(hex);
+		} catch (NoSuchAlgorithmException nsae) {
+			throw new JSONSchemaException(nsae);
+		}
+	}
+
+	/**
+	 * Builds a cache key from the location of the schema.
+	 */
+	public static String urlKey(URL url) {
+		return "url:" + url.toExternalForm();
+	}
+
+	private static JacksonSchema call(Callable<JacksonSchema> compiler) {
+		try {
+			return compiler.call();
+		} catch (Exception e) {
+			throw unwrap(e);
+		}
+	}
+
+	private static RuntimeException unwrap(Throwable t) {
+		if ( t instanceof RuntimeException )
+			return (RuntimeException) t;
+		if ( t instanceof Error )
+			throw (Error) t;
+		return new JSONSchemaException(t);
+	}
+}
@@ -0,0 +1,428 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.codehaus.jackson.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.vahlas.json.schema.JSONSchemaException;
+import eu.vahlas.json.schema.impl.validators.DisallowValidator;
+import eu.vahlas.json.schema.impl.validators.ItemsValidator;
+import eu.vahlas.json.schema.impl.validators.MaxItemsValidator;
+import eu.vahlas.json.schema.impl.validators.MaxLengthValidator;
+import eu.vahlas.json.schema.impl.validators.MinItemsValidator;
+import eu.vahlas.json.schema.impl.validators.MinLengthValidator;
+import eu.vahlas.json.schema.impl.validators.ObjectValidator;
+import eu.vahlas.json.schema.impl.validators.RefValidator;
+import eu.vahlas.json.schema.impl.validators.TypeValidator;
+
+/**
+ * Opt-in compiler turning a <code>JacksonSchema</code> into a class generated
+ * for it at runtime.<br/>
+ * <br/>
+ * Each schema of the tree (the schema itself, the schemas of its properties,
+ * items and resolved $ref targets) becomes a method of the generated class,
+ * in which the keywords are straight-line code: type checks are bit tests,
+ * lengths and sizes are compared to constants, properties are dispatched on
+ * the hash of their name and validated by a direct call to the method of
+ * their schema. The other keywords call their validator through a field of
+ * its own class, so every call site only ever sees one class and can be
+ * inlined by the JIT.<br/>
+ * <br/>
+ * Only <code>isValid</code> is generated: error reports are rare and are
+ * still made by the interpreter, as are the ones of a schema which has been
+ * serialized. The class is compiled with the system Java compiler
+ * (<code>javax.tools</code>); when there is none, for instance on a JRE, or
+ * when compilation fails, the schema is returned as is.
+ */
+public final class SchemaCompiler {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SchemaCompiler.class);
+
+	private static final String PACKAGE = "eu.vahlas.json.schema.impl.generated";
+	private static final AtomicInteger CLASSES = new AtomicInteger();
+
+	private SchemaCompiler() {
+	}
+
+	/**
+	 * @return a schema validating like <code>schema</code>, whose <code>isValid</code>
+	 *         runs generated code, or <code>schema</code> itself if it cannot be compiled
+	 */
+	public static JacksonSchema compile(JacksonSchema schema) {
+		if ( schema instanceof CompiledSchema )
+			return schema;
+
+		JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+		if ( javac == null ) {
+			LOG.warn("No Java compiler available, the schema is interpreted");
+			return schema;
+		}
+
+		String className = "GeneratedSchema" + CLASSES.incrementAndGet();
+		Generator generator = new Generator(className, schema);
+		String source = generator.source();
+		if ( LOG.isDebugEnabled() )
+			LOG.debug("Generated {}:\n{}", className, source);
+
+		try {
+			Class<?> c = define(javac, PACKAGE + "." + className, source);
+			JSONValidator generated = (JSONValidator) c.getConstructor(JacksonSchema.class, Object[].class)
+					.newInstance(schema, generator.constants.toArray());
+			return new CompiledSchema(schema, generated);
+		} catch (Exception e) {
+			LOG.warn("Failed to compile the schema, it is interpreted", e);
+			return schema;
+		}
+	}
+
+	// ------------------------------------------------------------- compilation
+
+	private static Class<?> define(JavaCompiler javac, String className, final String source) throws Exception {
+		final Map<String, ByteArrayOutputStream> classes = new HashMap<String, ByteArrayOutputStream>();
+		StandardJavaFileManager files = javac.getStandardFileManager(null, null, null);
+		JavaFileManager memory = new ForwardingJavaFileManager<StandardJavaFileManager>(files) {
+			@Override
+			public JavaFileObject getJavaFileForOutput(Location location, final String name,
+					JavaFileObject.Kind kind, FileObject sibling) {
+				return new SimpleJavaFileObject(URI.create("mem:///" + name.replace('.', '/') + kind.extension), kind) {
+					@Override
+					public OutputStream openOutputStream() {
+						ByteArrayOutputStream out = new ByteArrayOutputStream();
+						classes.put(name, out);
+						return out;
+					}
+				};
+			}
+		};
+		JavaFileObject file = new SimpleJavaFileObject(
+				URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension),
+				JavaFileObject.Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+				return source;
+			}
+		};
+
+		StringWriter diagnostics = new StringWriter();
+		List<String> options = Arrays.asList("-classpath", classpath(), "-proc:none", "-g:none", "-nowarn");
+		try {
+			if ( !javac.getTask(diagnostics, memory, null, options, null, Collections.singletonList(file)).call() )
+				throw new JSONSchemaException("Failed to compile the generated schema: " + diagnostics);
+		} finally {
+			memory.close();
+		}
+
+		ClassLoader loader = new ClassLoader(SchemaCompiler.class.getClassLoader()) {
+			@Override
+			protected Class<?> findClass(String name) throws ClassNotFoundException {
+				ByteArrayOutputStream bytes = classes.get(name);
+				if ( bytes == null )
+					throw new ClassNotFoundException(name);
+				byte[] b = bytes.toByteArray();
+				return defineClass(name, b, 0, b.length);
+			}
+		};
+		return loader.loadClass(className);
+	}
+
+	// the class path of the application, and the jars of this library and of Jackson
+	private static String classpath() {
+		StringBuilder path = new StringBuilder(System.getProperty("java.class.path", ""));
+		for ( Class<?> c : new Class<?>[] { SchemaCompiler.class, JsonNode.class, JsonNode.class.getSuperclass() } ) {
+			try {
+				CodeSource source = c.getProtectionDomain().getCodeSource();
+				URL location = source == null ? null : source.getLocation();
+				if ( location != null )
+					path.append(File.pathSeparatorChar).append(new File(location.toURI()).getPath());
+			} catch (Exception e) {
+				LOG.debug("No class path entry for {}", c);
+			}
+		}
+		return path.toString();
+	}
+
+	// --------------------------------------------------------------- generation
+
+	/**
+	 * Writes the source of the class: one method per schema, one field per
+	 * validator which is called rather than inlined.
+	 */
+	private static final class Generator {
+
+		final String className;
+		final List<Object> constants = new ArrayList<Object>();
+		private final Map<JacksonSchema, Integer> methods = new IdentityHashMap<JacksonSchema, Integer>();
+		private final List<JacksonSchema> pending = new ArrayList<JacksonSchema>();
+		private final StringBuilder fields = new StringBuilder();
+		private final StringBuilder init = new StringBuilder();
+		private final StringBuilder body = new StringBuilder();
+
+		Generator(String className, JacksonSchema root) {
+			this.className = className;
+			method(root);
+			for ( int i = 0; i < pending.size(); i++ ) {
+				generate(i, pending.get(i));
+			}
+		}
+
+		String source() {
+			StringBuilder s = new StringBuilder();
+			s.append("package ").append(PACKAGE).append(";\n\n");
+			s.append("import java.util.Iterator;\n");
+			s.append("import java.util.Map;\n");
+			s.append("import org.codehaus.jackson.JsonNode;\n");
+			s.append("import org.codehaus.jackson.node.ObjectNode;\n");
+			s.append("import eu.vahlas.json.schema.ErrorCollector;\n");
+			s.append("import eu.vahlas.json.schema.impl.AbstractJSONValidator;\n");
+			s.append("import eu.vahlas.json.schema.impl.JSONPath;\n");
+			s.append("import eu.vahlas.json.schema.impl.JacksonSchema;\n");
+			s.append("import eu.vahlas.json.schema.impl.TYPEFactory;\n\n");
+			s.append("public final class ").append(className).append(" extends AbstractJSONValidator {\n\n");
+			s.append("\tprivate final JacksonSchema schema;\n");
+			s.append(fields).append('\n');
+			s.append("\tpublic ").append(className).append("(JacksonSchema schema, Object[] constants) {\n");
+			s.append("\t\tthis.schema = schema;\n");
+			s.append(init);
+			s.append("\t}\n\n");
+			s.append("\tpublic void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {\n");
+			s.append("\t\tschema.validate(node, parent, at, errors);\n");
+			s.append("\t}\n\n");
+			s.append("\tpublic boolean isValid(JsonNode node, JsonNode parent) {\n");
+			s.append("\t\treturn s0(node, parent);\n");
+			s.append("\t}\n");
+			s.append(body);
+			s.append("}\n");
+			return s.toString();
+		}
+
+		// the name of the method validating schema, generated later if needed
+		private String method(JacksonSchema schema) {
+			Integer n = methods.get(schema);
+			if ( n == null ) {
+				n = pending.size();
+				methods.put(schema, n);
+				pending.add(schema);
+			}
+			return "s" + n;
+		}
+
+		// the name of the field holding validator
+		private String constant(Object validator) {
+			String name = "c" + constants.size();
+			Class<?> c = validator.getClass();
+			String type = isAccessible(c) ? c.getName().replace('$', '.') : JSONValidator.class.getName();
+			fields.append("\tprivate final ").append(type).append(' ').append(name).append(";\n");
+			init.append("\t\t").append(name).append(" = (").append(type).append(") constants[")
+					.append(constants.size()).append("];\n");
+			constants.add(validator);
+			return name;
+		}
+
+		private void generate(int n, JacksonSchema schema) {
+			List<JSONValidator> sorted = new ArrayList<JSONValidator>();
+			for ( int cost = TypedValidator.CHEAP; cost <= TypedValidator.NESTED + 1; cost++ ) {
+				for ( JSONValidator v : schema.getValidators() ) {
+					int c = v instanceof TypedValidator ? ((TypedValidator) v).getCost() : TypedValidator.NESTED + 1;
+					if ( c == cost )
+						sorted.add(v);
+				}
+			}
+
+			StringBuilder checks = new StringBuilder();
+			for ( JSONValidator v : sorted ) {
+				check(v, checks);
+			}
+
+			body.append("\n\tprivate boolean s").append(n).append("(JsonNode node, JsonNode parent) {\n");
+			if ( checks.indexOf("bit") >= 0 )
+				body.append("\t\tint bit = TYPEFactory.bit(TYPEFactory.getNodeType(node));\n");
+			body.append(checks);
+			body.append("\t\treturn true;\n");
+			body.append("\t}\n");
+		}
+
+		private void check(JSONValidator v, StringBuilder out) {
+			if ( (v instanceof TypeValidator && !((TypeValidator) v).isUnion()) || v instanceof DisallowValidator ) {
+				int types = ((TypedValidator) v).getTypes();
+				if ( types != 0 )
+					out.append("\t\tif ( (").append(types).append(" & bit) != 0 ) return false;\n");
+
+			} else if ( v instanceof MaxLengthValidator ) {
+				out.append("\t\tif ( node.isTextual() && node.getTextValue().length() > ")
+						.append(((MaxLengthValidator) v).getMaxLength()).append(" ) return false;\n");
+
+			} else if ( v instanceof MinLengthValidator ) {
+				out.append("\t\tif ( node.isTextual() && node.getTextValue().length() < ")
+						.append(((MinLengthValidator) v).getMinLength()).append(" ) return false;\n");
+
+			} else if ( v instanceof MaxItemsValidator ) {
+				out.append("\t\tif ( node.isArray() && node.size() > ")
+						.append(((MaxItemsValidator) v).getMax()).append(" ) return false;\n");
+
+			} else if ( v instanceof MinItemsValidator ) {
+				out.append("\t\tif ( node.isArray() && node.size() < ")
+						.append(((MinItemsValidator) v).getMin()).append(" ) return false;\n");
+
+			} else if ( v instanceof ObjectValidator ) {
+				object((ObjectValidator) v, out);
+
+			} else if ( v instanceof ItemsValidator && ((ItemsValidator) v).getParallelism() == null ) {
+				items((ItemsValidator) v, out);
+
+			} else if ( v instanceof RefValidator && ((RefValidator) v).isResolved() ) {
+				out.append("\t\tif ( !").append(method(((RefValidator) v).getTarget())).append("(node, parent) ) return false;\n");
+
+			} else {
+				int types = v instanceof TypedValidator ? ((TypedValidator) v).getTypes() : TYPEFactory.ALL_TYPES;
+				if ( types == 0 )
+					return;
+				String c = constant(v);
+				out.append("\t\tif ( ");
+				if ( types != TYPEFactory.ALL_TYPES )
+					out.append("(").append(types).append(" & bit) != 0 && ");
+				out.append("!").append(c).append(".isValid(node, parent) ) return false;\n");
+			}
+		}
+
+		private void object(ObjectValidator v, StringBuilder out) {
+			List<String> names = v.getPropertyNames();
+			Map<Integer, List<Integer>> byHash = new LinkedHashMap<Integer, List<Integer>>();
+			long mandatory = 0;
+			for ( int i = 0; i < names.size(); i++ ) {
+				Integer h = names.get(i).hashCode();
+				List<Integer> same = byHash.get(h);
+				if ( same == null ) {
+					same = new ArrayList<Integer>(1);
+					byHash.put(h, same);
+				}
+				same.add(i);
+				if ( !v.getSchema(names.get(i)).isOptional() )
+					mandatory |= 1L << i;
+			}
+
+			out.append("\t\tif ( node.isObject() ) {\n");
+			out.append("\t\t\tlong present = 0;\n");
+			out.append("\t\t\tfor ( Iterator<Map.Entry<String, JsonNode>> it = ((ObjectNode) node).getFields(); it.hasNext(); ) {\n");
+			out.append("\t\t\t\tMap.Entry<String, JsonNode> field = it.next();\n");
+			out.append("\t\t\t\tString name = field.getKey();\n");
+			out.append("\t\t\t\tJsonNode value = field.getValue();\n");
+			if ( !byHash.isEmpty() ) {
+				out.append("\t\t\t\tswitch ( name.hashCode() ) {\n");
+				for ( Map.Entry<Integer, List<Integer>> e : byHash.entrySet() ) {
+					out.append("\t\t\t\tcase ").append(e.getKey()).append(":\n");
+					for ( int i : e.getValue() ) {
+						String name = names.get(i);
+						out.append("\t\t\t\t\tif ( name.equals(").append(literal(name)).append(") ) {\n");
+						out.append("\t\t\t\t\t\tpresent |= ").append(1L << i).append("L;\n");
+						out.append("\t\t\t\t\t\tif ( !").append(method(v.getSchema(name))).append("(value, node) ) return false;\n");
+						out.append("\t\t\t\t\t\tcontinue;\n");
+						out.append("\t\t\t\t\t}\n");
+					}
+					out.append("\t\t\t\t\tbreak;\n");
+				}
+				out.append("\t\t\t\t}\n");
+			}
+			if ( !v.isAllowed() )
+				out.append("\t\t\t\treturn false;\n");
+			else if ( v.getAdditionalSchema() != null )
+				out.append("\t\t\t\tif ( !").append(method(v.getAdditionalSchema())).append("(value, parent) ) return false;\n");
+			out.append("\t\t\t}\n");
+			if ( mandatory != 0 )
+				out.append("\t\t\tif ( (present & ").append(mandatory).append("L) != ").append(mandatory).append("L ) return false;\n");
+			out.append("\t\t}\n");
+		}
+
+		private void items(ItemsValidator v, StringBuilder out) {
+			out.append("\t\tif ( node.isArray() ) {\n");
+			if ( v.getSchema() != null ) {
+				out.append("\t\t\tfor ( int i = 0, n = node.size(); i < n; i++ ) {\n");
+				out.append("\t\t\t\tif ( !").append(method(v.getSchema())).append("(node.get(i), node) ) return false;\n");
+				out.append("\t\t\t}\n");
+			}
+			List<JacksonSchema> tuple = v.getTupleSchema();
+			if ( tuple != null ) {
+				out.append("\t\t\tint n = node.size();\n");
+				out.append("\t\t\tif ( n > ").append(tuple.size()).append(" ) return false;\n");
+				for ( int i = 0; i < tuple.size(); i++ ) {
+					out.append("\t\t\tif ( n > ").append(i).append(" && !").append(method(tuple.get(i)))
+							.append("(node.get(").append(i).append("), node) ) return false;\n");
+				}
+			}
+			out.append("\t\t}\n");
+		}
+
+		private static boolean isAccessible(Class<?> c) {
+			for ( ; c != null; c = c.getEnclosingClass() ) {
+				if ( !Modifier.isPublic(c.getModifiers()) || c.isAnonymousClass() || c.isLocalClass() )
+					return false;
+			}
+			return true;
+		}
+
+		private static String literal(String s) {
+			StringBuilder b = new StringBuilder("\"");
+			for ( int i = 0; i < s.length(); i++ ) {
+				char c = s.charAt(i);
+				if ( c == '"' || c == '\\' )
+					b.append('\\').append(c);
+				else if ( c == '\n' )
+					b.append("\\n");
+				else if ( c == '\r' )
+					b.append("\\r");
+				else if ( c == '\t' )
+					b.append("\\t");
+				else if ( c < 0x20 || c == 0x7f )
+					// javac reads unicode escapes first: an escaped line break would end the literal
+					b.append(String.format("\\%03o", (int) c));
+				else if ( c > 0x7e )
+					b.append(String.format("\\u%04x", (int) c));
+				else
+					b.append(c);
+			}
+			return b.append('"').toString();
+		}
+	}
+}
@@ -0,0 +1,369 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import eu.vahlas.json.schema.JSONSchemaException;
+import eu.vahlas.json.schema.ValidationListener;
+import eu.vahlas.json.schema.impl.resolvers.URLSchemaResolver;
+import eu.vahlas.json.schema.impl.validators.AdditionalPropertiesValidator;
+import eu.vahlas.json.schema.impl.validators.DisallowValidator;
+import eu.vahlas.json.schema.impl.validators.ItemsValidator;
+import eu.vahlas.json.schema.impl.validators.PropertiesValidator;
+import eu.vahlas.json.schema.impl.validators.RefValidator;
+import eu.vahlas.json.schema.impl.validators.RequiresValidator;
+import eu.vahlas.json.schema.impl.validators.TypeValidator;
+
+/**
+ * Holds everything needed while compiling a <code>JacksonSchema</code>:
+ * the <code>ObjectMapper</code>, the <code>KeywordRegistry</code> and <code>FormatRegistry</code>, the
+ * <code>SchemaResolver</code> used for <code>$ref</code> properties and the
+ * table of references already resolved.<br/>
+ * <br/>
+ * The same context is handed down to every sub-schema, so that a reference
+ * is loaded and compiled only once no matter how many schemas use it.
+ * Recursive references are supported: a reference met again while its
+ * target is still being compiled gets the same (not yet resolved)
+ * <code>RefValidator</code>.<br/>
+ * <br/>
+ * The documents are loaded before the context is locked for compilation,
+ * the target and the references of its sub-schemas, transitively: a slow resolver
+ * only delays the threads waiting for the same document. The table is never
+ * emptied, see <code>newScope</code> to bound it to a schema.
+ */
+public class SchemaContext implements Serializable {
+
+	private static final long serialVersionUID = 3106297465838812361L;
+
+	/** the keywords whose value is a schema, or an array of schemas and other values */
+	private static final String[] SCHEMA_KEYWORDS = {
+		ItemsValidator.PROPERTY, AdditionalPropertiesValidator.PROPERTY, TypeValidator.PROPERTY,
+		DisallowValidator.PROPERTY, RequiresValidator.PROPERTY
+	};
+
+	private final ObjectMapper mapper;
+	private final SchemaResolver resolver;
+	private final KeywordRegistry keywordRegistry;
+	private final FormatRegistry formatRegistry;
+	private final Parallelism parallelism;
+	private final ValidationListener listener;
+
+	// guarded by "this"
+	private final Map<String, RefValidator> refs = new HashMap<String, RefValidator>();
+	// guarded by itself, the documents loaded but not compiled yet
+	private final Map<String, FutureTask<JsonNode>> documents = new HashMap<String, FutureTask<JsonNode>>();
+
+	public SchemaContext(ObjectMapper mapper) {
+		this(mapper, new URLSchemaResolver());
+	}
+
+	public SchemaContext(ObjectMapper mapper, SchemaResolver resolver) {
+		this(mapper, resolver, KeywordRegistry.getDefault());
+	}
+
+	/**
+	 * @param keywordRegistry the validators of the keywords, see <code>KeywordRegistry</code>
+	 *        to register custom keywords
+	 */
+	public SchemaContext(ObjectMapper mapper, SchemaResolver resolver, KeywordRegistry keywordRegistry) {
+		this(mapper, resolver, keywordRegistry, null);
+	}
+
+	/**
+	 * @param parallelism splits large arrays and wide schemas across threads,
+	 *        <code>null</code> to always validate on the calling thread
+	 */
+	public SchemaContext(ObjectMapper mapper, SchemaResolver resolver, KeywordRegistry keywordRegistry, Parallelism parallelism) {
+		this(mapper, resolver, keywordRegistry, FormatRegistry.getDefault(), parallelism);
+	}
+
+	/**
+	 * @param formatRegistry the checkers of the "format" values, see <code>FormatRegistry</code>
+	 *        to register custom formats
+	 */
+	public SchemaContext(ObjectMapper mapper, SchemaResolver resolver, KeywordRegistry keywordRegistry,
+			FormatRegistry formatRegistry, Parallelism parallelism) {
+		this(mapper, resolver, keywordRegistry, formatRegistry, parallelism, null);
+	}
+
+	/**
+	 * @param listener observes the validations of the schemas compiled with this context,
+	 *        <code>null</code> for none
+	 */
+	public SchemaContext(ObjectMapper mapper, SchemaResolver resolver, KeywordRegistry keywordRegistry,
+			FormatRegistry formatRegistry, Parallelism parallelism, ValidationListener listener) {
+		this.mapper = mapper != null ? mapper : new ObjectMapper();
+		this.resolver = resolver;
+		this.keywordRegistry = keywordRegistry;
+		this.formatRegistry = formatRegistry;
+		this.parallelism = parallelism;
+		this.listener = listener;
+	}
+
+	public ObjectMapper getMapper() {
+		return mapper;
+	}
+
+	public SchemaResolver getResolver() {
+		return resolver;
+	}
+
+	public KeywordRegistry getKeywordRegistry() {
+		return keywordRegistry;
+	}
+
+	public FormatRegistry getFormatRegistry() {
+		return formatRegistry;
+	}
+
+	public Parallelism getParallelism() {
+		return parallelism;
+	}
+
+	public ValidationListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Returns a context with the same configuration and an empty reference
+	 * table: the references resolved through it live as long as the schemas
+	 * compiled with it.
+	 */
+	public SchemaContext newScope() {
+		return new SchemaContext(mapper, resolver, keywordRegistry, formatRegistry, parallelism, listener);
+	}
+
+	/**
+	 * Returns the validator for the schema referenced by <code>ref</code>,
+	 * loading and compiling the target on first use.
+	 *
+	 * @throws JSONSchemaException if the reference cannot be resolved
+	 */
+	public RefValidator resolveRef(String ref) {
+		String key = normalize(ref);
+		if ( Thread.holdsLock(this) ) {
+			// met while compiling a target: the document has been loaded with it
+			return compile(ref, key);
+		}
+
+		synchronized (this) {
+			RefValidator validator = refs.get(key);
+			if ( validator != null ) {
+				return validator;
+			}
+		}
+		try {
+			load(key);
+			synchronized (this) {
+				return compile(ref, key);
+			}
+		} finally {
+			forgetFailed();
+		}
+	}
+
+	/**
+	 * Returns the number of references resolved so far.
+	 */
+	public synchronized int getResolvedCount() {
+		return refs.size();
+	}
+
+	// guarded by "this"
+	private RefValidator compile(String ref, String key) {
+		RefValidator validator = refs.get(key);
+		if ( validator != null ) {
+			return validator;
+		}
+
+		validator = new RefValidator(key);
+		refs.put(key, validator);
+		try {
+			JsonNode target = document(key);
+			if ( target == null ) {
+				throw new JSONSchemaException("$ref resolution failed: " + ref + " could not be found");
+			}
+			validator.setTarget(new JacksonSchema(this, target));
+			synchronized (documents) {
+				documents.remove(key);
+			}
+			return validator;
+		} catch (IOException ioe) {
+			forgetUnresolved();
+			throw new JSONSchemaException("$ref resolution failed: " + ref, ioe);
+		} catch (RuntimeException e) {
+			forgetUnresolved();
+			throw e;
+		}
+	}
+
+	// Loads the document of "key" and of the references of its sub-schemas, without locking the
+	// context. The failures are left to the compilation, which reports those it needs.
+	private void load(String key) {
+		Set<String> seen = new HashSet<String>();
+		List<String> todo = new ArrayList<String>();
+		todo.add(key);
+		while ( !todo.isEmpty() ) {
+			String k = todo.remove(todo.size() - 1);
+			if ( !seen.add(k) || isResolved(k) ) {
+				continue;
+			}
+			try {
+				JsonNode target = document(k);
+				if ( target != null ) {
+					collectRefs(target, todo);
+				}
+			} catch (IOException ioe) {
+				continue;
+			} catch (RuntimeException e) {
+				continue;
+			}
+		}
+	}
+
+	private synchronized boolean isResolved(String key) {
+		return refs.containsKey(key);
+	}
+
+	// Single-flight loading: the threads asking for a document being loaded wait for it.
+	private JsonNode document(final String key) throws IOException {
+		FutureTask<JsonNode> task;
+		boolean owner = false;
+		synchronized (documents) {
+			task = documents.get(key);
+			if ( task == null ) {
+				task = new FutureTask<JsonNode>(new Callable<JsonNode>() {
+					@Override
+					public JsonNode call() throws IOException {
+						return resolver.resolve(key, mapper);
+					}
+				});
+				documents.put(key, task);
+				owner = true;
+			}
+		}
+
+		if ( owner ) {
+			task.run();
+		}
+
+		try {
+			return task.get();
+		} catch (ExecutionException ee) {
+			Throwable t = ee.getCause();
+			if ( t instanceof IOException )
+				throw (IOException) t;
+			if ( t instanceof RuntimeException )
+				throw (RuntimeException) t;
+			if ( t instanceof Error )
+				throw (Error) t;
+			throw new JSONSchemaException(t);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new JSONSchemaException("Interrupted while resolving $ref " + key, ie);
+		}
+	}
+
+	// Failed loads are kept until the resolution which met them is over, then retried on next use.
+	private void forgetFailed() {
+		synchronized (documents) {
+			for ( Iterator<FutureTask<JsonNode>> it = documents.values().iterator(); it.hasNext(); ) {
+				FutureTask<JsonNode> task = it.next();
+				if ( task.isDone() && failed(task) ) {
+					it.remove();
+				}
+			}
+		}
+	}
+
+	private static boolean failed(FutureTask<JsonNode> task) {
+		try {
+			task.get();
+			return false;
+		} catch (ExecutionException ee) {
+			return true;
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	// Only the schema positions of the standard keywords are followed: "$ref" in
+	// "enum" or "default" data is not a reference, and the sub-schemas of custom
+	// keywords are resolved by the compilation itself.
+	private static void collectRefs(JsonNode schema, List<String> refs) {
+		if ( !schema.isObject() ) {
+			return;
+		}
+		JsonNode ref = schema.get(RefValidator.PROPERTY);
+		if ( ref != null && ref.isTextual() ) {
+			refs.add(normalize(ref.getTextValue()));
+		}
+		JsonNode properties = schema.get(PropertiesValidator.PROPERTY);
+		if ( properties != null && properties.isObject() ) {
+			for ( JsonNode property : properties ) {
+				collectRefs(property, refs);
+			}
+		}
+		for ( String keyword : SCHEMA_KEYWORDS ) {
+			JsonNode n = schema.get(keyword);
+			if ( n == null ) {
+				continue;
+			}
+			if ( n.isArray() ) {
+				for ( JsonNode item : n ) {
+					collectRefs(item, refs);
+				}
+			} else {
+				collectRefs(n, refs);
+			}
+		}
+	}
+
+	// A failed resolution may leave placeholders behind (the failing reference and
+	// the recursive references to it): they must not be served to later lookups.
+	private void forgetUnresolved() {
+		for ( Iterator<RefValidator> it = refs.values().iterator(); it.hasNext(); ) {
+			if ( !it.next().isResolved() ) {
+				it.remove();
+			}
+		}
+	}
+
+	private static String normalize(String ref) {
+		// "http://json-schema.org/geo#" and "http://json-schema.org/geo" are the same document
+		if ( ref.endsWith("#") ) {
+			return ref.substring(0, ref.length() - 1);
+		}
+		return ref;
+	}
+}
@@ -0,0 +1,508 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.node.ObjectNode;
+
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.TYPE;
+import eu.vahlas.json.schema.impl.validators.DisallowValidator;
+import eu.vahlas.json.schema.impl.validators.ItemsValidator;
+import eu.vahlas.json.schema.impl.validators.MaxItemsValidator;
+import eu.vahlas.json.schema.impl.validators.MaxLengthValidator;
+import eu.vahlas.json.schema.impl.validators.MinItemsValidator;
+import eu.vahlas.json.schema.impl.validators.MinLengthValidator;
+import eu.vahlas.json.schema.impl.validators.NumericValidator;
+import eu.vahlas.json.schema.impl.validators.ObjectValidator;
+import eu.vahlas.json.schema.impl.validators.PatternValidator;
+import eu.vahlas.json.schema.impl.validators.RefValidator;
+import eu.vahlas.json.schema.impl.validators.TypeValidator;
+
+/**
+ * A <code>JacksonSchema</code> flattened into an <code>int[]</code> program,
+ * run by a single switch loop.<br/>
+ * <br/>
+ * Every schema of the tree is a subroutine starting with a table of one
+ * address per instance type, pointing to the checks of its plan for that
+ * type: the type of a node is dispatched once, and the type keywords are
+ * resolved when the program is built (they either vanish or become
+ * <code>FAIL</code>). Lengths, sizes and tuple sizes are operands, strings,
+ * patterns and numeric ranges are in constant pools, nested schemas are
+ * addresses. The keywords without an opcode (enum, format, uniqueItems,
+ * requires, custom keywords) are called from a pool of validators.<br/>
+ * <br/>
+ * Only <code>isValid</code> runs the program; errors are reported by the
+ * schema it was built from. Unlike the <code>SchemaCompiler</code>, no class
+ * is defined: a program can be built on a JRE and holds no class loader.
+ */
+public final class SchemaProgram extends AbstractJSONValidator {
+
+	// opcodes, followed by their operands
+	static final int RETURN = 0;
+	static final int FAIL = 1;
+	/** max */
+	static final int MAX_LENGTH = 2;
+	/** min */
+	static final int MIN_LENGTH = 3;
+	/** max */
+	static final int MAX_ITEMS = 4;
+	/** min */
+	static final int MIN_ITEMS = 5;
+	/** range index */
+	static final int NUMBER = 6;
+	/** pattern index */
+	static final int PATTERN = 7;
+	/** schema address */
+	static final int ITEMS = 8;
+	/** n, n schema addresses */
+	static final int TUPLE = 9;
+	/** additional (schema address, ANY or NONE), mandatory high and low bits, n, n x (hash, string index, schema address) */
+	static final int OBJECT = 10;
+	/** schema address */
+	static final int CALL = 11;
+	/** validator index */
+	static final int VALIDATOR = 12;
+	/** n, n schema addresses, one of which must match without parent */
+	static final int UNION = 13;
+
+	/** additional properties are allowed without a schema */
+	static final int ANY = -1;
+	/** additional properties are not allowed */
+	static final int NONE = -2;
+
+	private static final int TYPES = TYPE.values().length;
+
+	private final int[] code;
+	private final String[] strings;
+	private final RegexMatcher[] patterns;
+	private final NumericRange[] numbers;
+	private final JSONValidator[] validators;
+	/** the schema the program was built from, <code>null</code> if it was read from a snapshot */
+	private final JacksonSchema schema;
+	private final SchemaSnapshot snapshot;
+
+	private SchemaProgram(Builder b, JacksonSchema schema) {
+		this(b.code(), b.strings.toArray(new String[b.strings.size()]),
+				b.patterns.toArray(new RegexMatcher[b.patterns.size()]),
+				b.numbers.toArray(new NumericRange[b.numbers.size()]),
+				b.validators.toArray(new JSONValidator[b.validators.size()]), schema, null);
+	}
+
+	SchemaProgram(int[] code, String[] strings, RegexMatcher[] patterns, NumericRange[] numbers,
+			JSONValidator[] validators, JacksonSchema schema, SchemaSnapshot snapshot) {
+		this.code = code;
+		this.strings = strings;
+		this.patterns = patterns;
+		this.numbers = numbers;
+		this.validators = validators;
+		this.schema = schema;
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * @return the program of <code>schema</code> and of all the schemas it contains or references
+	 */
+	public static SchemaProgram compile(JacksonSchema schema) {
+		return new SchemaProgram(new Builder(schema), schema);
+	}
+
+	/**
+	 * @return the schema reporting the errors; the schema of a program read
+	 *         from a snapshot is compiled on first use
+	 */
+	public JacksonSchema getSchema() {
+		return schema != null ? schema : snapshot.getSchema();
+	}
+
+	/**
+	 * @return the number of <code>int</code>s of the program
+	 */
+	public int getCodeLength() {
+		return code.length;
+	}
+
+	@Override
+	public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
+		getSchema().validate(node, parent, at, errors);
+	}
+
+	@Override
+	public boolean isValid(JsonNode node, JsonNode parent) {
+		return run(0, node, parent);
+	}
+
+	private boolean run(int entry, JsonNode node, JsonNode parent) {
+		final int[] code = this.code;
+		int pc = code[entry + TYPEFactory.getNodeType(node).ordinal()];
+		for ( ;; ) {
+			switch ( code[pc] ) {
+			case RETURN:
+				return true;
+			case FAIL:
+				return false;
+			case MAX_LENGTH:
+				if ( node.getTextValue().length() > code[pc + 1] )
+					return false;
+				pc += 2;
+				break;
+			case MIN_LENGTH:
+				if ( node.getTextValue().length() < code[pc + 1] )
+					return false;
+				pc += 2;
+				break;
+			case MAX_ITEMS:
+				if ( node.size() > code[pc + 1] )
+					return false;
+				pc += 2;
+				break;
+			case MIN_ITEMS:
+				if ( node.size() < code[pc + 1] )
+					return false;
+				pc += 2;
+				break;
+			case NUMBER:
+				if ( numbers[code[pc + 1]].check(node) != 0 )
+					return false;
+				pc += 2;
+				break;
+			case PATTERN:
+				if ( !patterns[code[pc + 1]].matches(node.getTextValue()) )
+					return false;
+				pc += 2;
+				break;
+			case ITEMS: {
+				int items = code[pc + 1];
+				for ( int i = 0, n = node.size(); i < n; i++ ) {
+					if ( !run(items, node.get(i), node) )
+						return false;
+				}
+				pc += 2;
+				break;
+			}
+			case TUPLE: {
+				int n = code[pc + 1];
+				int size = node.size();
+				if ( size > n )
+					return false;
+				for ( int i = 0; i < size; i++ ) {
+					if ( !run(code[pc + 2 + i], node.get(i), node) )
+						return false;
+				}
+				pc += 2 + n;
+				break;
+			}
+			case OBJECT:
+				if ( !object(pc, node, parent) )
+					return false;
+				pc += 5 + 3 * code[pc + 4];
+				break;
+			case CALL:
+				if ( !run(code[pc + 1], node, parent) )
+					return false;
+				pc += 2;
+				break;
+			case VALIDATOR:
+				if ( !validators[code[pc + 1]].isValid(node, parent) )
+					return false;
+				pc += 2;
+				break;
+			case UNION: {
+				int n = code[pc + 1];
+				boolean matched = false;
+				for ( int i = 0; i < n && !matched; i++ ) {
+					matched = run(code[pc + 2 + i], node, null);
+				}
+				if ( !matched )
+					return false;
+				pc += 2 + n;
+				break;
+			}
+			default:
+				throw new IllegalStateException("Invalid opcode " + code[pc] + " at " + pc);
+			}
+		}
+	}
+
+	private boolean object(int pc, JsonNode node, JsonNode parent) {
+		final int[] code = this.code;
+		int additional = code[pc + 1];
+		long mandatory = ((long) code[pc + 2] << 32) | (code[pc + 3] & 0xFFFFFFFFL);
+		int n = code[pc + 4];
+		int first = pc + 5;
+
+		long present = 0;
+		for ( Iterator<Map.Entry<String, JsonNode>> it = ((ObjectNode) node).getFields(); it.hasNext(); ) {
+			Map.Entry<String, JsonNode> field = it.next();
+			String name = field.getKey();
+			int hash = name.hashCode();
+			int target = NONE;
+			for ( int i = 0, p = first; i < n; i++, p += 3 ) {
+				if ( code[p] == hash && strings[code[p + 1]].equals(name) ) {
+					present |= 1L << i;
+					target = code[p + 2];
+					break;
+				}
+			}
+			if ( target != NONE ) {
+				if ( !run(target, field.getValue(), node) )
+					return false;
+			} else if ( additional == NONE ) {
+				return false;
+			} else if ( additional != ANY && !run(additional, field.getValue(), parent) ) {
+				return false;
+			}
+		}
+		return (mandatory & ~present) == 0;
+	}
+
+	/**
+	 * Lays out the subroutines of the schemas, breadth first from the root, and
+	 * fixes their addresses up once they are all known.
+	 */
+	static final class Builder {
+
+		final List<String> strings = new ArrayList<String>();
+		final List<RegexMatcher> patterns = new ArrayList<RegexMatcher>();
+		final List<NumericRange> numbers = new ArrayList<NumericRange>();
+		/** the validators the numeric ranges belong to */
+		final List<JSONValidator> numberOwners = new ArrayList<JSONValidator>();
+		final List<JSONValidator> validators = new ArrayList<JSONValidator>();
+
+		private final Map<JacksonSchema, Integer> indexes = new IdentityHashMap<JacksonSchema, Integer>();
+		private final List<JacksonSchema> schemas = new ArrayList<JacksonSchema>();
+		private final Map<Object, Integer> pooled = new IdentityHashMap<Object, Integer>();
+		private final Map<String, Integer> stringIndexes = new HashMap<String, Integer>();
+		/** the positions holding the index of a schema, to be replaced by its address */
+		private final List<Integer> fixups = new ArrayList<Integer>();
+		private int[] code = new int[256];
+		private int length;
+
+		Builder(JacksonSchema root) {
+			schema(root);
+			List<Integer> entries = new ArrayList<Integer>();
+			for ( int i = 0; i < schemas.size(); i++ ) {
+				entries.add(subroutine(schemas.get(i)));
+			}
+			for ( int at : fixups ) {
+				code[at] = entries.get(code[at]);
+			}
+		}
+
+		int[] code() {
+			int[] c = new int[length];
+			System.arraycopy(code, 0, c, 0, length);
+			return c;
+		}
+
+		private int subroutine(JacksonSchema schema) {
+			ensure(TYPES);
+			int entry = length;
+			length += TYPES;
+
+			// identical blocks, e.g. of the types only the untyped keywords apply to, are shared
+			Map<List<Integer>, Integer> blocks = new HashMap<List<Integer>, Integer>();
+			for ( TYPE t : TYPE.values() ) {
+				List<Integer> block = new ArrayList<Integer>();
+				List<Integer> schemaRefs = new ArrayList<Integer>();
+				boolean fails = false;
+				for ( JSONValidator v : schema.getProbes(t) ) {
+					if ( !emit(v, t, block, schemaRefs) ) {
+						fails = true;
+						break;
+					}
+				}
+				if ( !fails )
+					block.add(RETURN);
+
+				Integer address = blocks.get(block);
+				if ( address == null ) {
+					address = length;
+					blocks.put(block, address);
+					ensure(block.size());
+					for ( int op : block ) {
+						code[length++] = op;
+					}
+					for ( int ref : schemaRefs ) {
+						fixups.add(address + ref);
+					}
+				}
+				code[entry + t.ordinal()] = address;
+			}
+			return entry;
+		}
+
+		/**
+		 * Appends the checks of <code>v</code> on a node of type <code>t</code> to <code>block</code>.
+		 * @return false if the node always fails, nothing after it is needed
+		 */
+		private boolean emit(JSONValidator v, TYPE t, List<Integer> block, List<Integer> schemaRefs) {
+			if ( (v instanceof TypeValidator && !((TypeValidator) v).isUnion()) || v instanceof DisallowValidator ) {
+				// only in the plans of the types it rejects
+				block.add(FAIL);
+				return false;
+
+			} else if ( v instanceof TypeValidator ) {
+				// only in the plans of the types the union does not name
+				List<JacksonSchema> candidates = ((TypeValidator) v).getUnionTypeValidator().getCandidates(t);
+				if ( candidates.isEmpty() ) {
+					block.add(FAIL);
+					return false;
+				}
+				block.add(UNION);
+				block.add(candidates.size());
+				for ( JacksonSchema s : candidates ) {
+					schemaRef(s, block, schemaRefs);
+				}
+
+			} else if ( v instanceof PatternValidator ) {
+				if ( t != TYPE.STRING ) {
+					block.add(FAIL);
+					return false;
+				}
+				block.add(PATTERN);
+				block.add(pool(((PatternValidator) v).getMatcher(), patterns));
+
+			} else if ( v instanceof MaxLengthValidator ) {
+				block.add(MAX_LENGTH);
+				block.add(((MaxLengthValidator) v).getMaxLength());
+
+			} else if ( v instanceof MinLengthValidator ) {
+				block.add(MIN_LENGTH);
+				block.add(((MinLengthValidator) v).getMinLength());
+
+			} else if ( v instanceof MaxItemsValidator ) {
+				block.add(MAX_ITEMS);
+				block.add(((MaxItemsValidator) v).getMax());
+
+			} else if ( v instanceof MinItemsValidator ) {
+				block.add(MIN_ITEMS);
+				block.add(((MinItemsValidator) v).getMin());
+
+			} else if ( range(v) != null ) {
+				block.add(NUMBER);
+				int index = pool(range(v), numbers);
+				if ( index == numberOwners.size() )
+					numberOwners.add(v);
+				block.add(index);
+
+			} else if ( v instanceof ObjectValidator ) {
+				ObjectValidator o = (ObjectValidator) v;
+				List<String> names = o.getPropertyNames();
+				long mandatory = 0;
+				for ( int i = 0; i < names.size(); i++ ) {
+					if ( !o.getSchema(names.get(i)).isOptional() )
+						mandatory |= 1L << i;
+				}
+				block.add(OBJECT);
+				if ( !o.isAllowed() ) {
+					block.add(NONE);
+				} else if ( o.getAdditionalSchema() == null ) {
+					block.add(ANY);
+				} else {
+					schemaRef(o.getAdditionalSchema(), block, schemaRefs);
+				}
+				block.add((int) (mandatory >>> 32));
+				block.add((int) mandatory);
+				block.add(names.size());
+				for ( String name : names ) {
+					block.add(name.hashCode());
+					block.add(string(name));
+					schemaRef(o.getSchema(name), block, schemaRefs);
+				}
+
+			} else if ( v instanceof ItemsValidator && ((ItemsValidator) v).getParallelism() == null ) {
+				ItemsValidator items = (ItemsValidator) v;
+				if ( items.getSchema() != null ) {
+					block.add(ITEMS);
+					schemaRef(items.getSchema(), block, schemaRefs);
+				} else if ( items.getTupleSchema() != null ) {
+					block.add(TUPLE);
+					block.add(items.getTupleSchema().size());
+					for ( JacksonSchema s : items.getTupleSchema() ) {
+						schemaRef(s, block, schemaRefs);
+					}
+				}
+
+			} else if ( v instanceof RefValidator && ((RefValidator) v).isResolved() ) {
+				block.add(CALL);
+				schemaRef(((RefValidator) v).getTarget(), block, schemaRefs);
+
+			} else {
+				block.add(VALIDATOR);
+				block.add(pool(v, validators));
+			}
+			return true;
+		}
+
+		static NumericRange range(JSONValidator v) {
+			if ( v instanceof NumericValidator )
+				return ((NumericValidator) v).getRange();
+			return null;
+		}
+
+		private void schemaRef(JacksonSchema s, List<Integer> block, List<Integer> schemaRefs) {
+			schemaRefs.add(block.size());
+			block.add(schema(s));
+		}
+
+		private int schema(JacksonSchema s) {
+			Integer index = indexes.get(s);
+			if ( index == null ) {
+				index = schemas.size();
+				indexes.put(s, index);
+				schemas.add(s);
+			}
+			return index;
+		}
+
+		private <T> int pool(T constant, List<T> pool) {
+			Integer index = pooled.get(constant);
+			if ( index == null ) {
+				index = pool.size();
+				pooled.put(constant, index);
+				pool.add(constant);
+			}
+			return index;
+		}
+
+		private int string(String s) {
+			Integer index = stringIndexes.get(s);
+			if ( index == null ) {
+				index = strings.size();
+				stringIndexes.put(s, index);
+				strings.add(s);
+			}
+			return index;
+		}
+
+		private void ensure(int n) {
+			if ( length + n > code.length ) {
+				int[] c = new int[Math.max(code.length * 2, length + n)];
+				System.arraycopy(code, 0, c, 0, code.length);
+				code = c;
+			}
+		}
+	}
+}
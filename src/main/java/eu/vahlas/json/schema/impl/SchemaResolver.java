@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import java.io.IOException;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Loads the schema targeted by a <code>$ref</code> property.<br/>
+ * <br/>
+ * Resolvers are configured on the <code>SchemaContext</code> (or the
+ * <code>JacksonSchemaProvider</code>) used to compile a schema. Each
+ * reference is resolved and compiled only once per context, the compiled
+ * target being shared by every schema referencing it.
+ *
+ * @see eu.vahlas.json.schema.impl.resolvers.URLSchemaResolver
+ * @see eu.vahlas.json.schema.impl.resolvers.ClasspathSchemaResolver
+ * @see eu.vahlas.json.schema.impl.resolvers.FileSchemaResolver
+ * @see eu.vahlas.json.schema.impl.resolvers.MapSchemaResolver
+ * @see eu.vahlas.json.schema.impl.resolvers.ChainSchemaResolver
+ */
+public interface SchemaResolver {
+
+	/**
+	 * Loads the schema referenced by <code>ref</code>.
+	 *
+	 * @param ref the value of the <code>$ref</code> property
+	 * @param mapper the mapper used to parse the schema
+	 * @return the schema node, or <code>null</code> if this resolver does not know <code>ref</code>
+	 * @throws IOException if the schema exists but cannot be read
+	 */
+	JsonNode resolve(String ref, ObjectMapper mapper) throws IOException;
+}
@@ -0,0 +1,396 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import eu.vahlas.json.schema.JSONSchemaException;
+
+/**
+ * A compiled schema saved in a compact binary form, to be loaded at startup
+ * instead of resolving, parsing and compiling the schema again.<br/>
+ * <br/>
+ * A snapshot holds the <code>SchemaProgram</code> of the schema: its code and
+ * its string and pattern pools are read as is, the other constants (numeric
+ * ranges, and the keywords without an opcode such as enum or format) are
+ * rebuilt from the few schema nodes they were compiled from. The documents of
+ * the schema and of its <code>$ref</code> targets are kept as text: they are
+ * only parsed and compiled into a <code>JacksonSchema</code> the first time
+ * errors have to be reported.<br/>
+ * <br/>
+ * Layout (big-endian, strings are a length followed by UTF-8 bytes):
+ * <pre>
+ * int magic, int version
+ * int n, n x int                         code
+ * int n, n x string                      strings
+ * int n, n x string                      patterns
+ * int n, n x (string keyword, string schema)   keyword sources
+ * int n, n x int source                  numeric ranges
+ * int n, n x int source                  validators
+ * int n, n x (string uri, string schema) documents, the root schema first
+ * </pre>
+ * Snapshots are written at build time, see <code>SnapshotTool</code>.
+ */
+public final class SchemaSnapshot {
+
+	static final int MAGIC = 0x4A535350;
+	static final int VERSION = 1;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final String ROOT = "";
+
+	private final ByteBuffer documents;
+	private final SchemaContext context;
+	private volatile JacksonSchema schema;
+
+	private SchemaSnapshot(ByteBuffer documents, SchemaContext context) {
+		this.documents = documents;
+		this.context = new SchemaContext(context.getMapper(), new Documents(), context.getKeywordRegistry(),
+				context.getFormatRegistry(), context.getParallelism(), context.getListener());
+	}
+
+	// ------------------------------------------------------------------ writing
+
+	/**
+	 * Compiles <code>schemaNode</code> with the resolver and the registries of
+	 * <code>context</code> and writes its snapshot to <code>out</code>.
+	 *
+	 * @throws JSONSchemaException if a keyword of the schema cannot be rebuilt from its schema node
+	 */
+	public static void write(JsonNode schemaNode, SchemaContext context, OutputStream out) throws IOException {
+		Recorder recorder = new Recorder(context);
+		// without parallelism, items and properties compile to opcodes
+		SchemaContext recording = new SchemaContext(context.getMapper(), recorder, recorder,
+				context.getFormatRegistry(), null);
+		SchemaProgram.Builder program = new SchemaProgram.Builder(new JacksonSchema(recording, schemaNode));
+
+		List<Source> sources = new ArrayList<Source>();
+		Map<Source, Integer> indexes = new IdentityHashMap<Source, Integer>();
+		int[] numbers = new int[program.numbers.size()];
+		for ( int i = 0; i < numbers.length; i++ ) {
+			numbers[i] = recorder.source(program.numberOwners.get(i), sources, indexes);
+		}
+		int[] validators = new int[program.validators.size()];
+		for ( int i = 0; i < validators.length; i++ ) {
+			validators[i] = recorder.source(program.validators.get(i), sources, indexes);
+		}
+
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		int[] code = program.code();
+		data.writeInt(code.length);
+		for ( int op : code ) {
+			data.writeInt(op);
+		}
+		data.writeInt(program.strings.size());
+		for ( String s : program.strings ) {
+			writeString(data, s);
+		}
+		data.writeInt(program.patterns.size());
+		for ( RegexMatcher m : program.patterns ) {
+			writeString(data, m.getPattern());
+		}
+		data.writeInt(sources.size());
+		for ( Source source : sources ) {
+			writeString(data, source.keyword);
+			writeString(data, source.schemaNode.toString());
+		}
+		writeInts(data, numbers);
+		writeInts(data, validators);
+		data.writeInt(recorder.documents.size() + 1);
+		writeString(data, ROOT);
+		writeString(data, schemaNode.toString());
+		for ( Map.Entry<String, JsonNode> doc : recorder.documents.entrySet() ) {
+			writeString(data, doc.getKey());
+			writeString(data, doc.getValue().toString());
+		}
+		data.flush();
+	}
+
+	private static void writeInts(DataOutputStream data, int[] ints) throws IOException {
+		data.writeInt(ints.length);
+		for ( int i : ints ) {
+			data.writeInt(i);
+		}
+	}
+
+	private static void writeString(DataOutputStream data, String s) throws IOException {
+		byte[] bytes = s.getBytes(UTF8);
+		data.writeInt(bytes.length);
+		data.write(bytes);
+	}
+
+	// ------------------------------------------------------------------ reading
+
+	/**
+	 * Maps <code>file</code> in memory and reads the program it holds, with the default registries.
+	 */
+	public static SchemaProgram map(File file) throws IOException {
+		return map(file, new SchemaContext(null));
+	}
+
+	/**
+	 * Maps <code>file</code> in memory and reads the program it holds.
+	 *
+	 * @param context the mapper, and the keyword and format registries the snapshot was written with;
+	 *        its resolver is not used, the <code>$ref</code> targets are in the snapshot
+	 */
+	public static SchemaProgram map(File file, SchemaContext context) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), context);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads the program held by <code>buffer</code>, from its position.
+	 *
+	 * @param context the mapper, and the keyword and format registries the snapshot was written with
+	 * @throws JSONSchemaException if the buffer does not hold a snapshot of this version
+	 */
+	public static SchemaProgram read(ByteBuffer buffer, SchemaContext context) {
+		ByteBuffer in = buffer.slice();
+		if ( in.remaining() < 8 || in.getInt() != MAGIC )
+			throw new JSONSchemaException("Not a schema snapshot");
+		int version = in.getInt();
+		if ( version != VERSION )
+			throw new JSONSchemaException("Unsupported schema snapshot version " + version);
+
+		int[] code = new int[in.getInt()];
+		in.asIntBuffer().get(code);
+		in.position(in.position() + 4 * code.length);
+
+		String[] strings = new String[in.getInt()];
+		for ( int i = 0; i < strings.length; i++ ) {
+			strings[i] = readString(in);
+		}
+		RegexMatcher[] patterns = new RegexMatcher[in.getInt()];
+		for ( int i = 0; i < patterns.length; i++ ) {
+			patterns[i] = RegexCache.get(readString(in));
+		}
+		String[][] sources = new String[in.getInt()][];
+		for ( int i = 0; i < sources.length; i++ ) {
+			sources[i] = new String[] { readString(in), readString(in) };
+		}
+		int[] numberSources = readInts(in);
+		int[] validatorSources = readInts(in);
+
+		SchemaSnapshot snapshot = new SchemaSnapshot(in.slice(), context);
+		JSONValidator[] built = new JSONValidator[sources.length];
+		NumericRange[] numbers = new NumericRange[numberSources.length];
+		for ( int i = 0; i < numbers.length; i++ ) {
+			numbers[i] = SchemaProgram.Builder.range(snapshot.build(sources, numberSources[i], built));
+			if ( numbers[i] == null )
+				throw new JSONSchemaException("Corrupt schema snapshot: " + sources[numberSources[i]][0] + " is not numeric");
+		}
+		JSONValidator[] validators = new JSONValidator[validatorSources.length];
+		for ( int i = 0; i < validators.length; i++ ) {
+			validators[i] = snapshot.build(sources, validatorSources[i], built);
+		}
+		return new SchemaProgram(code, strings, patterns, numbers, validators, null, snapshot);
+	}
+
+	private static int[] readInts(ByteBuffer in) {
+		int[] ints = new int[in.getInt()];
+		for ( int i = 0; i < ints.length; i++ ) {
+			ints[i] = in.getInt();
+		}
+		return ints;
+	}
+
+	private static String readString(ByteBuffer in) {
+		int length = in.getInt();
+		ByteBuffer bytes = in.slice();
+		bytes.limit(length);
+		in.position(in.position() + length);
+		return UTF8.decode(bytes).toString();
+	}
+
+	/**
+	 * Calls the factory of the keyword of <code>sources[index]</code> again, once per source.
+	 */
+	private JSONValidator build(String[][] sources, int index, JSONValidator[] built) {
+		if ( built[index] == null ) {
+			String keyword = sources[index][0];
+			KeywordFactory factory = context.getKeywordRegistry().get(keyword);
+			if ( factory == null )
+				throw new JSONSchemaException("Unknown keyword " + keyword + " in schema snapshot");
+			JsonNode schemaNode = parse(sources[index][1]);
+			JSONValidator v = factory.create(schemaNode, schemaNode.get(keyword), context);
+			if ( v == null )
+				throw new JSONSchemaException("Corrupt schema snapshot: " + keyword + " has no validator");
+			built[index] = v;
+		}
+		return built[index];
+	}
+
+	private JsonNode parse(String json) {
+		try {
+			return context.getMapper().readTree(json);
+		} catch (IOException e) {
+			throw new JSONSchemaException("Corrupt schema snapshot", e);
+		}
+	}
+
+	/**
+	 * @return the schema of the snapshot, compiled on first call
+	 */
+	JacksonSchema getSchema() {
+		JacksonSchema s = schema;
+		if ( s == null ) {
+			synchronized ( this ) {
+				s = schema;
+				if ( s == null ) {
+					s = new JacksonSchema(context, parse(document(ROOT)));
+					schema = s;
+				}
+			}
+		}
+		return s;
+	}
+
+	/**
+	 * @return the text of the document <code>uri</code>, or <code>null</code>
+	 */
+	private String document(String uri) {
+		ByteBuffer in = documents.duplicate();
+		for ( int n = in.getInt(); n > 0; n-- ) {
+			String u = readString(in);
+			int length = in.getInt();
+			if ( u.equals(uri) ) {
+				in.position(in.position() - 4);
+				return readString(in);
+			}
+			in.position(in.position() + length);
+		}
+		return null;
+	}
+
+	/**
+	 * Resolves the <code>$ref</code> targets from the documents of the snapshot.
+	 */
+	private final class Documents implements SchemaResolver {
+		@Override
+		public JsonNode resolve(String ref, ObjectMapper mapper) throws IOException {
+			String text = ROOT.equals(ref) ? null : document(ref);
+			return text == null ? null : mapper.readTree(text);
+		}
+	}
+
+	// ----------------------------------------------------------------- recorder
+
+	/**
+	 * Registry and resolver wrapping those of the context, remembering the
+	 * schema node each validator was built from and the documents resolved.
+	 */
+	private static final class Recorder extends KeywordRegistry implements SchemaResolver {
+
+		private final KeywordRegistry registry;
+		private final SchemaResolver resolver;
+		private final Map<JSONValidator, Source> sources = new IdentityHashMap<JSONValidator, Source>();
+		final Map<String, JsonNode> documents = new LinkedHashMap<String, JsonNode>();
+		private final Map<String, KeywordFactory> factories = new HashMap<String, KeywordFactory>();
+
+		Recorder(SchemaContext context) {
+			this.registry = context.getKeywordRegistry();
+			this.resolver = context.getResolver();
+		}
+
+		@Override
+		public KeywordFactory get(final String keyword) {
+			final KeywordFactory factory = registry.get(keyword);
+			if ( factory == null )
+				return null;
+			KeywordFactory recording = factories.get(keyword);
+			if ( recording == null ) {
+				recording = new KeywordFactory() {
+					@Override
+					public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+						JSONValidator v = factory.create(schemaNode, keywordNode, context);
+						if ( v != null )
+							sources.put(v, new Source(keyword, schemaNode));
+						return v;
+					}
+				};
+				factories.put(keyword, recording);
+			}
+			return recording;
+		}
+
+		@Override
+		public boolean contains(String keyword) {
+			return registry.contains(keyword);
+		}
+
+		@Override
+		public JsonNode resolve(String ref, ObjectMapper mapper) throws IOException {
+			JsonNode target = resolver.resolve(ref, mapper);
+			if ( target != null )
+				documents.put(ref, target);
+			return target;
+		}
+
+		/**
+		 * @return the index of the source of <code>v</code> in <code>list</code>, added if needed
+		 */
+		int source(JSONValidator v, List<Source> list, Map<Source, Integer> indexes) {
+			Source source = sources.get(v);
+			if ( source == null )
+				throw new JSONSchemaException(v.getClass().getName() + " cannot be written to a schema snapshot");
+			Integer index = indexes.get(source);
+			if ( index == null ) {
+				index = list.size();
+				indexes.put(source, index);
+				list.add(source);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * A keyword and the schema declaring it.
+	 */
+	private static final class Source {
+		final String keyword;
+		final JsonNode schemaNode;
+
+		Source(String keyword, JsonNode schemaNode) {
+			this.keyword = keyword;
+			this.schemaNode = schemaNode;
+		}
+	}
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Writes schema snapshots at build time:
+ * <pre>
+ * java -cp ... eu.vahlas.json.schema.impl.SnapshotTool schema.json schema.snapshot [schema2.json schema2.snapshot ...]
+ * </pre>
+ * Schemas are files or URLs; their <code>$ref</code> targets are resolved as URLs
+ * and saved in the snapshot.
+ *
+ * @see SchemaSnapshot
+ */
+public final class SnapshotTool {
+
+	private SnapshotTool() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if ( args.length == 0 || args.length % 2 != 0 ) {
+			System.err.println("Usage: SnapshotTool <schema file or URL> <snapshot file> [<schema> <snapshot> ...]");
+			System.exit(1);
+		}
+
+		ObjectMapper mapper = new ObjectMapper();
+		SchemaContext context = new SchemaContext(mapper);
+		for ( int i = 0; i < args.length; i += 2 ) {
+			File snapshot = new File(args[i + 1]);
+			write(mapper.readTree(url(args[i]).openStream()), context, snapshot);
+			System.out.println(args[i] + " -> " + snapshot + " (" + snapshot.length() + " bytes)");
+		}
+	}
+
+	/**
+	 * Writes the snapshot of <code>schemaNode</code> to <code>file</code>.
+	 */
+	public static void write(JsonNode schemaNode, SchemaContext context, File file) throws IOException {
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+		try {
+			SchemaSnapshot.write(schemaNode, context, out);
+		} finally {
+			out.close();
+		}
+	}
+
+	private static URL url(String location) throws IOException {
+		return location.indexOf(":/") > 1 ? new URL(location) : new File(location).toURI().toURL();
+	}
+}
@@ -0,0 +1,428 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.JSONSchemaException;
+import eu.vahlas.json.schema.TYPE;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.validators.AdditionalPropertiesValidator;
+import eu.vahlas.json.schema.impl.validators.DisallowValidator;
+import eu.vahlas.json.schema.impl.validators.ItemsValidator;
+import eu.vahlas.json.schema.impl.validators.MaxItemsValidator;
+import eu.vahlas.json.schema.impl.validators.MinItemsValidator;
+import eu.vahlas.json.schema.impl.validators.NoOpValidator;
+import eu.vahlas.json.schema.impl.validators.ObjectValidator;
+import eu.vahlas.json.schema.impl.validators.PropertiesValidator;
+import eu.vahlas.json.schema.impl.validators.RefValidator;
+import eu.vahlas.json.schema.impl.validators.RequiresValidator;
+import eu.vahlas.json.schema.impl.validators.TypeValidator;
+
+/**
+ * Validates an instance straight from the tokens of a <code>JsonParser</code>,
+ * without building the <code>JsonNode</code> tree of the whole document.<br/>
+ * <br/>
+ * Objects and arrays are walked token by token: "type", "disallow",
+ * "properties", "additionalProperties", "items", "minItems", "maxItems" and
+ * "requires" are checked as the tokens go by, and only the state of the
+ * enclosing containers is kept (the names of the fields seen so far and the
+ * number of items), so memory grows with the nesting depth rather than with
+ * the size of the document.<br/>
+ * <br/>
+ * Scalars are read as small nodes and checked by the regular validators. A
+ * container whose schema needs to see it as a whole ("enum", "uniqueItems",
+ * union types, custom keywords...) is read into a tree and validated as such;
+ * only that sub-document is held in memory.<br/>
+ * <br/>
+ * The same errors as the tree validation are reported, but not necessarily in
+ * the same order: the size and missing property checks of a container are only
+ * made once its end is reached. Instances are immutable and thread-safe.
+ */
+public class StreamingValidator {
+
+	private final JacksonSchema schema;
+	private final ObjectMapper mapper;
+	private final JsonNode objectStub;
+	private final JsonNode arrayStub;
+	private final Map<JacksonSchema, Plan> plans = new ConcurrentHashMap<JacksonSchema, Plan>();
+
+	public StreamingValidator(JacksonSchema schema, ObjectMapper mapper) {
+		this.schema = schema;
+		this.mapper = mapper;
+		this.objectStub = mapper.createObjectNode();
+		this.arrayStub = mapper.createArrayNode();
+	}
+
+	/**
+	 * Validates the next value of <code>jp</code>, leaving the parser on its last token.
+	 */
+	public void validate(JsonParser jp, ErrorCollector errors) throws IOException {
+		JsonToken t = jp.getCurrentToken();
+		if ( t == null )
+			t = jp.nextToken();
+		if ( t == null )
+			throw new JSONSchemaException("No JSON instance to validate");
+
+		List<Applied> applied = new ArrayList<Applied>(2);
+		apply(plan(schema), null, applied, JSONPath.ROOT, t, errors);
+		value(jp, applied, JSONPath.ROOT, errors);
+	}
+
+	// ------------------------------------------------------------------ walking
+
+	private void value(JsonParser jp, List<Applied> applied, JSONPath at, ErrorCollector errors) throws IOException {
+		JsonToken t = jp.getCurrentToken();
+		boolean object = t == JsonToken.START_OBJECT;
+		boolean array = t == JsonToken.START_ARRAY;
+
+		boolean buffer = !object && !array;
+		for ( int i = 0; !buffer && i < applied.size(); i++ ) {
+			Plan p = applied.get(i).plan;
+			buffer = object ? p.bufferObject : p.bufferArray;
+		}
+
+		if ( buffer ) {
+			JsonNode node = mapper.readTree(jp);
+			for ( Applied a : applied ) {
+				for ( JSONValidator v : a.plan.validators ) {
+					v.validate(node, null, at, errors);
+				}
+			}
+			for ( Applied a : applied ) {
+				a.selfChecks(node, at, errors);
+			}
+			return;
+		}
+
+		JsonNode stub = object ? objectStub : arrayStub;
+		for ( Applied a : applied ) {
+			for ( JSONValidator v : a.plan.typeChecks ) {
+				v.validate(stub, null, at, errors);
+			}
+		}
+
+		Frame frame = new Frame();
+		if ( object )
+			object(jp, applied, frame, at, errors);
+		else
+			array(jp, applied, frame, at, errors);
+
+		for ( Applied a : applied ) {
+			a.selfChecks(frame, at, errors);
+		}
+		frame.check(errors);
+	}
+
+	private void object(JsonParser jp, List<Applied> applied, Frame frame, JSONPath at, ErrorCollector errors) throws IOException {
+		List<Applied> children = new ArrayList<Applied>(2);
+		while ( jp.nextToken() == JsonToken.FIELD_NAME ) {
+			String name = jp.getCurrentName();
+			JsonToken t = jp.nextToken();
+			frame.field(name, t != JsonToken.VALUE_NULL);
+
+			JSONPath path = null;
+			children.clear();
+			for ( Applied a : applied ) {
+				for ( PropertiesValidator pv : a.plan.properties ) {
+					JacksonSchema s = pv.getSchema(name);
+					if ( s != null ) {
+						path = path == null ? at.property(name) : path;
+						apply(plan(s), frame, children, path, t, errors);
+					}
+				}
+				for ( AdditionalPropertiesValidator apv : a.plan.additionalProperties ) {
+					if ( apv.isDefined(name) )
+						continue;
+					path = path == null ? at.property(name) : path;
+					if ( !apv.isAllowed() )
+						errors.add(new ValidationMessage(AdditionalPropertiesValidator.PROPERTY, path, ErrorCode.ADDITIONAL_PROPERTIES));
+					else if ( apv.getSchema() != null )
+						apply(plan(apv.getSchema()), a.parent, children, path, t, errors);
+				}
+				for ( ObjectValidator ov : a.plan.objects ) {
+					JacksonSchema s = ov.getSchema(name);
+					path = path == null ? at.property(name) : path;
+					if ( s != null )
+						apply(plan(s), frame, children, path, t, errors);
+					else if ( !ov.isAllowed() )
+						errors.add(new ValidationMessage(AdditionalPropertiesValidator.PROPERTY, path, ErrorCode.ADDITIONAL_PROPERTIES));
+					else if ( ov.getAdditionalSchema() != null )
+						apply(plan(ov.getAdditionalSchema()), a.parent, children, path, t, errors);
+				}
+			}
+
+			if ( children.isEmpty() )
+				jp.skipChildren();
+			else
+				value(jp, children, path, errors);
+		}
+
+		for ( Applied a : applied ) {
+			for ( PropertiesValidator pv : a.plan.properties ) {
+				for ( String name : pv.getPropertyNames() ) {
+					if ( !frame.has(name) && !pv.getSchema(name).isOptional() )
+						errors.add(new ValidationMessage(PropertiesValidator.PROPERTY, at.property(name), ErrorCode.PROPERTY_MISSING));
+				}
+			}
+			for ( ObjectValidator ov : a.plan.objects ) {
+				for ( String name : ov.getPropertyNames() ) {
+					if ( !frame.has(name) && !ov.getSchema(name).isOptional() )
+						errors.add(new ValidationMessage(PropertiesValidator.PROPERTY, at.property(name), ErrorCode.PROPERTY_MISSING));
+				}
+			}
+		}
+	}
+
+	private void array(JsonParser jp, List<Applied> applied, Frame frame, JSONPath at, ErrorCollector errors) throws IOException {
+		List<Applied> children = new ArrayList<Applied>(2);
+		int i = 0;
+		JsonToken t;
+		while ( (t = jp.nextToken()) != JsonToken.END_ARRAY ) {
+			JSONPath path = null;
+			children.clear();
+			for ( Applied a : applied ) {
+				for ( ItemsValidator iv : a.plan.items ) {
+					path = path == null ? at.index(i) : path;
+					if ( iv.getSchema() != null ) {
+						apply(plan(iv.getSchema()), frame, children, path, t, errors);
+					}
+					List<JacksonSchema> tuple = iv.getTupleSchema();
+					if ( tuple != null ) {
+						if ( i >= tuple.size() )
+							errors.add(new ValidationMessage(ItemsValidator.PROPERTY, path, ErrorCode.ITEMS_TUPLE_INDEX));
+						else
+							apply(plan(tuple.get(i)), frame, children, path, t, errors);
+					}
+				}
+			}
+
+			if ( children.isEmpty() )
+				jp.skipChildren();
+			else
+				value(jp, children, path, errors);
+			i++;
+		}
+
+		for ( Applied a : applied ) {
+			for ( MaxItemsValidator v : a.plan.maxItems ) {
+				if ( i > v.getMax() )
+					errors.add(new ValidationMessage(MaxItemsValidator.PROPERTY, at, ErrorCode.MAX_ITEMS, v.getMax()));
+			}
+			for ( MinItemsValidator v : a.plan.minItems ) {
+				if ( i < v.getMin() )
+					errors.add(new ValidationMessage(MinItemsValidator.PROPERTY, at, ErrorCode.MIN_ITEMS, v.getMin()));
+			}
+		}
+	}
+
+	/**
+	 * Adds <code>plan</code> and the schemas it pulls in ($ref targets, "requires"
+	 * schemas) to the schemas the value at <code>at</code> must match. The
+	 * "requires" properties are checked on the enclosing object once it ends.
+	 */
+	private void apply(Plan plan, Frame parent, List<Applied> out, JSONPath at, JsonToken t, ErrorCollector errors) {
+		Applied a = new Applied(plan, parent);
+		out.add(a);
+
+		for ( RefValidator ref : plan.refs ) {
+			JacksonSchema target = ref.getTarget();
+			if ( target == null )
+				throw new JSONSchemaException("$ref " + ref.getRef() + " has not been resolved");
+			apply(plan(target), parent, out, at, t, errors);
+		}
+
+		for ( RequiresValidator r : plan.requires ) {
+			if ( parent != null ) {
+				if ( r.getSchema() != null )
+					apply(plan(r.getSchema()), null, out, at, t, errors);
+				else
+					parent.require(r.getRequiredProperties(), at);
+			} else if ( r.isPropertyList() ) {
+				// without a parent, the properties are looked up in the node itself
+				a.requireOnSelf(r.getRequiredProperties());
+			}
+		}
+	}
+
+	private Plan plan(JacksonSchema s) {
+		Plan p = plans.get(s);
+		if ( p == null ) {
+			p = new Plan(s);
+			plans.put(s, p);
+		}
+		return p;
+	}
+
+	// -------------------------------------------------------------- state
+
+	/**
+	 * The validators of one schema, sorted by the way they are run on a stream.
+	 */
+	private static final class Plan {
+		private static final int CONTAINERS = TYPEFactory.bit(TYPE.OBJECT) | TYPEFactory.bit(TYPE.ARRAY);
+
+		/** every validator except $ref and requires, run on scalars and buffered containers */
+		final List<JSONValidator> validators = new ArrayList<JSONValidator>();
+		/** validators which only look at the type of a container */
+		final List<JSONValidator> typeChecks = new ArrayList<JSONValidator>();
+		final List<PropertiesValidator> properties = new ArrayList<PropertiesValidator>();
+		final List<AdditionalPropertiesValidator> additionalProperties = new ArrayList<AdditionalPropertiesValidator>();
+		final List<ObjectValidator> objects = new ArrayList<ObjectValidator>();
+		final List<ItemsValidator> items = new ArrayList<ItemsValidator>();
+		final List<MaxItemsValidator> maxItems = new ArrayList<MaxItemsValidator>();
+		final List<MinItemsValidator> minItems = new ArrayList<MinItemsValidator>();
+		final List<RefValidator> refs = new ArrayList<RefValidator>();
+		final List<RequiresValidator> requires = new ArrayList<RequiresValidator>();
+		boolean bufferObject;
+		boolean bufferArray;
+
+		Plan(JacksonSchema s) {
+			for ( JSONValidator v : s.validators ) {
+				if ( v instanceof RefValidator ) {
+					refs.add((RefValidator) v);
+					continue;
+				}
+				if ( v instanceof RequiresValidator ) {
+					requires.add((RequiresValidator) v);
+					continue;
+				}
+
+				validators.add(v);
+				if ( (v instanceof TypeValidator && !((TypeValidator) v).isUnion())
+						|| v instanceof DisallowValidator
+						|| v instanceof NoOpValidator ) {
+					typeChecks.add(v);
+				} else if ( v instanceof PropertiesValidator ) {
+					properties.add((PropertiesValidator) v);
+					bufferArray = true;
+				} else if ( v instanceof AdditionalPropertiesValidator ) {
+					additionalProperties.add((AdditionalPropertiesValidator) v);
+				} else if ( v instanceof ObjectValidator ) {
+					objects.add((ObjectValidator) v);
+					bufferArray = true;
+				} else if ( v instanceof ItemsValidator ) {
+					items.add((ItemsValidator) v);
+					bufferObject = true;
+				} else if ( v instanceof MaxItemsValidator ) {
+					maxItems.add((MaxItemsValidator) v);
+				} else if ( v instanceof MinItemsValidator ) {
+					minItems.add((MinItemsValidator) v);
+				} else if ( v instanceof TypedValidator
+						&& (((TypedValidator) v).getTypes() & CONTAINERS) == 0 ) {
+					// only checks scalars: nothing to do on a container
+				} else {
+					bufferObject = true;
+					bufferArray = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * A schema applied to the current value, with the object its "requires" refer to.
+	 */
+	private static final class Applied {
+		final Plan plan;
+		final Frame parent;
+		List<String> selfRequired;
+
+		Applied(Plan plan, Frame parent) {
+			this.plan = plan;
+			this.parent = parent;
+		}
+
+		void requireOnSelf(List<String> names) {
+			if ( selfRequired == null )
+				selfRequired = new ArrayList<String>();
+			selfRequired.addAll(names);
+		}
+
+		void selfChecks(Frame self, JSONPath at, ErrorCollector errors) {
+			if ( selfRequired == null )
+				return;
+			for ( String name : selfRequired ) {
+				if ( !self.isSet(name) )
+					errors.add(new ValidationMessage(RequiresValidator.PROPERTY, at, ErrorCode.REQUIRES, name));
+			}
+		}
+
+		void selfChecks(JsonNode self, JSONPath at, ErrorCollector errors) {
+			if ( selfRequired == null )
+				return;
+			for ( String name : selfRequired ) {
+				JsonNode n = self.get(name);
+				if ( n == null || n.isNull() )
+					errors.add(new ValidationMessage(RequiresValidator.PROPERTY, at, ErrorCode.REQUIRES, name));
+			}
+		}
+	}
+
+	/**
+	 * What is remembered of a container being streamed: the names of its fields
+	 * (and whether they are null) and the "requires" checks of its children.
+	 */
+	private static final class Frame {
+		private Map<String, Boolean> fields;
+		private List<Object> checks;
+
+		void field(String name, boolean set) {
+			if ( fields == null )
+				fields = new HashMap<String, Boolean>();
+			fields.put(name, set ? Boolean.TRUE : Boolean.FALSE);
+		}
+
+		boolean has(String name) {
+			return fields != null && fields.containsKey(name);
+		}
+
+		boolean isSet(String name) {
+			return fields != null && Boolean.TRUE.equals(fields.get(name));
+		}
+
+		void require(List<String> names, JSONPath at) {
+			if ( checks == null )
+				checks = new ArrayList<Object>();
+			checks.add(names);
+			checks.add(at);
+		}
+
+		@SuppressWarnings("unchecked")
+		void check(ErrorCollector errors) {
+			if ( checks == null )
+				return;
+			for ( int i = 0; i < checks.size(); i += 2 ) {
+				for ( String name : (List<String>) checks.get(i) ) {
+					if ( !isSet(name) )
+						errors.add(new ValidationMessage(RequiresValidator.PROPERTY, (JSONPath) checks.get(i + 1), ErrorCode.REQUIRES, name));
+				}
+			}
+		}
+	}
+}
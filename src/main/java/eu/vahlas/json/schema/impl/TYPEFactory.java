@@ -25,6 +25,38 @@ import eu.vahlas.json.schema.JSONSchemaException;
 import eu.vahlas.json.schema.TYPE;
 
 public class TYPEFactory {
+
+	/**
+	 * The bit set of every instance type, see <code>bit(TYPE)</code>.
+	 */
+	public static final int ALL_TYPES = (1 << TYPE.values().length) - 1;
+
+	/**
+	 * @return the bit standing for <code>type</code> in the bit sets of instance types
+	 */
+	public static int bit(TYPE type) {
+		return 1 << type.ordinal();
+	}
+
+	/**
+	 * Translates the type name of a schema into the bit set of the instance
+	 * types it accepts, as returned by <code>getNodeType</code>: "number" also
+	 * accepts integers and "any" accepts everything. A union accepts nothing
+	 * by itself, its branches have to be looked at.
+	 */
+	public static int getAcceptedTypes(TYPE schemaType) {
+		switch ( schemaType ) {
+		case ANY:
+			return ALL_TYPES;
+		case NUMBER:
+			return bit(TYPE.NUMBER) | bit(TYPE.INTEGER);
+		case UNION:
+			return 0;
+		default:
+			return bit(schemaType);
+		}
+	}
+
 	/**
 	 * Translates the "type" property of the <code>org.codehaus.jackson.JsonNode<code>
 	 * passed into one of the types defined in the paragraph 5.1 of the JSON schema specification.
@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.ValidationListener;
+import eu.vahlas.json.schema.ValidationMessage;
+
+/**
+ * The collector handed to the validators while a <code>ValidationListener</code>
+ * is installed: it passes each error to the listener, then to the collector
+ * of the caller, and counts them. The nested schemas reuse it, so that an
+ * error is reported once.
+ */
+final class TracingCollector implements ErrorCollector {
+
+	private final ValidationListener listener;
+	private final ErrorCollector errors;
+	private int count;
+
+	private TracingCollector(ValidationListener listener, ErrorCollector errors) {
+		this.listener = listener;
+		this.errors = errors;
+	}
+
+	static TracingCollector of(ValidationListener listener, ErrorCollector errors) {
+		if ( errors instanceof TracingCollector && ((TracingCollector) errors).listener == listener )
+			return (TracingCollector) errors;
+		return new TracingCollector(listener, errors);
+	}
+
+	/**
+	 * @return the collector of a range validated by another thread, if <code>errors</code> traces
+	 */
+	static ErrorCollector fork(ErrorCollector errors, ErrorCollector range) {
+		if ( errors instanceof TracingCollector )
+			return new TracingCollector(((TracingCollector) errors).listener, range);
+		return range;
+	}
+
+	/**
+	 * Adds a message which has already been passed to the listener, by a fork.
+	 */
+	static void replay(ValidationMessage message, ErrorCollector errors) {
+		if ( errors instanceof TracingCollector ) {
+			TracingCollector tracer = (TracingCollector) errors;
+			tracer.count++;
+			tracer.errors.add(message);
+		} else {
+			errors.add(message);
+		}
+	}
+
+	@Override
+	public void add(ValidationMessage message) {
+		count++;
+		listener.error(message);
+		errors.add(message);
+	}
+
+	int getCount() {
+		return count;
+	}
+}
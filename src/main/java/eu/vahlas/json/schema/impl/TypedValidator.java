@@ -0,0 +1,46 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+/**
+ * A validator which only has something to check on some types of instances.
+ * <code>JacksonSchema</code> sorts these validators by instance type when it is
+ * compiled, so a node is only handed to the validators which can fail on it,
+ * cheapest first. Validators which do not implement this interface are run on
+ * every node, after the others.
+ */
+public interface TypedValidator extends JSONValidator {
+
+	/** Compares the node to a few constants */
+	int CHEAP = 0;
+	/** Scans the node: regular expressions, formats, sets of values */
+	int SCAN = 1;
+	/** Validates the children of the node, or other schemas */
+	int NESTED = 2;
+
+	/**
+	 * @return the bit set of the instance types the validator can fail on, see
+	 *         <code>TYPEFactory.bit(TYPE)</code>; the validator must accept the
+	 *         nodes of the other types
+	 */
+	int getTypes();
+
+	/**
+	 * @return <code>CHEAP</code>, <code>SCAN</code> or <code>NESTED</code>
+	 */
+	int getCost();
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl.resolvers;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import eu.vahlas.json.schema.impl.SchemaResolver;
+
+/**
+ * Asks each resolver in turn and returns the first schema found, e.g. an
+ * offline registry first and the network as a last resort.
+ */
+public class ChainSchemaResolver implements SchemaResolver, Serializable {
+
+	private static final long serialVersionUID = -6702958810713869567L;
+
+	private final SchemaResolver[] resolvers;
+
+	public ChainSchemaResolver(SchemaResolver... resolvers) {
+		this.resolvers = resolvers.clone();
+	}
+
+	@Override
+	public JsonNode resolve(String ref, ObjectMapper mapper) throws IOException {
+		for ( SchemaResolver resolver : resolvers ) {
+			JsonNode schema = resolver.resolve(ref, mapper);
+			if ( schema != null )
+				return schema;
+		}
+		return null;
+	}
+}
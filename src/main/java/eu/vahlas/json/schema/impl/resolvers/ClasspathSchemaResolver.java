@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl.resolvers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import eu.vahlas.json.schema.impl.SchemaResolver;
+
+/**
+ * Resolves references from classpath resources, e.g. to ship well-known
+ * schemas with the application and validate offline.<br/>
+ * <br/>
+ * References starting with <code>prefix</code> are mapped to resources
+ * below <code>resourceRoot</code>: with the prefix
+ * <code>http://json-schema.org/</code> and the root <code>/schemas/</code>,
+ * <code>http://json-schema.org/geo</code> is loaded from
+ * <code>/schemas/geo</code>, or <code>/schemas/geo.json</code> if the former
+ * does not exist.
+ */
+public class ClasspathSchemaResolver implements SchemaResolver, Serializable {
+
+	private static final long serialVersionUID = 8718960466120427826L;
+
+	public static final String CLASSPATH_PREFIX = "classpath:";
+
+	private final String prefix;
+	private final String resourceRoot;
+	private final transient ClassLoader classLoader;
+
+	/**
+	 * Resolves references of the form <code>classpath:/path/to/schema.json</code>.
+	 */
+	public ClasspathSchemaResolver() {
+		this(CLASSPATH_PREFIX, "");
+	}
+
+	public ClasspathSchemaResolver(String prefix, String resourceRoot) {
+		this(prefix, resourceRoot, null);
+	}
+
+	public ClasspathSchemaResolver(String prefix, String resourceRoot, ClassLoader classLoader) {
+		this.prefix = prefix;
+		this.resourceRoot = resourceRoot;
+		this.classLoader = classLoader;
+	}
+
+	@Override
+	public JsonNode resolve(String ref, ObjectMapper mapper) throws IOException {
+		if ( !ref.startsWith(prefix) )
+			return null;
+
+		String resource = resourceRoot + ref.substring(prefix.length());
+		InputStream in = open(resource);
+		if ( in == null )
+			in = open(resource + ".json");
+		if ( in == null )
+			return null;
+
+		try {
+			return mapper.readTree(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	private InputStream open(String resource) {
+		if ( classLoader != null ) {
+			return classLoader.getResourceAsStream(resource.startsWith("/") ? resource.substring(1) : resource);
+		}
+		return ClasspathSchemaResolver.class.getResourceAsStream(resource.startsWith("/") ? resource : "/" + resource);
+	}
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl.resolvers;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import eu.vahlas.json.schema.impl.SchemaResolver;
+
+/**
+ * Resolves references from a local directory.<br/>
+ * <br/>
+ * References starting with <code>prefix</code> are mapped to files below
+ * <code>baseDir</code>; the <code>.json</code> extension is tried when the
+ * plain file does not exist. A reference resolving to a file outside of
+ * <code>baseDir</code> (an absolute path, <code>..</code> or a symbolic link) is rejected.
+ */
+public class FileSchemaResolver implements SchemaResolver, Serializable {
+
+	private static final long serialVersionUID = -4500460424993014633L;
+
+	private final String prefix;
+	private final File baseDir;
+
+	public FileSchemaResolver(String prefix, File baseDir) {
+		this.prefix = prefix;
+		this.baseDir = baseDir;
+	}
+
+	@Override
+	public JsonNode resolve(String ref, ObjectMapper mapper) throws IOException {
+		if ( !ref.startsWith(prefix) )
+			return null;
+
+		String path = ref.substring(prefix.length());
+		File file = file(path);
+		if ( !file.isFile() )
+			file = file(path + ".json");
+		if ( !file.isFile() )
+			return null;
+
+		InputStream in = new FileInputStream(file);
+		try {
+			return mapper.readTree(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	private File file(String path) throws IOException {
+		File file = new File(baseDir, path).getCanonicalFile();
+		String base = baseDir.getCanonicalPath();
+		if ( new File(path).isAbsolute() || !file.getPath().startsWith(base + File.separator) )
+			throw new IOException(path + " is outside of " + base);
+		return file;
+	}
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl.resolvers;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import eu.vahlas.json.schema.impl.SchemaResolver;
+
+/**
+ * In-memory schema registry: references are looked up by exact URI among
+ * the schemas registered beforehand.
+ */
+public class MapSchemaResolver implements SchemaResolver, Serializable {
+
+	private static final long serialVersionUID = 5064839722357316337L;
+
+	private final Map<String, Object> schemas = new ConcurrentHashMap<String, Object>();
+
+	public MapSchemaResolver() {
+	}
+
+	public MapSchemaResolver(Map<String, JsonNode> schemas) {
+		this.schemas.putAll(schemas);
+	}
+
+	public MapSchemaResolver register(String uri, JsonNode schema) {
+		schemas.put(uri, schema);
+		return this;
+	}
+
+	/**
+	 * Registers a schema given as text; it is parsed on first resolution.
+	 */
+	public MapSchemaResolver register(String uri, String schema) {
+		schemas.put(uri, schema);
+		return this;
+	}
+
+	@Override
+	public JsonNode resolve(String ref, ObjectMapper mapper) throws IOException {
+		Object schema = schemas.get(ref);
+		if ( schema instanceof String ) {
+			return mapper.readTree((String) schema);
+		}
+		return (JsonNode) schema;
+	}
+}
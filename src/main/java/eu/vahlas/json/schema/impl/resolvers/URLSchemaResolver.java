@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl.resolvers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import eu.vahlas.json.schema.impl.SchemaResolver;
+
+/**
+ * Resolves references by opening them as URLs. This is the default
+ * resolver, matching the historical <code>$ref</code> behaviour.
+ */
+public class URLSchemaResolver implements SchemaResolver, Serializable {
+
+	private static final long serialVersionUID = -2289851005596245314L;
+
+	@Override
+	public JsonNode resolve(String ref, ObjectMapper mapper) throws IOException {
+		URL url;
+		try {
+			url = new URL(ref);
+		} catch (MalformedURLException mue) {
+			return null;
+		}
+
+		InputStream in = url.openStream();
+		try {
+			return mapper.readTree(in);
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -18,70 +18,109 @@ package eu.vahlas.json.schema.impl.validators;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
 import org.codehaus.jackson.JsonNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.TYPE;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
 import eu.vahlas.json.schema.impl.JacksonSchema;
-import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.SchemaContext;
+import eu.vahlas.json.schema.impl.TYPEFactory;
+import eu.vahlas.json.schema.impl.TypedValidator;
 
-public class AdditionalPropertiesValidator implements JSONValidator, Serializable {
+public class AdditionalPropertiesValidator extends AbstractJSONValidator implements TypedValidator, Serializable {
 
 	private static final long serialVersionUID = 7868457793256399879L;
 
 	public static final String PROPERTY = "additionalProperties";
-	private static final Logger LOG = LoggerFactory.getLogger(AdditionalPropertiesValidator.class);
 	
-	private boolean allowAdditionalProperties;
-	private JacksonSchema additionalPropertiesSchema;
-	private List<String> allowedProperties;
+	private final boolean allowAdditionalProperties;
+	private final JacksonSchema additionalPropertiesSchema;
+	private final List<String> allowedProperties;
 	
 	public AdditionalPropertiesValidator(JsonNode propertiesNode, JsonNode additionalPropertiesNode) {
-		allowAdditionalProperties = false;
-		if ( additionalPropertiesNode.isBoolean() ) {
-			allowAdditionalProperties = additionalPropertiesNode.getBooleanValue();
-		}
+		this(propertiesNode, additionalPropertiesNode, new SchemaContext(null));
+	}
+
+	public AdditionalPropertiesValidator(JsonNode propertiesNode, JsonNode additionalPropertiesNode, SchemaContext context) {
 		if ( additionalPropertiesNode.isObject() ) {
 			allowAdditionalProperties = true;
-			additionalPropertiesSchema = new JacksonSchema(additionalPropertiesNode);
-			
+			additionalPropertiesSchema = new JacksonSchema(context, additionalPropertiesNode);
+		} else {
+			allowAdditionalProperties = additionalPropertiesNode.isBoolean() && additionalPropertiesNode.getBooleanValue();
+			additionalPropertiesSchema = null;
 		}
 		
-		allowedProperties = new ArrayList<String>();
+		List<String> names = new ArrayList<String>();
 		for (Iterator<String> it = propertiesNode.getFieldNames(); it.hasNext(); ) {
-			allowedProperties.add(it.next());
+			names.add(it.next());
 		}
-	}
-	
-	@Override
-	public List<String> validate(JsonNode node, String at) {
-		LOG.debug("validate( " + node + ", " + at + ")");
-		return validate(node, null, at);
+		allowedProperties = Collections.unmodifiableList(names);
 	}
 
 	@Override
-	public List<String> validate(JsonNode node, JsonNode parent, String at) {
-		LOG.debug("validate( " + node + ", " + parent + ", " + at + ")");
-		List<String> errors = new ArrayList<String>();
+	public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
 		for ( Iterator<String> it = node.getFieldNames(); it.hasNext(); ) {
 			String pname = it.next();
 			if ( !allowedProperties.contains(pname) ) {
 				if ( !allowAdditionalProperties ) {
-					errors.add(at + "." + pname + ": is not defined in the schema and the schema does not allow additional properties");
+					errors.add(new ValidationMessage(PROPERTY, at.property(pname), ErrorCode.ADDITIONAL_PROPERTIES));
 				} else {
 					if (additionalPropertiesSchema != null ) {
-						errors.addAll(
-								additionalPropertiesSchema.validate(node.get(pname), parent, at + "." + pname)
-								);
+						additionalPropertiesSchema.validate(node.get(pname), parent, at.property(pname), errors);
 					}
 				}
 			}
 		}
-		return errors;
 	}
-	
 
+	@Override
+	public boolean isValid(JsonNode node, JsonNode parent) {
+		for ( Iterator<String> it = node.getFieldNames(); it.hasNext(); ) {
+			String pname = it.next();
+			if ( !allowedProperties.contains(pname) ) {
+				if ( !allowAdditionalProperties )
+					return false;
+				if ( additionalPropertiesSchema != null
+						&& !additionalPropertiesSchema.isValid(node.get(pname), parent) )
+					return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int getTypes() {
+		return TYPEFactory.bit(TYPE.OBJECT);
+	}
+
+	@Override
+	public int getCost() {
+		return NESTED;
+	}
+
+	/**
+	 * @return <code>true</code> if <code>name</code> is declared by the sibling "properties"
+	 */
+	public boolean isDefined(String name) {
+		return allowedProperties.contains(name);
+	}
+
+	public boolean isAllowed() {
+		return allowAdditionalProperties;
+	}
+
+	/**
+	 * @return the schema of the additional properties, or <code>null</code> if they are not constrained
+	 */
+	public JacksonSchema getSchema() {
+		return additionalPropertiesSchema;
+	}
 }
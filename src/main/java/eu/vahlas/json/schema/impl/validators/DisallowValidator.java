@@ -17,66 +17,83 @@
 package eu.vahlas.json.schema.impl.validators;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
 
 import org.codehaus.jackson.JsonNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.ErrorCollector;
 import eu.vahlas.json.schema.TYPE;
-import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
+import eu.vahlas.json.schema.impl.JSONPath;
 import eu.vahlas.json.schema.impl.TYPEFactory;
+import eu.vahlas.json.schema.impl.TypedValidator;
 
-public class DisallowValidator implements JSONValidator, Serializable {
+public class DisallowValidator extends AbstractJSONValidator implements TypedValidator, Serializable {
 
 	private static final long serialVersionUID = -7563984149808796291L;
-	private static final Logger LOG = LoggerFactory.getLogger(DisallowValidator.class);
 	
 	public static final String PROPERTY = "disallow";
 	
-	protected TYPE[] disallowedTypes;
+	protected final TYPE[] disallowedTypes;
+	/** the bit set of the disallowed instance types */
+	protected final int disallowed;
 	
 	public DisallowValidator(JsonNode disallowNode) {
-		if ( disallowNode.isObject() || disallowNode.isTextual() ) {
-			disallowedTypes = new TYPE[] {TYPEFactory.getType(disallowNode)};
-		}
-		
 		if ( disallowNode.isArray() ) {
 			int nb = disallowNode.size();
 			disallowedTypes = new TYPE[nb];
 			for ( int i=0; i<nb; i++ ) {
 				disallowedTypes[i] = TYPEFactory.getType(disallowNode.get(i));
 			}
+		} else if ( disallowNode.isObject() || disallowNode.isTextual() ) {
+			disallowedTypes = new TYPE[] {TYPEFactory.getType(disallowNode)};
+		} else {
+			disallowedTypes = null;
 		}
-	}
-	
-	@Override
-	public List<String> validate(JsonNode node, String at) {
-		LOG.debug("validate( " + node + ", " + at + ")");
-		return validate(node, null, at);
+		
+		int types = 0;
+		for ( int i = 0; disallowedTypes != null && i < disallowedTypes.length; i++ ) {
+			TYPE t = disallowedTypes[i];
+			// integer is a number ... 
+			types |= t == TYPE.NUMBER ? TYPEFactory.bit(t) | TYPEFactory.bit(TYPE.INTEGER) : TYPEFactory.bit(t);
+		}
+		disallowed = types;
 	}
 
 	@Override
-	public List<String> validate(JsonNode node, JsonNode parent, String at) {
-		LOG.debug("validate( " + node + ", " + parent + ", " + at + ")");
-		List<String> errors = new ArrayList<String>();
-		
+	public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
 		TYPE nodeType = TYPEFactory.getNodeType(node);
+		if ( (disallowed & TYPEFactory.bit(nodeType)) == 0 )
+			return;
+		
 		for ( TYPE t : disallowedTypes ) {
 			if ( t == nodeType ) {
-				errors.add(at + ": " + t + " is not a type allowed on this property");
+				errors.add(new ValidationMessage(PROPERTY, at, ErrorCode.DISALLOW, t));
 				break;
 			}
 			
 			// integer is a number ... 
 			if ( t == TYPE.NUMBER && nodeType == TYPE.INTEGER ) {
-				errors.add(at + ": " + t + " is not an allowed type for this property");
+				errors.add(new ValidationMessage(PROPERTY, at, ErrorCode.DISALLOW_NUMBER, t));
 				break;
 			}
 		}
-		
-		return errors;
+	}
+
+	@Override
+	public boolean isValid(JsonNode node, JsonNode parent) {
+		return (disallowed & TYPEFactory.bit(TYPEFactory.getNodeType(node))) == 0;
+	}
+
+	@Override
+	public int getTypes() {
+		return disallowed;
+	}
+
+	@Override
+	public int getCost() {
+		return CHEAP;
 	}
 
 }
@@ -16,49 +16,23 @@
 
 package eu.vahlas.json.schema.impl.validators;
 
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
-
 import org.codehaus.jackson.JsonNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import eu.vahlas.json.schema.impl.JSONValidator;
 
-public class DivisibleByValidator implements JSONValidator, Serializable {
+/**
+ * Implements "divisibleBy" alone. The <code>KeywordRegistry</code> checks it along
+ * with "minimum" and "maximum", see <code>NumericValidator</code>.
+ */
+public class DivisibleByValidator extends NumericValidator {
 
 	private static final long serialVersionUID = 8255703049783662141L;
-	private static final Logger LOG = LoggerFactory.getLogger(DivisibleByValidator.class);
 	
 	public static final String PROPERTY = "divisibleBy";
 
-	public long divisor = 0;
+	public final long divisor;
 	
 	public DivisibleByValidator(JsonNode divisibleByNode) {
-		if ( divisibleByNode.isIntegralNumber() )
-			divisor = divisibleByNode.getLongValue();
-	}
-	
-	@Override
-	public List<String> validate(JsonNode node, String at) {
-		LOG.debug("validate( " + node + ", " + at + ")");
-		return validate(node, null, at);
-	}
-
-	@Override
-	public List<String> validate(JsonNode node, JsonNode parent, String at) {
-		LOG.debug("validate( " + node + ", " + parent + ", " + at + ")");
-		List<String> errors = new ArrayList<String>();
-		
-		if ( node.isIntegralNumber() ) {
-			long nodeValue = node.getLongValue();
-			if ( divisor != 0 && nodeValue % divisor != 0 ) {
-				errors.add(at + ": must be divisible by " + divisor);
-			}
-		}
-		
-		return errors;
+		super(null, null, null, null, divisibleByNode);
+		divisor = divisibleByNode.isIntegralNumber() ? divisibleByNode.getLongValue() : 0;
 	}
 
 }
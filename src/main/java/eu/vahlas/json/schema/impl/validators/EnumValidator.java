@@ -17,68 +17,199 @@
 package eu.vahlas.json.schema.impl.validators;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.codehaus.jackson.JsonNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.codehaus.jackson.node.ArrayNode;
+import org.codehaus.jackson.node.JsonNodeFactory;
+import org.codehaus.jackson.node.ObjectNode;
 
-import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.TYPEFactory;
+import eu.vahlas.json.schema.impl.TypedValidator;
 
 /**
  * Implements "enum" validation on all types of objects as defined in
  * the paragraph 5.17 of the JSON Schema specification.<br/>
  * <br/>
- * This implementation relies on the <code>equals</code> method implemented
- * on the <code>JsonNode</code> object.
- * 
+ * The values are indexed in a hash set, so that large enumerations are
+ * checked in constant time. An enumeration of strings only is a set of
+ * <code>String</code> checked without any allocation. Otherwise each value
+ * is indexed by a canonical key in which numbers are compared by value
+ * (<code>1</code>, <code>1.0</code> and <code>1e0</code> are equal); values
+ * inside objects and arrays are compared with <code>JsonNode.equals</code>.
+ * <br/>
+ * The text of the error, listing every value, is only built when the first
+ * error is reported.
  */
-public class EnumValidator implements JSONValidator, Serializable {
+public class EnumValidator extends AbstractJSONValidator implements TypedValidator, Serializable {
 
 	private static final long serialVersionUID = -7163667264068815707L;
-	private static final Logger LOG = LoggerFactory.getLogger(EnumValidator.class);
 	
 	public static final String PROPERTY = "enum";
+
+	private static final BigDecimal LONG_MIN = BigDecimal.valueOf(Long.MIN_VALUE);
+	private static final BigDecimal LONG_MAX = BigDecimal.valueOf(Long.MAX_VALUE);
 	
-	protected List<JsonNode> nodes;
-	protected String error;
+	/** the values in the order of the schema */
+	protected final List<JsonNode> nodes;
+	/** the values when they are all strings, <code>null</code> otherwise */
+	private final Set<String> strings;
+	/** the canonical keys of the values when they are not all strings */
+	private final Set<Object> keys;
+	// built on the first error; racy but idempotent, like String.hashCode
+	private transient volatile String error;
 	
 	public EnumValidator(JsonNode enumNode) {
-		nodes = new ArrayList<JsonNode>();
-		error = "[none]";
+		List<JsonNode> values = new ArrayList<JsonNode>();
+		boolean allStrings = true;
 		
 		if ( enumNode != null && enumNode.isArray() ) {
-			error = "[";
-			int i = 0;
 			for ( JsonNode n : enumNode) {
-				nodes.add(n);
-				
-				String v = n.getValueAsText();
-				error = error + (i==0?"":", ") + v;
-				i++;
-				
+				values.add(copy(n));
+				allStrings &= n.isTextual();
 			}
-			error = error + "]";
+		}
+		nodes = Collections.unmodifiableList(values);
+
+		if ( allStrings ) {
+			Set<String> set = new HashSet<String>(values.size() * 4 / 3 + 1);
+			for ( JsonNode n : values ) {
+				set.add(n.getTextValue());
+			}
+			strings = set;
+			keys = null;
+		} else {
+			Set<Object> set = new HashSet<Object>(values.size() * 4 / 3 + 1);
+			for ( JsonNode n : values ) {
+				set.add(key(n));
+			}
+			strings = null;
+			keys = set;
 		}
 	}
-	
+
+	/**
+	 * Object and array values are copied so that changing the schema tree
+	 * afterwards cannot change the compiled validator.
+	 */
+	private static JsonNode copy(JsonNode n) {
+		if ( n.isArray() ) {
+			ArrayNode a = JsonNodeFactory.instance.arrayNode();
+			for ( JsonNode item : n ) {
+				a.add(copy(item));
+			}
+			return a;
+		}
+		if ( n.isObject() ) {
+			ObjectNode o = JsonNodeFactory.instance.objectNode();
+			for ( Iterator<String> it = n.getFieldNames(); it.hasNext(); ) {
+				String name = it.next();
+				o.put(name, copy(n.get(name)));
+			}
+			return o;
+		}
+		// value nodes are immutable
+		return n;
+	}
+
+	/**
+	 * @return the text of strings, the canonical number of numbers, the node itself otherwise;
+	 *         also the equality of the items checked by <code>UniqueItemsValidator</code>
+	 */
+	static Object key(JsonNode n) {
+		if ( n.isTextual() )
+			return n.getTextValue();
+		if ( n.isNumber() )
+			return numberKey(n);
+		if ( n.isBoolean() )
+			return Boolean.valueOf(n.getBooleanValue());
+		return n;
+	}
+
+	/**
+	 * Integral values fitting a long are a <code>Long</code>, other values
+	 * exactly represented by a double are a <code>Double</code>, the rest a
+	 * <code>BigDecimal</code> without trailing zeros.
+	 */
+	private static Object numberKey(JsonNode n) {
+		switch ( n.getNumberType() ) {
+		case INT:
+		case LONG:
+			return Long.valueOf(n.getLongValue());
+		case FLOAT:
+		case DOUBLE:
+			double d = n.getDoubleValue();
+			if ( d == Math.rint(d) && d >= -0x1p63 && d < 0x1p63 )
+				return Long.valueOf((long) d);
+			return Double.valueOf(d);
+		default:
+			BigDecimal b = n.getDecimalValue();
+			// stripTrailingZeros leaves the scale of zero untouched
+			boolean integral = b.signum() == 0 || b.stripTrailingZeros().scale() <= 0;
+			if ( integral && b.compareTo(LONG_MIN) >= 0 && b.compareTo(LONG_MAX) <= 0 )
+				return Long.valueOf(b.longValue());
+			double v = b.doubleValue();
+			if ( !Double.isInfinite(v) && new BigDecimal(v).compareTo(b) == 0 )
+				return Double.valueOf(v);
+			return b.stripTrailingZeros();
+		}
+	}
+
 	@Override
-	public List<String> validate(JsonNode node, String at) {
-		LOG.debug("validate( " + node + ", " + at + ")");
-		return validate(node, null, at);
+	public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
+		if ( !isValid(node, parent) ) {
+			errors.add(new ValidationMessage(PROPERTY, at, ErrorCode.ENUM, getError()));
+		}
 	}
-	
+
 	@Override
-	public List<String> validate(JsonNode node, JsonNode parent, String at) {
-		LOG.debug("validate( " + node + ", " + parent + ", " + at + ")");
-		List<String> errors = new ArrayList<String>();
-		
-		if ( !nodes.contains(node) ) {
-			errors.add(at + ": does not have a value in the enumeration " + error);
+	public boolean isValid(JsonNode node, JsonNode parent) {
+		if ( strings != null )
+			return node.isTextual() && strings.contains(node.getTextValue());
+		return keys.contains(key(node));
+	}
+
+	@Override
+	public int getTypes() {
+		return TYPEFactory.ALL_TYPES;
+	}
+
+	@Override
+	public int getCost() {
+		return SCAN;
+	}
+
+	/**
+	 * @return the values, as listed in the error messages
+	 */
+	protected String getError() {
+		String e = error;
+		if ( e == null ) {
+			if ( nodes.isEmpty() ) {
+				e = "[none]";
+			} else {
+				StringBuilder b = new StringBuilder("[");
+				for ( int i = 0; i < nodes.size(); i++ ) {
+					if ( i > 0 )
+						b.append(", ");
+					b.append(nodes.get(i).getValueAsText());
+				}
+				e = b.append(']').toString();
+			}
+			error = e;
 		}
-		
-		return errors;
+		return e;
 	}
 
 }
@@ -12,81 +12,97 @@
  */
 package eu.vahlas.json.schema.impl.validators;
 
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.ErrorCollector;
 import eu.vahlas.json.schema.FORMAT;
 import eu.vahlas.json.schema.TYPE;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
 import eu.vahlas.json.schema.impl.FORMATFactory;
-import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.impl.FormatChecker;
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.SchemaContext;
 import eu.vahlas.json.schema.impl.TYPEFactory;
+import eu.vahlas.json.schema.impl.TypedValidator;
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
 import org.codehaus.jackson.JsonNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-public class FormatValidator implements JSONValidator, Serializable {
+public class FormatValidator extends AbstractJSONValidator implements TypedValidator, Serializable {
 
     private static final long serialVersionUID = -637068450453946642L;
-    private static final Logger LOG = LoggerFactory.getLogger(FormatValidator.class);
     public static final String PROPERTY = "format";
-    private FORMAT schemaFormat;
-    private boolean isOptionalProperty = false;
-    private boolean isNullableProperty = false;
+    private final String schemaFormat;
+    private final FormatChecker checker;
+    private final boolean isOptionalProperty;
+    private final boolean isNullableProperty;
 
     public FormatValidator(JsonNode schemaNode) {
-        schemaFormat = FORMATFactory.getFormat(schemaNode);
+        this(schemaNode, new SchemaContext(null));
+    }
+
+    /**
+     * The checker of the format is looked up in the <code>FormatRegistry</code> of the context.
+     */
+    public FormatValidator(JsonNode schemaNode, SchemaContext context) {
+        schemaFormat = FORMATFactory.getFormatName(schemaNode);
+        checker = context.getFormatRegistry().get(schemaFormat);
 
+        boolean nullable = false;
         JsonNode typeNode = schemaNode.get("type");
         // TODO: (low priority) move nodeType to FORMATFactory
         // It could be useful for better error messages
         if (null != typeNode) {
             TYPE schemaType = TYPEFactory.getType(typeNode);
             if (schemaType.equals(TYPE.NULL)){
-                isNullableProperty = true;
+                nullable = true;
             } else {
                 if (schemaType.equals(TYPE.UNION)){
                     TYPE[] types = TYPEFactory.getUnionType(schemaNode);
                     if(TYPE.unionContains(types, TYPE.NULL)){
-                        isNullableProperty = true;
+                        nullable = true;
                     }
                 }
             }
         }
 
-        JsonNode optionalNode = schemaNode.get("optional");
-        if (null != optionalNode) {
-            if (optionalNode.isBoolean()) {
-                isOptionalProperty = optionalNode.getBooleanValue();
-            }
-        }
-    }
+        isNullableProperty = nullable;
 
-    @Override
-    public List<String> validate(JsonNode node, String at) {
-        LOG.debug("validate( " + node + ", " + at + ")");
-        return validate(node, null, at);
+        JsonNode optionalNode = schemaNode.get("optional");
+        isOptionalProperty = null != optionalNode && optionalNode.isBoolean() && optionalNode.getBooleanValue();
     }
 
     @Override
-    public List<String> validate(JsonNode node, JsonNode parent, String at) {
-        LOG.debug("validate( " + node + ", " + parent + ", " + at + ")");
-        List<String> errors = new ArrayList<String>();
-
+    public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
         if ((null == node && isOptionalProperty) || (node.isNull() && isNullableProperty)) {
-            return errors;
+            return;
         }
 
-        FORMAT nodeFormat = FORMATFactory.getNodeFormat(node);
+        if (checker != null) {
 
-        if (!schemaFormat.equals(FORMAT.UNKNOWN)) {
-
-            if (nodeFormat != schemaFormat) {
-                errors.add(at + ": incorrect format, " + schemaFormat + " expected");
+            if (!checker.check(node)) {
+                errors.add(new ValidationMessage(PROPERTY, at, ErrorCode.FORMAT, schemaFormat));
             }
         } else {
-            errors.add(at + ": " + schemaFormat + ": unknown or unimplemented format type");
+            errors.add(new ValidationMessage(PROPERTY, at, ErrorCode.FORMAT_UNKNOWN, FORMAT.UNKNOWN));
         }
+    }
 
-        return errors;
+    @Override
+    public boolean isValid(JsonNode node, JsonNode parent) {
+        if ((null == node && isOptionalProperty) || (node.isNull() && isNullableProperty)) {
+            return true;
+        }
+        return checker != null && checker.check(node);
+    }
+
+    @Override
+    public int getTypes() {
+        return TYPEFactory.ALL_TYPES;
     }
+
+    @Override
+    public int getCost() {
+        return SCAN;
+    }
+
 }
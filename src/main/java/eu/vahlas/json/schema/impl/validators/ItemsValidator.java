@@ -18,66 +18,160 @@ package eu.vahlas.json.schema.impl.validators;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.codehaus.jackson.JsonNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.TYPE;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
 import eu.vahlas.json.schema.impl.JacksonSchema;
-import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.Parallelism;
+import eu.vahlas.json.schema.impl.SchemaContext;
+import eu.vahlas.json.schema.impl.TYPEFactory;
+import eu.vahlas.json.schema.impl.TypedValidator;
 
-public class ItemsValidator implements JSONValidator, Serializable {
+public class ItemsValidator extends AbstractJSONValidator implements TypedValidator, Serializable {
 
 	private static final long serialVersionUID = -5023382376825229965L;
-	private static final Logger LOG = LoggerFactory.getLogger(ItemsValidator.class);
 
 	public static final String PROPERTY = "items";
 	
-	protected JacksonSchema schema;
-	protected List<JacksonSchema> tupleSchema;
+	protected final JacksonSchema schema;
+	protected final List<JacksonSchema> tupleSchema;
+	protected final Parallelism parallelism;
 	
 	public ItemsValidator(JsonNode itemSchema) {
-		if ( itemSchema.isObject() ) {
-			schema = new JacksonSchema(itemSchema);
-		}
+		this(itemSchema, new SchemaContext(null));
+	}
+
+	public ItemsValidator(JsonNode itemSchema, SchemaContext context) {
+		parallelism = context.getParallelism();
+		schema = itemSchema.isObject() ? new JacksonSchema(context, itemSchema) : null;
 		
 		if ( itemSchema.isArray() ) {
-			tupleSchema = new ArrayList<JacksonSchema>();
+			List<JacksonSchema> tuple = new ArrayList<JacksonSchema>();
 			for ( JsonNode s : itemSchema ) {
-				tupleSchema.add( new JacksonSchema(s) );
+				tuple.add( new JacksonSchema(context, s) );
 			}
+			tupleSchema = Collections.unmodifiableList(tuple);
+		} else {
+			tupleSchema = null;
 		}
 	}
-	
+
 	@Override
-	public List<String> validate(JsonNode node, String at) {
-		LOG.debug("validate( " + node + ", " + at + ")");
-		return validate(node, null, at);
+	public void validate(final JsonNode node, JsonNode parent, final JSONPath at, ErrorCollector errors) {
+		if ( !node.isArray() )
+			return;
+
+		if ( isSplit(node) ) {
+			Parallelism.validate(parallelism, node.size(), new Parallelism.Range() {
+				@Override
+				public void validate(int from, int to, ErrorCollector errors) {
+					for ( int i = from; i < to; i++ ) {
+						validateItem(node, i, node.get(i), at, errors);
+					}
+				}
+			}, errors);
+			return;
+		}
+
+		int i = 0;
+		for ( JsonNode n : node ) {
+			validateItem(node, i, n, at, errors);
+			i++;
+		}
 	}
 
 	@Override
-	public List<String> validate(JsonNode node, JsonNode parent, String at) {
-		LOG.debug("validate( " + node + ", " + parent + ", " + at + ")");
-		List<String> errors = new ArrayList<String>();
-		
+	public boolean isValid(final JsonNode node, JsonNode parent) {
+		if ( !node.isArray() )
+			return true;
+
+		if ( isSplit(node) ) {
+			return Parallelism.isValid(parallelism, node.size(), new Parallelism.Check() {
+				@Override
+				public boolean isValid(int from, int to) {
+					for ( int i = from; i < to; i++ ) {
+						if ( !isValidItem(node, i, node.get(i)) )
+							return false;
+					}
+					return true;
+				}
+			});
+		}
+
 		int i = 0;
 		for ( JsonNode n : node ) {
-			if ( schema != null ) {
-				errors.addAll( schema.validate(n, node, at + "[" + i + "]") );
-			}
-			
-			if ( tupleSchema != null ) {
-				if ( i >= tupleSchema.size() ) {
-					errors.add(at + "[" + i + "]: no validator found at this index");
-				} else {
-					errors.addAll( tupleSchema.get(i).validate(n, node, at + "[" + i + "]") );
-				}
-			}
-			
+			if ( !isValidItem(node, i, n) )
+				return false;
 			i++;
 		}
-		return errors;
+		return true;
+	}
+
+	@Override
+	public int getTypes() {
+		return TYPEFactory.bit(TYPE.ARRAY);
+	}
+
+	@Override
+	public int getCost() {
+		return NESTED;
+	}
+
+	private boolean isSplit(JsonNode node) {
+		return parallelism != null && node.size() >= parallelism.getThreshold();
+	}
+
+	private void validateItem(JsonNode node, int i, JsonNode n, JSONPath at, ErrorCollector errors) {
+		if ( schema != null ) {
+			schema.validate(n, node, at.index(i), errors);
+		}
+		
+		if ( tupleSchema != null ) {
+			if ( i >= tupleSchema.size() ) {
+				errors.add(new ValidationMessage(PROPERTY, at.index(i), ErrorCode.ITEMS_TUPLE_INDEX));
+			} else {
+				tupleSchema.get(i).validate(n, node, at.index(i), errors);
+			}
+		}
+	}
+
+	private boolean isValidItem(JsonNode node, int i, JsonNode n) {
+		if ( schema != null && !schema.isValid(n, node) )
+			return false;
+
+		if ( tupleSchema != null ) {
+			if ( i >= tupleSchema.size() || !tupleSchema.get(i).isValid(n, node) )
+				return false;
+		}
+		return true;
 	}
 
+	/**
+	 * @return the schema of all the items, or <code>null</code> for a tuple definition
+	 */
+	public JacksonSchema getSchema() {
+		return schema;
+	}
+
+	/**
+	 * @return the schemas of a tuple definition, or <code>null</code>
+	 */
+	public List<JacksonSchema> getTupleSchema() {
+		return tupleSchema;
+	}
+
+	/**
+	 * @return the parallelism large arrays are validated with, or <code>null</code>
+	 */
+	public Parallelism getParallelism() {
+		return parallelism;
+	}
 }
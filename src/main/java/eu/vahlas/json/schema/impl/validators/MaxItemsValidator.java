@@ -17,53 +17,59 @@
 package eu.vahlas.json.schema.impl.validators;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
 
 import org.codehaus.jackson.JsonNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.TYPE;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.TYPEFactory;
+import eu.vahlas.json.schema.impl.TypedValidator;
 
 /**
  * Implements "maxItems" validation on array nodes as described in 
  * the paragraph 5.12 of the JSON Schema specification.
  */
-public class MaxItemsValidator implements JSONValidator, Serializable {
+public class MaxItemsValidator extends AbstractJSONValidator implements TypedValidator, Serializable {
 
 	private static final long serialVersionUID = -2811868595159447028L;
-	private static final Logger LOG = LoggerFactory.getLogger(MinItemsValidator.class);
 
 	public static final String PROPERTY = "maxItems";
 	
-	private int max = 0;
+	private final int max;
 	
 	public MaxItemsValidator(JsonNode maxItemsNode) {
-		if ( maxItemsNode.isIntegralNumber() ) {
-			max = maxItemsNode.getIntValue();
-		}
-	}
-	
-	@Override
-	public List<String> validate(JsonNode node, String at) {
-		LOG.debug("validate( " + node + ", " + at + ")");
-		return validate(node, null, at);
+		max = maxItemsNode.isIntegralNumber() ? maxItemsNode.getIntValue() : 0;
 	}
 
 	@Override
-	public List<String> validate(JsonNode node, JsonNode parent, String at) {
-		LOG.debug("validate( " + node + ", " + parent + ", " + at + ")");
-		
-		List<String> errors = new ArrayList<String>(); 
-		
+	public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
 		if ( node.isArray() ) {
 			if ( node.size() > max ) {
-				errors.add(at + ": there must be a maximum of " + max + " items in the array");
+				errors.add(new ValidationMessage(PROPERTY, at, ErrorCode.MAX_ITEMS, max));
 			}
 		}
-		
-		return errors;
 	}
 
+	@Override
+	public boolean isValid(JsonNode node, JsonNode parent) {
+		return !node.isArray() || node.size() <= max;
+	}
+
+	@Override
+	public int getTypes() {
+		return TYPEFactory.bit(TYPE.ARRAY);
+	}
+
+	@Override
+	public int getCost() {
+		return CHEAP;
+	}
+
+	public int getMax() {
+		return max;
+	}
 }
@@ -17,54 +17,58 @@
 package eu.vahlas.json.schema.impl.validators;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
 
 import org.codehaus.jackson.JsonNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import eu.vahlas.json.schema.JSONSchemaException;
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.ErrorCollector;
 import eu.vahlas.json.schema.TYPE;
-import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
+import eu.vahlas.json.schema.impl.JSONPath;
 import eu.vahlas.json.schema.impl.TYPEFactory;
+import eu.vahlas.json.schema.impl.TypedValidator;
 
-public class MaxLengthValidator implements JSONValidator, Serializable {
+public class MaxLengthValidator extends AbstractJSONValidator implements TypedValidator, Serializable {
 
 	private static final long serialVersionUID = 9072697073301436779L;
-	private static final Logger LOG = LoggerFactory.getLogger(MaxLengthValidator.class);
 	
 	public static final String PROPERTY = "maxLength";
 	
-	protected int maxLength;
+	protected final int maxLength;
 	
 	public MaxLengthValidator(JsonNode maxLengthNode) {
-		maxLength = Integer.MAX_VALUE;
 		if ( maxLengthNode != null && maxLengthNode.isIntegralNumber() ) {
 			maxLength = maxLengthNode.getIntValue();
+		} else {
+			maxLength = Integer.MAX_VALUE;
 		}
 	}
-		
+
 	@Override
-	public List<String> validate(JsonNode node, String at) {
-		LOG.debug("validate( " + node + ", " + at + ")");
-		return validate(node, null, at);
+	public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
+		if ( node.isTextual() && node.getTextValue().length() > maxLength ) {
+			errors.add(new ValidationMessage(PROPERTY, at, ErrorCode.MAX_LENGTH, maxLength));
+		}
 	}
 
 	@Override
-	public List<String> validate(JsonNode node, JsonNode parent, String at) {
-		LOG.debug("validate( " + node + ", " + parent + ", " + at + ")");
-		
-		TYPE nodeType = TYPEFactory.getNodeType(node);
-		if ( nodeType != TYPE.STRING )
-			throw new JSONSchemaException("maxLength validation can only be executed on string!");
-		
-		List<String> errors = new ArrayList<String>();
-		if ( node.getTextValue().length() > maxLength ) {
-			errors.add(at + ": may only be " + maxLength + " characters long");
-		}
-		
-		return errors;
+	public boolean isValid(JsonNode node, JsonNode parent) {
+		return !node.isTextual() || node.getTextValue().length() <= maxLength;
+	}
+
+	@Override
+	public int getTypes() {
+		return TYPEFactory.bit(TYPE.STRING);
+	}
+
+	@Override
+	public int getCost() {
+		return CHEAP;
+	}
+
+	public int getMaxLength() {
+		return maxLength;
 	}
 
 }
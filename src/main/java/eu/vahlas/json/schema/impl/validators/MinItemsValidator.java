@@ -17,53 +17,59 @@
 package eu.vahlas.json.schema.impl.validators;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
 
 import org.codehaus.jackson.JsonNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.TYPE;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.TYPEFactory;
+import eu.vahlas.json.schema.impl.TypedValidator;
 
 /**
  * Implements "minItems" validation on array nodes as described in 
  * the paragraph 5.11 of the JSON Schema specification.
  */
-public class MinItemsValidator implements JSONValidator, Serializable {
+public class MinItemsValidator extends AbstractJSONValidator implements TypedValidator, Serializable {
 
 	private static final long serialVersionUID = 5843869888459032277L;
-	private static final Logger LOG = LoggerFactory.getLogger(MinItemsValidator.class);
 
 	public static final String PROPERTY = "minItems";
 	
-	private int min = 0;
+	private final int min;
 	
 	public MinItemsValidator(JsonNode minItemsNode) {
-		if ( minItemsNode.isIntegralNumber() ) {
-			min = minItemsNode.getIntValue();
-		}
-	}
-	
-	@Override
-	public List<String> validate(JsonNode node, String at) {
-		LOG.debug("validate( " + node + ", " + at + ")");
-		return validate(node, null, at);
+		min = minItemsNode.isIntegralNumber() ? minItemsNode.getIntValue() : 0;
 	}
 
 	@Override
-	public List<String> validate(JsonNode node, JsonNode parent, String at) {
-		LOG.debug("validate( " + node + ", " + parent + ", " + at + ")");
-		
-		List<String> errors = new ArrayList<String>(); 
-		
+	public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
 		if ( node.isArray() ) {
 			if ( node.size() < min ) {
-				errors.add(at + ": there must be a minimum of " + min + " items in the array");
+				errors.add(new ValidationMessage(PROPERTY, at, ErrorCode.MIN_ITEMS, min));
 			}
 		}
-		
-		return errors;
 	}
 
+	@Override
+	public boolean isValid(JsonNode node, JsonNode parent) {
+		return !node.isArray() || node.size() >= min;
+	}
+
+	@Override
+	public int getTypes() {
+		return TYPEFactory.bit(TYPE.ARRAY);
+	}
+
+	@Override
+	public int getCost() {
+		return CHEAP;
+	}
+
+	public int getMin() {
+		return min;
+	}
 }
@@ -17,53 +17,58 @@
 package eu.vahlas.json.schema.impl.validators;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
 
 import org.codehaus.jackson.JsonNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import eu.vahlas.json.schema.JSONSchemaException;
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.ErrorCollector;
 import eu.vahlas.json.schema.TYPE;
-import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
+import eu.vahlas.json.schema.impl.JSONPath;
 import eu.vahlas.json.schema.impl.TYPEFactory;
+import eu.vahlas.json.schema.impl.TypedValidator;
 
-public class MinLengthValidator implements JSONValidator, Serializable {
+public class MinLengthValidator extends AbstractJSONValidator implements TypedValidator, Serializable {
 
 	private static final long serialVersionUID = 6179450020823983981L;
-	private static final Logger LOG = LoggerFactory.getLogger(MinLengthValidator.class);
 	
 	public static final String PROPERTY = "minLength";
 	
-	protected int minLength;
+	protected final int minLength;
 	
 	public MinLengthValidator(JsonNode minLengthNode) {
-		minLength = -1;
 		if ( minLengthNode != null && minLengthNode.isIntegralNumber() ) {
 			minLength = minLengthNode.getIntValue();
+		} else {
+			minLength = -1;
 		}
 	}
-	
+
 	@Override
-	public List<String> validate(JsonNode node, String at) {
-		LOG.debug("validate( " + node + ", " + at + ")");
-		return validate(node, null, at);
+	public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
+		if ( node.isTextual() && node.getTextValue().length() < minLength ) {
+			errors.add(new ValidationMessage(PROPERTY, at, ErrorCode.MIN_LENGTH, minLength));
+		}
 	}
 
 	@Override
-	public List<String> validate(JsonNode node, JsonNode parent, String at) {
-		LOG.debug("validate( " + node + ", " + parent + ", " + at + ")");
-		
-		TYPE nodeType = TYPEFactory.getNodeType(node);
-		if ( nodeType != TYPE.STRING )
-			throw new JSONSchemaException("minLength validation can only be executed on a string!");
-		
-		List<String> errors = new ArrayList<String>();
-		if ( node.getTextValue().length() < minLength ) {
-			errors.add(at + ": must be at least " + minLength + " characters long");
-		}
-		return errors;
+	public boolean isValid(JsonNode node, JsonNode parent) {
+		return !node.isTextual() || node.getTextValue().length() >= minLength;
+	}
+
+	@Override
+	public int getTypes() {
+		return TYPEFactory.bit(TYPE.STRING);
+	}
+
+	@Override
+	public int getCost() {
+		return CHEAP;
+	}
+
+	public int getMinLength() {
+		return minLength;
 	}
 
 }
@@ -17,34 +17,27 @@
 package eu.vahlas.json.schema.impl.validators;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
 
 import org.codehaus.jackson.JsonNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
+import eu.vahlas.json.schema.impl.JSONPath;
 
-public class NoOpValidator implements JSONValidator, Serializable {
+public class NoOpValidator extends AbstractJSONValidator implements Serializable {
 
 	private static final long serialVersionUID = -6910538365412936683L;
-	private static final Logger LOG = LoggerFactory.getLogger(NoOpValidator.class);
 	
 	public NoOpValidator(JsonNode schemaNode) {
 	}
-	
+
 	@Override
-	public List<String> validate(JsonNode node, String at) {
-		LOG.debug("validate( " + node + ", " + at + ")");
-		return validate(node, null, at);
+	public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
 	}
-	
+
 	@Override
-	public List<String> validate(JsonNode node, JsonNode parent, String at) {
-		LOG.debug("validate( " + node + ", " + parent + ", " + at + ")");
-		return new ArrayList<String>();
+	public boolean isValid(JsonNode node, JsonNode parent) {
+		return true;
 	}
 
-
 }
@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl.validators;
+
+import java.io.Serializable;
+
+import org.codehaus.jackson.JsonNode;
+
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.TYPE;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.NumericRange;
+import eu.vahlas.json.schema.impl.TYPEFactory;
+import eu.vahlas.json.schema.impl.TypedValidator;
+
+/**
+ * Implements "minimum", "maximum" and "divisibleBy" at once, as described in
+ * the paragraphs 5.7 to 5.10 and 5.24 of the JSON Schema specification: the
+ * type of a number node is looked at once, and its value compared to all the
+ * constraints of the schema (see <code>NumericRange</code>).<br/>
+ * <br/>
+ * The validator is built by the first of these keywords found in the schema,
+ * <code>getKeyword</code> tells which one.
+ */
+public class NumericValidator extends AbstractJSONValidator implements TypedValidator, Serializable {
+
+	private static final long serialVersionUID = -1942208313866021458L;
+
+	private final Number minimum;
+	private final Number maximum;
+	private final Number divisibleBy;
+	private final NumericRange range;
+
+	public NumericValidator(JsonNode schemaNode) {
+		this(schemaNode.get(MinimumValidator.PROPERTY), schemaNode.get(MinimumValidator.PROPERTY_CANEQUAL),
+				schemaNode.get(MaximumValidator.PROPERTY), schemaNode.get(MaximumValidator.PROPERTY_CANEQUAL),
+				schemaNode.get(DivisibleByValidator.PROPERTY));
+	}
+
+	/**
+	 * Checks the given constraints only, <code>null</code> for none.
+	 */
+	protected NumericValidator(JsonNode minimumNode, JsonNode minimumCanEqualNode, JsonNode maximumNode,
+			JsonNode maximumCanEqualNode, JsonNode divisibleByNode) {
+		minimum = numberValue(minimumNode);
+		maximum = numberValue(maximumNode);
+		divisibleBy = numberValue(divisibleByNode);
+		range = new NumericRange(minimumNode, minimumCanEqualNode, maximumNode, maximumCanEqualNode, divisibleByNode);
+	}
+
+	/**
+	 * @return the keyword of <code>schemaNode</code> which builds its <code>NumericValidator</code>,
+	 *         <code>null</code> if there is none
+	 */
+	public static String getKeyword(JsonNode schemaNode) {
+		if ( schemaNode.has(MinimumValidator.PROPERTY) )
+			return MinimumValidator.PROPERTY;
+		if ( schemaNode.has(MaximumValidator.PROPERTY) )
+			return MaximumValidator.PROPERTY;
+		if ( schemaNode.has(DivisibleByValidator.PROPERTY) )
+			return DivisibleByValidator.PROPERTY;
+		return null;
+	}
+
+	@Override
+	public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
+		int failed = range.check(node);
+		if ( failed == 0 )
+			return;
+		if ( (failed & NumericRange.BELOW_MINIMUM) != 0 )
+			errors.add(new ValidationMessage(MinimumValidator.PROPERTY, at, ErrorCode.MINIMUM, minimum));
+		if ( (failed & NumericRange.ABOVE_MAXIMUM) != 0 )
+			errors.add(new ValidationMessage(MaximumValidator.PROPERTY, at, ErrorCode.MAXIMUM, maximum));
+		if ( (failed & NumericRange.NOT_DIVISIBLE) != 0 )
+			errors.add(new ValidationMessage(DivisibleByValidator.PROPERTY, at, ErrorCode.DIVISIBLE_BY, divisibleBy));
+	}
+
+	@Override
+	public boolean isValid(JsonNode node, JsonNode parent) {
+		return range.check(node) == 0;
+	}
+
+	@Override
+	public int getTypes() {
+		return TYPEFactory.bit(TYPE.NUMBER) | TYPEFactory.bit(TYPE.INTEGER);
+	}
+
+	@Override
+	public int getCost() {
+		return CHEAP;
+	}
+
+	public NumericRange getRange() {
+		return range;
+	}
+
+	private static Number numberValue(JsonNode node) {
+		return node != null && node.isNumber() ? node.getNumberValue() : null;
+	}
+
+}
@@ -0,0 +1,295 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl.validators;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.node.ObjectNode;
+
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.TYPE;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
+import eu.vahlas.json.schema.impl.JacksonSchema;
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.impl.Parallelism;
+import eu.vahlas.json.schema.impl.SchemaContext;
+import eu.vahlas.json.schema.impl.TYPEFactory;
+import eu.vahlas.json.schema.impl.TypedValidator;
+
+/**
+ * Implements "properties" and "additionalProperties" in a single pass over the
+ * fields of the instance, along with the "requires" of the declared properties
+ * which name other declared properties.<br/>
+ * <br/>
+ * Each field name is looked up in an open addressing table built from the
+ * declared properties: a declared field is validated by its schema, any other
+ * one by the additional properties policy. The declared properties seen (and
+ * the ones which are not null) are recorded as bits of a <code>long</code>, so
+ * the missing properties and the unmet "requires" are found with a few masks
+ * once the fields have been read, without looking the instance up again. The
+ * errors thus follow the order of the fields, the missing properties and the
+ * unmet "requires" coming last.<br/>
+ * <br/>
+ * Schemas declaring more than 64 properties, or enough of them to be split
+ * across threads by the <code>Parallelism</code> of the context, keep using
+ * <code>PropertiesValidator</code> and <code>AdditionalPropertiesValidator</code>.
+ */
+public class ObjectValidator extends AbstractJSONValidator implements TypedValidator, Serializable {
+
+	private static final long serialVersionUID = 4129620785716342731L;
+
+	public static final int MAX_PROPERTIES = 64;
+
+	private final String[] names;
+	private final JacksonSchema[] schemas;
+	/** the schema run on each property: its declared schema without the "requires" checked here */
+	private final JacksonSchema[] checks;
+	/** the declared properties required by each declared property */
+	private final long[] requires;
+	/** the properties which are not optional */
+	private final long mandatory;
+
+	/** the slots of the hash table: index + 1 of the name, 0 when free */
+	private final int[] slots;
+	private final int mask;
+
+	private final boolean allowAdditionalProperties;
+	private final JacksonSchema additionalPropertiesSchema;
+
+	public ObjectValidator(JsonNode schemaNode, SchemaContext context) {
+		JsonNode propertiesNode = schemaNode.get(PropertiesValidator.PROPERTY);
+		List<String> declared = new ArrayList<String>();
+		if ( propertiesNode != null ) {
+			for ( Iterator<String> it = propertiesNode.getFieldNames(); it.hasNext(); ) {
+				declared.add(it.next());
+			}
+		}
+
+		int n = declared.size();
+		names = declared.toArray(new String[n]);
+		schemas = new JacksonSchema[n];
+		checks = new JacksonSchema[n];
+		requires = new long[n];
+
+		int capacity = Integer.highestOneBit(Math.max(n, 1) * 2 - 1) << 1;
+		slots = new int[capacity];
+		mask = capacity - 1;
+		for ( int i = 0; i < n; i++ ) {
+			int h = hash(names[i]) & mask;
+			while ( slots[h] != 0 ) {
+				h = (h + 1) & mask;
+			}
+			slots[h] = i + 1;
+		}
+
+		long m = 0;
+		for ( int i = 0; i < n; i++ ) {
+			schemas[i] = new JacksonSchema(context, propertiesNode.get(names[i]));
+			if ( !schemas[i].isOptional() )
+				m |= 1L << i;
+
+			List<JSONValidator> hoisted = new ArrayList<JSONValidator>();
+			for ( JSONValidator v : schemas[i].getValidators() ) {
+				long bits = v instanceof RequiresValidator ? requiredBits((RequiresValidator) v) : -1;
+				if ( bits != -1 ) {
+					hoisted.add(v);
+					requires[i] |= bits;
+				}
+			}
+			checks[i] = schemas[i].without(hoisted);
+		}
+		mandatory = m;
+
+		JsonNode additionalPropertiesNode = schemaNode.get(AdditionalPropertiesValidator.PROPERTY);
+		if ( additionalPropertiesNode == null ) {
+			allowAdditionalProperties = true;
+			additionalPropertiesSchema = null;
+		} else if ( additionalPropertiesNode.isObject() ) {
+			allowAdditionalProperties = true;
+			additionalPropertiesSchema = new JacksonSchema(context, additionalPropertiesNode);
+		} else {
+			allowAdditionalProperties = additionalPropertiesNode.isBoolean() && additionalPropertiesNode.getBooleanValue();
+			additionalPropertiesSchema = null;
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the "properties" and "additionalProperties" of
+	 *         <code>schemaNode</code> can be validated by an <code>ObjectValidator</code>
+	 */
+	public static boolean accepts(JsonNode schemaNode, SchemaContext context) {
+		JsonNode propertiesNode = schemaNode.get(PropertiesValidator.PROPERTY);
+		int n = propertiesNode == null ? 0 : propertiesNode.size();
+		Parallelism parallelism = context.getParallelism();
+		return n <= MAX_PROPERTIES && (parallelism == null || n < parallelism.getThreshold());
+	}
+
+	@Override
+	public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
+		if ( !node.isObject() )
+			return;
+
+		long present = 0;
+		long set = 0;
+		for ( Iterator<Map.Entry<String, JsonNode>> it = ((ObjectNode) node).getFields(); it.hasNext(); ) {
+			Map.Entry<String, JsonNode> field = it.next();
+			String pname = field.getKey();
+			JsonNode value = field.getValue();
+			int i = indexOf(pname);
+			if ( i >= 0 ) {
+				present |= 1L << i;
+				if ( !value.isNull() )
+					set |= 1L << i;
+				checks[i].validate(value, node, at.property(pname), errors);
+			} else if ( !allowAdditionalProperties ) {
+				errors.add(new ValidationMessage(AdditionalPropertiesValidator.PROPERTY, at.property(pname), ErrorCode.ADDITIONAL_PROPERTIES));
+			} else if ( additionalPropertiesSchema != null ) {
+				additionalPropertiesSchema.validate(value, parent, at.property(pname), errors);
+			}
+		}
+
+		long missing = mandatory & ~present;
+		for ( int i = 0; missing != 0; i++, missing >>>= 1 ) {
+			if ( (missing & 1) != 0 )
+				errors.add(new ValidationMessage(PropertiesValidator.PROPERTY, at.property(names[i]), ErrorCode.PROPERTY_MISSING));
+		}
+
+		for ( int i = 0; i < names.length; i++ ) {
+			long unmet = requires[i] & ~set;
+			if ( unmet == 0 || (present & (1L << i)) == 0 )
+				continue;
+			JSONPath path = at.property(names[i]);
+			for ( int j = 0; unmet != 0; j++, unmet >>>= 1 ) {
+				if ( (unmet & 1) != 0 )
+					errors.add(new ValidationMessage(RequiresValidator.PROPERTY, path, ErrorCode.REQUIRES, names[j]));
+			}
+		}
+	}
+
+	@Override
+	public boolean isValid(JsonNode node, JsonNode parent) {
+		if ( !node.isObject() )
+			return true;
+
+		long present = 0;
+		long set = 0;
+		for ( Iterator<Map.Entry<String, JsonNode>> it = ((ObjectNode) node).getFields(); it.hasNext(); ) {
+			Map.Entry<String, JsonNode> field = it.next();
+			JsonNode value = field.getValue();
+			int i = indexOf(field.getKey());
+			if ( i >= 0 ) {
+				present |= 1L << i;
+				if ( !value.isNull() )
+					set |= 1L << i;
+				if ( !checks[i].isValid(value, node) )
+					return false;
+			} else if ( !allowAdditionalProperties ) {
+				return false;
+			} else if ( additionalPropertiesSchema != null
+					&& !additionalPropertiesSchema.isValid(value, parent) ) {
+				return false;
+			}
+		}
+
+		if ( (mandatory & ~present) != 0 )
+			return false;
+		for ( int i = 0; i < names.length; i++ ) {
+			if ( (present & (1L << i)) != 0 && (requires[i] & ~set) != 0 )
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int getTypes() {
+		return TYPEFactory.bit(TYPE.OBJECT);
+	}
+
+	@Override
+	public int getCost() {
+		return NESTED;
+	}
+
+	/**
+	 * @return the bits of the properties required by <code>r</code>, or
+	 *         <code>-1</code> if it is not a list of declared properties
+	 */
+	private long requiredBits(RequiresValidator r) {
+		if ( r.getSchema() != null )
+			return -1;
+		long bits = 0;
+		for ( String name : r.getRequiredProperties() ) {
+			int j = name == null ? -1 : indexOf(name);
+			if ( j < 0 )
+				return -1;
+			bits |= 1L << j;
+		}
+		return bits;
+	}
+
+	private int indexOf(String name) {
+		int h = hash(name) & mask;
+		int slot;
+		while ( (slot = slots[h]) != 0 ) {
+			if ( names[slot - 1].equals(name) )
+				return slot - 1;
+			h = (h + 1) & mask;
+		}
+		return -1;
+	}
+
+	private static int hash(String name) {
+		int h = name.hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * @return the names of the declared properties
+	 */
+	public List<String> getPropertyNames() {
+		return Collections.unmodifiableList(Arrays.asList(names));
+	}
+
+	/**
+	 * @return the schema of the property <code>name</code>, or <code>null</code> if it is not declared
+	 */
+	public JacksonSchema getSchema(String name) {
+		int i = indexOf(name);
+		return i < 0 ? null : schemas[i];
+	}
+
+	public boolean isAllowed() {
+		return allowAdditionalProperties;
+	}
+
+	/**
+	 * @return the schema of the additional properties, or <code>null</code> if they are not constrained
+	 */
+	public JacksonSchema getAdditionalSchema() {
+		return additionalPropertiesSchema;
+	}
+}
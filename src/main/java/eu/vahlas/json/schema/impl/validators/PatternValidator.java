@@ -17,66 +17,67 @@
 package eu.vahlas.json.schema.impl.validators;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
 
 import org.codehaus.jackson.JsonNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.ErrorCollector;
 import eu.vahlas.json.schema.TYPE;
-import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.RegexCache;
+import eu.vahlas.json.schema.impl.RegexMatcher;
 import eu.vahlas.json.schema.impl.TYPEFactory;
+import eu.vahlas.json.schema.impl.TypedValidator;
 
-public class PatternValidator implements JSONValidator, Serializable {
+public class PatternValidator extends AbstractJSONValidator implements TypedValidator, Serializable {
 
 	private static final long serialVersionUID = 4460940200749213244L;
-	private static final Logger LOG = LoggerFactory.getLogger(PatternValidator.class);
 	
 	public static final String PROPERTY = "pattern";
 	
-	protected String pattern;
+	protected final String pattern;
+	protected final RegexMatcher matcher;
 	
+	/**
+	 * @throws eu.vahlas.json.schema.JSONSchemaException if the pattern is not a valid regular expression
+	 */
 	public PatternValidator(JsonNode patternNode) {
-		pattern = "";
-		if ( patternNode != null && patternNode.isTextual() ) {
-			pattern = patternNode.getTextValue();
-		}
-	}
-	
-	@Override
-	public List<String> validate(JsonNode node, String at) {
-		LOG.debug("validate( " + node + ", " + at + ")");
-		return validate(node, null, at);
+		pattern = patternNode != null && patternNode.isTextual() ? patternNode.getTextValue() : "";
+		matcher = RegexCache.get(pattern);
 	}
 
 	@Override
-	public List<String> validate(JsonNode node, JsonNode parent, String at) {
-		LOG.debug("validate( " + node + ", " + parent + ", " + at + ")");
-		
-		List<String> errors = new ArrayList<String>();
-		
+	public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
 		TYPE nodeType = TYPEFactory.getNodeType(node);
 		if ( nodeType != TYPE.STRING ) {
-			errors.add(at + ": cannot match a " + nodeType + " against a regex pattern (" + pattern + ")");
-			return errors;
+			errors.add(new ValidationMessage(PROPERTY, at, ErrorCode.PATTERN_TYPE, nodeType, pattern));
+			return;
 		}
 		
-		try {
-			Pattern p = Pattern.compile(pattern);
-			Matcher m = p.matcher(node.getTextValue());
-			if ( !m.matches() ) {
-				errors.add(at + ": does not match the regex pattern " + pattern);
-			}
-		} catch (PatternSyntaxException pse) {
-			// String is considered valid if pattern is invalid
-			LOG.error("Failed to apply pattern on " + at + ": Invalid RE syntax [" + pattern + "]", pse);
+		if ( !matcher.matches(node.getTextValue()) ) {
+			errors.add(new ValidationMessage(PROPERTY, at, ErrorCode.PATTERN, pattern));
 		}
+	}
+
+	@Override
+	public boolean isValid(JsonNode node, JsonNode parent) {
+		return node.isTextual() && matcher.matches(node.getTextValue());
+	}
+
+	@Override
+	public int getTypes() {
+		return TYPEFactory.ALL_TYPES;
+	}
+
+	@Override
+	public int getCost() {
+		return SCAN;
+	}
 
-		return errors;
+	public RegexMatcher getMatcher() {
+		return matcher;
 	}
 
 }
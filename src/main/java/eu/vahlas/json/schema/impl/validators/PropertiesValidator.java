@@ -17,61 +17,144 @@
 package eu.vahlas.json.schema.impl.validators;
 
 import java.io.Serializable;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.map.ObjectMapper;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.TYPE;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
 import eu.vahlas.json.schema.impl.JacksonSchema;
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.Parallelism;
+import eu.vahlas.json.schema.impl.SchemaContext;
+import eu.vahlas.json.schema.impl.TYPEFactory;
+import eu.vahlas.json.schema.impl.TypedValidator;
 
-public class PropertiesValidator implements JSONValidator, Serializable {
+public class PropertiesValidator extends AbstractJSONValidator implements TypedValidator, Serializable {
 
 	private static final long serialVersionUID = -7054176202856839164L;
-	private static final Logger LOG = LoggerFactory.getLogger(PropertiesValidator.class);
 
 	public static final String PROPERTY = "properties";
 
-	protected Map<String, JacksonSchema> schemas;
+	protected final Map<String, JacksonSchema> schemas;
+	protected final Parallelism parallelism;
+	private final String[] names;
 
 	public PropertiesValidator(JsonNode propertiesNode, ObjectMapper mapper) {
-		schemas = new HashMap<String, JacksonSchema>();
+		this(propertiesNode, new SchemaContext(mapper));
+	}
+
+	public PropertiesValidator(JsonNode propertiesNode, SchemaContext context) {
+		Map<String, JacksonSchema> map = new HashMap<String, JacksonSchema>();
 		for ( Iterator<String> it = propertiesNode.getFieldNames(); it.hasNext(); ) {
 			String pname = it.next();
-			schemas.put(pname, new JacksonSchema( mapper, propertiesNode.get( pname ) ));
+			map.put(pname, new JacksonSchema( context, propertiesNode.get( pname ) ));
 		}
+		schemas = Collections.unmodifiableMap(map);
+		names = schemas.keySet().toArray(new String[schemas.size()]);
+		parallelism = context.getParallelism();
 	}
 
 	@Override
-	public List<String> validate(JsonNode node, String at) {
-		LOG.debug("validate( " + node + ", " + at + ")");
-		return validate(node, null ,at);
+	public void validate(final JsonNode node, JsonNode parent, final JSONPath at, ErrorCollector errors) {
+		if ( !node.isObject() )
+			return;
+
+		if ( isSplit() ) {
+			Parallelism.validate(parallelism, names.length, new Parallelism.Range() {
+				@Override
+				public void validate(int from, int to, ErrorCollector errors) {
+					for ( int i = from; i < to; i++ ) {
+						validateProperty(node, names[i], at, errors);
+					}
+				}
+			}, errors);
+			return;
+		}
+
+		for ( String key : names ) {
+			validateProperty(node, key, at, errors);
+		}
 	}
 
 	@Override
-	public List<String> validate(JsonNode node, JsonNode parent, String at) {
-		LOG.debug("validate( " + node + ", " + parent + ", " + at + ")");
-		List<String> errors = new ArrayList<String>();
-
-		for ( String key : schemas.keySet() ) {
-			JacksonSchema propertySchema = schemas.get(key);
-			JsonNode propertyNode = node.get(key);
-
-			if ( propertyNode != null ) {
-				errors.addAll( propertySchema.validate(propertyNode, node, at + "." + key) );
-			} else {
-				if ( ! propertySchema.isOptional() )
-					errors.add( at + "." + key + ": is missing and it is not optional" );
-			}
+	public boolean isValid(final JsonNode node, JsonNode parent) {
+		if ( !node.isObject() )
+			return true;
+
+		if ( isSplit() ) {
+			return Parallelism.isValid(parallelism, names.length, new Parallelism.Check() {
+				@Override
+				public boolean isValid(int from, int to) {
+					for ( int i = from; i < to; i++ ) {
+						if ( !isValidProperty(node, names[i]) )
+							return false;
+					}
+					return true;
+				}
+			});
 		}
 
-		return errors;
+		for ( String key : names ) {
+			if ( !isValidProperty(node, key) )
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int getTypes() {
+		return TYPEFactory.bit(TYPE.OBJECT);
 	}
 
+	@Override
+	public int getCost() {
+		return NESTED;
+	}
+
+	private boolean isSplit() {
+		return parallelism != null && names.length >= parallelism.getThreshold();
+	}
+
+	private void validateProperty(JsonNode node, String key, JSONPath at, ErrorCollector errors) {
+		JacksonSchema propertySchema = schemas.get(key);
+		JsonNode propertyNode = node.get(key);
+
+		if ( propertyNode != null ) {
+			propertySchema.validate(propertyNode, node, at.property(key), errors);
+		} else {
+			if ( ! propertySchema.isOptional() )
+				errors.add( new ValidationMessage(PROPERTY, at.property(key), ErrorCode.PROPERTY_MISSING) );
+		}
+	}
+
+	private boolean isValidProperty(JsonNode node, String key) {
+		JacksonSchema propertySchema = schemas.get(key);
+		JsonNode propertyNode = node.get(key);
+		if ( propertyNode != null )
+			return propertySchema.isValid(propertyNode, node);
+		return propertySchema.isOptional();
+	}
+
+	/**
+	 * @return the names of the declared properties, in validation order
+	 */
+	public Set<String> getPropertyNames() {
+		return schemas.keySet();
+	}
+
+	/**
+	 * @return the schema of the property <code>name</code>, or <code>null</code> if it is not declared
+	 */
+	public JacksonSchema getSchema(String name) {
+		return schemas.get(name);
+	}
 }
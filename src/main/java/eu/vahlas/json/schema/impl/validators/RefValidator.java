@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl.validators;
+
+import java.io.Serializable;
+
+import org.codehaus.jackson.JsonNode;
+
+import eu.vahlas.json.schema.JSONSchemaException;
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
+import eu.vahlas.json.schema.impl.JacksonSchema;
+import eu.vahlas.json.schema.impl.JSONPath;
+
+/**
+ * Implements "$ref" by delegating to the compiled target schema.<br/>
+ * <br/>
+ * Instances are created and shared by the <code>SchemaContext</code>: all
+ * the schemas referencing the same URI use the same validator, hence the
+ * same compiled target.
+ */
+public class RefValidator extends AbstractJSONValidator implements Serializable {
+
+	private static final long serialVersionUID = -1468316380566524577L;
+
+	public static final String PROPERTY = "$ref";
+
+	private final String ref;
+	private volatile JacksonSchema target;
+
+	public RefValidator(String ref) {
+		this.ref = ref;
+	}
+
+	/**
+	 * Called once by the <code>SchemaContext</code> when the target has been compiled.
+	 */
+	public void setTarget(JacksonSchema target) {
+		this.target = target;
+	}
+
+	public JacksonSchema getTarget() {
+		return target;
+	}
+
+	public boolean isResolved() {
+		return target != null;
+	}
+
+	public String getRef() {
+		return ref;
+	}
+
+	@Override
+	public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
+		JacksonSchema schema = target;
+		if ( schema == null )
+			throw new JSONSchemaException("$ref " + ref + " has not been resolved");
+		schema.validate(node, parent, at, errors);
+	}
+
+	@Override
+	public boolean isValid(JsonNode node, JsonNode parent) {
+		JacksonSchema schema = target;
+		if ( schema == null )
+			throw new JSONSchemaException("$ref " + ref + " has not been resolved");
+		return schema.isValid(node, parent);
+	}
+
+}
@@ -14,24 +14,27 @@ package eu.vahlas.json.schema.impl.validators;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.codehaus.jackson.JsonNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
 import eu.vahlas.json.schema.impl.JacksonSchema;
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.SchemaContext;
 
 /**
  * Implements "requires" validation on all types of objects as defined in the paragraph 5.6 of the JSON Schema
  * specification.
  *
  */
-public class RequiresValidator implements JSONValidator, Serializable {
+public class RequiresValidator extends AbstractJSONValidator implements Serializable {
 
     private static final long serialVersionUID = 2662078423654448119L;
-    private static final Logger LOG = LoggerFactory.getLogger(RequiresValidator.class);
 
     public static final String PROPERTY = "requires";
 
@@ -40,64 +43,63 @@ public class RequiresValidator implements JSONValidator, Serializable {
     private static final int MODE_OBJ = 2;
     private static final int MODE_ARRAY = 3;
 
-    private String requiredPropertyName;
-    protected List<String> requiredPropertyList;
-    private JacksonSchema schema;
-    private int mode;
-    protected String arrayModeError;
+    private final String requiredPropertyName;
+    protected final List<String> requiredPropertyList;
+    private final JacksonSchema schema;
+    private final int mode;
 
     public RequiresValidator(JsonNode requiresNode) {
-        schema = null;
-        mode = MODE_NONE;
-        requiredPropertyList = new ArrayList<String>();
+        this(requiresNode, new SchemaContext(null));
+    }
+
+    public RequiresValidator(JsonNode requiresNode, SchemaContext context) {
+        String name = null;
+        List<String> list = new ArrayList<String>();
+        JacksonSchema requiredSchema = null;
+        int m = MODE_NONE;
 
         if (requiresNode != null) {
             if (requiresNode.isTextual()) {
-                requiredPropertyName = requiresNode.getTextValue();
-                mode = MODE_STR;
+                name = requiresNode.getTextValue();
+                m = MODE_STR;
             } else {
 
                 if (requiresNode.isObject()) {
-                    schema = new JacksonSchema(requiresNode);
-                    mode = MODE_OBJ;
+                    requiredSchema = new JacksonSchema(context, requiresNode);
+                    m = MODE_OBJ;
                 } else {
 
                     if (requiresNode.isArray()) {
                         for (JsonNode n : requiresNode) {
-                            requiredPropertyList.add(n.getTextValue());
+                            list.add(n.getTextValue());
                         }
-                        mode = MODE_ARRAY;
+                        m = MODE_ARRAY;
                     }
                 }
             }
         }
-    }
 
-    @Override
-    public List<String> validate(JsonNode node, String at) {
-        LOG.debug("validate( " + node + ", " + at + ")");
-        return validate(node, null, at);
+        requiredPropertyName = name;
+        requiredPropertyList = Collections.unmodifiableList(list);
+        schema = requiredSchema;
+        mode = m;
     }
 
     @Override
-    public List<String> validate(JsonNode node, JsonNode parent, String at) {
-        LOG.debug("validate( " + node + ", " + parent + ", " + at + ")");
-        List<String> errors = new ArrayList<String>();
-
+    public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
         if (parent == null && mode != MODE_ARRAY) {
-            return errors;
+            return;
         } else {
 
             if (mode == MODE_STR) {
                 JsonNode requiredProperty = parent.get(requiredPropertyName);
                 if (requiredProperty == null || requiredProperty.isNull()) {
-                    errors.add(at + ": the presence of this property requires that " + requiredPropertyName
-                               + " also be present");
+                    errors.add(new ValidationMessage(PROPERTY, at, ErrorCode.REQUIRES, requiredPropertyName));
                 }
             } else {
 
                 if (mode == MODE_OBJ) {
-                    errors.addAll(schema.validate(node, at));
+                    schema.validate(node, null, at, errors);
                 } else {
 
                     if (mode == MODE_ARRAY) {
@@ -109,17 +111,64 @@ public class RequiresValidator implements JSONValidator, Serializable {
                                 requiredProperty = parent.get(p);
                             }
                             if (requiredProperty == null || requiredProperty.isNull()) {
-                                errors.add(at + ": the presence of this property requires that " + p
-                                           + " also be present");
+                                errors.add(new ValidationMessage(PROPERTY, at, ErrorCode.REQUIRES, p));
                             }
                         }
                     }
                 }
             }
         }
+    }
+
+    @Override
+    public boolean isValid(JsonNode node, JsonNode parent) {
+        if (parent == null && mode != MODE_ARRAY) {
+            return true;
+        }
+
+        if (mode == MODE_STR) {
+            return isPresent(parent.get(requiredPropertyName));
+        }
+
+        if (mode == MODE_OBJ) {
+            return schema.isValid(node, null);
+        }
+
+        if (mode == MODE_ARRAY) {
+            for (String p : requiredPropertyList) {
+                if (!isPresent(parent == null ? node.get(p) : parent.get(p))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPresent(JsonNode requiredProperty) {
+        return requiredProperty != null && !requiredProperty.isNull();
+    }
 
-        return errors;
+    /**
+     * @return the sibling properties which must be present, empty when a schema is required
+     */
+    public List<String> getRequiredProperties() {
+        if (mode == MODE_STR) {
+            return Collections.singletonList(requiredPropertyName);
+        }
+        return requiredPropertyList;
+    }
 
+    /**
+     * A list of properties is also checked on the node itself when it has no parent.
+     */
+    public boolean isPropertyList() {
+        return mode == MODE_ARRAY;
     }
 
+    /**
+     * @return the schema the node must match, or <code>null</code> when properties are required
+     */
+    public JacksonSchema getSchema() {
+        return schema;
+    }
 }
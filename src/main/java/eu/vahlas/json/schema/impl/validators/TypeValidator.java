@@ -17,68 +17,89 @@
 package eu.vahlas.json.schema.impl.validators;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
 
 import org.codehaus.jackson.JsonNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.ErrorCollector;
 import eu.vahlas.json.schema.TYPE;
-import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.SchemaContext;
 import eu.vahlas.json.schema.impl.TYPEFactory;
+import eu.vahlas.json.schema.impl.TypedValidator;
 
-public class TypeValidator implements JSONValidator, Serializable {
+public class TypeValidator extends AbstractJSONValidator implements TypedValidator, Serializable {
 
 	private static final long serialVersionUID = -637068450453946655L;
-	private static final Logger LOG = LoggerFactory.getLogger(TypeValidator.class);
 
 	public static final String PROPERTY = "type";
 
-	private TYPE schemaType;
-	private UnionTypeValidator unionTypeValidator;
+	private final TYPE schemaType;
+	private final UnionTypeValidator unionTypeValidator;
+	/** the bit set of the instance types matching a single type */
+	private final int acceptedTypes;
 
 	public TypeValidator(JsonNode schemaNode) {
+		this(schemaNode, new SchemaContext(null));
+	}
+
+	public TypeValidator(JsonNode schemaNode, SchemaContext context) {
 		schemaType = TYPEFactory.getType(schemaNode);
 
 		if ( schemaType == TYPE.UNION ) {
                         JsonNode unionProps = schemaNode.get(PROPERTY);
                         if (null == unionProps) {
-			  unionTypeValidator = new UnionTypeValidator(schemaNode);
+			  unionTypeValidator = new UnionTypeValidator(schemaNode, context);
                         } else {
-                          unionTypeValidator = new UnionTypeValidator(unionProps);
+                          unionTypeValidator = new UnionTypeValidator(unionProps, context);
                         }
+		} else {
+			unionTypeValidator = null;
 		}
+		acceptedTypes = TYPEFactory.getAcceptedTypes(schemaType);
 	}
 
 	@Override
-	public List<String> validate(JsonNode node, String at) {
-		LOG.debug("validate( " + node + ", " + at + ")");
-		return validate(node, null ,at);
-	}
-
-	@Override
-	public List<String> validate(JsonNode node, JsonNode parent, String at) {
-		LOG.debug("validate( " + node + ", " + parent + ", " + at + ")");
-		List<String> errors = new ArrayList<String>();
-
+	public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
 		if ( schemaType == TYPE.UNION) {
-			errors.addAll(unionTypeValidator.validate(node, parent, at));
-			return errors;
+			unionTypeValidator.validate(node, parent, at, errors);
+			return;
 		}
 
 		TYPE nodeType = TYPEFactory.getNodeType(node);
-		if ( nodeType != schemaType ) {
-			if ( schemaType == TYPE.ANY )
-				return errors;
+		if ( (acceptedTypes & TYPEFactory.bit(nodeType)) == 0 ) {
+			errors.add(new ValidationMessage(PROPERTY, at, ErrorCode.TYPE, nodeType, schemaType));
+		}
+	}
+
+	@Override
+	public boolean isValid(JsonNode node, JsonNode parent) {
+		if ( schemaType == TYPE.UNION )
+			return unionTypeValidator.isValid(node, parent);
 
-			if ( schemaType == TYPE.NUMBER && nodeType == TYPE.INTEGER )
-				return errors;
+		return (acceptedTypes & TYPEFactory.bit(TYPEFactory.getNodeType(node))) != 0;
+	}
 
-			errors.add(at + ": " + nodeType + " found, " + schemaType + " expected");
-		}
+	@Override
+	public int getTypes() {
+		return isUnion() ? unionTypeValidator.getTypes() : TYPEFactory.ALL_TYPES & ~acceptedTypes;
+	}
 
-		return errors;
+	@Override
+	public int getCost() {
+		return isUnion() ? unionTypeValidator.getCost() : CHEAP;
+	}
+
+	public boolean isUnion() {
+		return schemaType == TYPE.UNION;
 	}
 
+	/**
+	 * @return the validator of the union type, or <code>null</code> for a simple type
+	 */
+	public UnionTypeValidator getUnionTypeValidator() {
+		return unionTypeValidator;
+	}
 }
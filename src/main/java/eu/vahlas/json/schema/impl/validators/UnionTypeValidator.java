@@ -18,77 +18,143 @@ package eu.vahlas.json.schema.impl.validators;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.codehaus.jackson.JsonNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.ErrorCollector;
 import eu.vahlas.json.schema.JSONSchemaException;
 import eu.vahlas.json.schema.TYPE;
-import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
 import eu.vahlas.json.schema.impl.JacksonSchema;
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.impl.SchemaContext;
 import eu.vahlas.json.schema.impl.TYPEFactory;
+import eu.vahlas.json.schema.impl.TypedValidator;
 
-public class UnionTypeValidator implements JSONValidator, Serializable {
+/**
+ * Implements union types as described in the paragraph 5.1 of the JSON Schema
+ * specification.<br/>
+ * <br/>
+ * The branches are sorted by instance type when the schema is compiled: the
+ * simple type names are merged into a bit set of the accepted types, and each
+ * type gets the list of the schema branches which can match it. A node is thus
+ * answered by a bit test, or by probing (without collecting errors) only the
+ * schemas declaring its type.
+ */
+public class UnionTypeValidator extends AbstractJSONValidator implements TypedValidator, Serializable {
 
 	private static final long serialVersionUID = -7954619972059351060L;
-	private static final Logger LOG = LoggerFactory.getLogger(UnionTypeValidator.class);
 	
 	public static final String PROPERTY = "type";
 	
-	protected List<JSONValidator> schemas;
-	private String error;
+	private static final JacksonSchema[] NO_SCHEMAS = new JacksonSchema[0];
+	
+	protected final List<JSONValidator> schemas;
+	/** the instance types accepted by the simple type names of the union */
+	private final int accepted;
+	/** the schema branches to probe, by instance type */
+	private final JacksonSchema[][] candidates;
+	/** whether some schema branches have to be probed */
+	private final boolean probes;
+	private final String error;
 	
 	public UnionTypeValidator(JsonNode typeNode) {
-		schemas = new ArrayList<JSONValidator>();
+		this(typeNode, new SchemaContext(null));
+	}
+
+	public UnionTypeValidator(JsonNode typeNode, SchemaContext context) {
+		List<JSONValidator> branches = new ArrayList<JSONValidator>();
 		String sep = "";
-		error = "[";
+		String text = "[";
 		
 		if ( !typeNode.isArray() )
 			throw new  JSONSchemaException("Expected array for type property on Union Type Definition.");
 		
+		int types = 0;
+		List<List<JacksonSchema>> byType = new ArrayList<List<JacksonSchema>>();
+		for ( int i = 0; i < TYPE.values().length; i++ ) {
+			byType.add(new ArrayList<JacksonSchema>());
+		}
+		
 		for ( JsonNode n : typeNode ) {
 			TYPE t = TYPEFactory.getType(n);
-			error += sep + t;
+			text += sep + t;
 			sep = ", ";
 			
-			if ( n.isObject() )
-				schemas.add( new JacksonSchema(n) );
-			else
-				schemas.add( new TypeValidator(n) );
+			if ( n.isObject() ) {
+				JacksonSchema schema = new JacksonSchema(context, n);
+				branches.add( schema );
+				int matched = t == TYPE.UNION ? TYPEFactory.ALL_TYPES : TYPEFactory.getAcceptedTypes(t);
+				for ( TYPE nodeType : TYPE.values() ) {
+					if ( (matched & TYPEFactory.bit(nodeType)) != 0 )
+						byType.get(nodeType.ordinal()).add(schema);
+				}
+			} else {
+				branches.add( new TypeValidator(n, context) );
+				types |= TYPEFactory.getAcceptedTypes(t);
+			}
 		}
 		
-		error += "]";
-	}
-	
-	@Override
-	public List<String> validate(JsonNode node, String at) {
-		LOG.debug("validate( " + node + ", " + at + ")");
-		return validate(node, null, at);
+		schemas = Collections.unmodifiableList(branches);
+		accepted = types;
+		candidates = new JacksonSchema[byType.size()][];
+		boolean some = false;
+		for ( int i = 0; i < candidates.length; i++ ) {
+			List<JacksonSchema> l = byType.get(i);
+			// a type accepted by name needs no probe
+			candidates[i] = l.isEmpty() || (types & (1 << i)) != 0 ? NO_SCHEMAS : l.toArray(new JacksonSchema[l.size()]);
+			some |= candidates[i].length > 0;
+		}
+		probes = some;
+		error = text + "]";
 	}
-	
+
 	@Override
-	public List<String> validate(JsonNode node, JsonNode parent, String at) {
-		LOG.debug("validate( " + node + ", " + parent + ", " + at + ")");
+	public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
+		// the messages of the branches are not reported: probing is enough
 		TYPE nodeType = TYPEFactory.getNodeType(node);
-		
-		List<String> _return = new ArrayList<String>();
-		boolean valid = false;
-		
-		for ( JSONValidator schema : schemas ) {
-			List<String> errors = schema.validate(node, at);
-			if ( errors == null || errors.size() == 0 ) {
-				valid = true;
-				break;
-			}
+		if ( !isValid(node, nodeType) ) {
+			errors.add( new ValidationMessage(PROPERTY, at, ErrorCode.UNION_TYPE, nodeType, error) );
 		}
-		
-		if ( !valid ) {
-			_return.add( at + ": " + nodeType + " found, but " + error + " is required" );
+	}
+
+	@Override
+	public boolean isValid(JsonNode node, JsonNode parent) {
+		return isValid(node, TYPEFactory.getNodeType(node));
+	}
+
+	@Override
+	public int getTypes() {
+		return TYPEFactory.ALL_TYPES & ~accepted;
+	}
+
+	@Override
+	public int getCost() {
+		return probes ? NESTED : CHEAP;
+	}
+
+	/**
+	 * @return the schema branches to probe for a node of <code>type</code>, empty if the
+	 *         type is accepted by name or by no branch
+	 */
+	public List<JacksonSchema> getCandidates(TYPE type) {
+		return Collections.unmodifiableList(Arrays.asList(candidates[type.ordinal()]));
+	}
+
+	private boolean isValid(JsonNode node, TYPE nodeType) {
+		if ( (accepted & TYPEFactory.bit(nodeType)) != 0 )
+			return true;
+		for ( JacksonSchema schema : candidates[nodeType.ordinal()] ) {
+			if ( schema.isValid(node, null) )
+				return true;
 		}
-		
-		return _return;
+		return false;
 	}
 
 }
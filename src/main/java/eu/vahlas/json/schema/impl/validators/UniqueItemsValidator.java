@@ -17,61 +17,170 @@
 package eu.vahlas.json.schema.impl.validators;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
 
 import org.codehaus.jackson.JsonNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.TYPE;
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.TYPEFactory;
+import eu.vahlas.json.schema.impl.TypedValidator;
 
 /**
  * Implements "uniqueItems" validation on array nodes as described in 
  * the paragraph 5.13 of the JSON Schema specification.<br/>
  * <br/>
- * This implementation relies on the <code>equals</code> method implemented
- * on the <code>JsonNode</code> object.
+ * Items are compared as the values of an "enum": numbers by value
+ * (<code>1</code>, <code>1.0</code> and <code>1e0</code> are equal), other
+ * items with <code>JsonNode.equals</code>. The items are indexed in an open
+ * addressing table, and the check stops at the first item equal to an
+ * earlier one; the indices of both are reported. Arrays made only of
+ * integers, only of doubles or only of strings are indexed by their
+ * primitive value or text, without boxing; other items by their key, see
+ * <code>EnumValidator</code>.
  */
-public class UniqueItemsValidator implements JSONValidator, Serializable {
+public class UniqueItemsValidator extends AbstractJSONValidator implements TypedValidator, Serializable {
 
 	private static final long serialVersionUID = -2453061999914008143L;
-	private static final Logger LOG = LoggerFactory.getLogger(UniqueItemsValidator.class);
 	
 	public static final String PROPERTY = "uniqueItems";
+
+	private static final int LONGS = 0;
+	private static final int DOUBLES = 1;
+	private static final int STRINGS = 2;
+	private static final int ANY = 3;
 	
-	protected boolean unique = false;
+	protected final boolean unique;
 	
 	public UniqueItemsValidator(JsonNode uniqueItemsNode) {
-		if ( uniqueItemsNode.isBoolean() ) {
-			unique = uniqueItemsNode.getBooleanValue();
+		unique = uniqueItemsNode.isBoolean() && uniqueItemsNode.getBooleanValue();
+	}
+
+	@Override
+	public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
+		if ( unique && node.isArray() ) {
+			long duplicate = findDuplicate(node);
+			if ( duplicate >= 0 ) {
+				errors.add( new ValidationMessage(PROPERTY, at, ErrorCode.UNIQUE_ITEMS,
+						(int) (duplicate >>> 32), (int) duplicate) );
+			}
 		}
 	}
-	
+
 	@Override
-	public List<String> validate(JsonNode node, String at) {
-		LOG.debug("validate( " + node + ", " + at + ")");
-		return validate(node, null, at);
+	public boolean isValid(JsonNode node, JsonNode parent) {
+		return !unique || !node.isArray() || findDuplicate(node) < 0;
 	}
 
 	@Override
-	public List<String> validate(JsonNode node, JsonNode parent, String at) {
-		List<String> errors = new ArrayList<String>();
-		
-		if ( unique ) {
-			Set<JsonNode> set = new HashSet<JsonNode>();
-			for ( JsonNode n : node ) {
-				set.add(n);
+	public int getTypes() {
+		return TYPEFactory.bit(TYPE.ARRAY);
+	}
+
+	@Override
+	public int getCost() {
+		return SCAN;
+	}
+
+	/**
+	 * @return the index of the first item equal to an earlier one in the low
+	 *         32 bits and the index of the earlier one in the high 32 bits,
+	 *         <code>-1</code> if the items are unique
+	 */
+	static long findDuplicate(JsonNode array) {
+		int size = array.size();
+		if ( size < 2 )
+			return -1;
+
+		int kind = kind(array, size);
+		int capacity = Integer.highestOneBit(size * 2 - 1) << 1;
+		int mask = capacity - 1;
+		// index + 1 of the item stored in each slot, 0 when the slot is free
+		int[] slots = new int[capacity];
+
+		switch ( kind ) {
+		case LONGS:
+		case DOUBLES:
+			long[] values = new long[capacity];
+			for ( int i = 0; i < size; i++ ) {
+				JsonNode n = array.get(i);
+				long v = kind == LONGS ? n.getLongValue() : bits(n.getDoubleValue());
+				int h = mix((int) (v ^ (v >>> 32))) & mask;
+				while ( slots[h] != 0 ) {
+					if ( values[h] == v )
+						return pair(slots[h] - 1, i);
+					h = (h + 1) & mask;
+				}
+				values[h] = v;
+				slots[h] = i + 1;
+			}
+			return -1;
+
+		case STRINGS:
+			String[] texts = new String[capacity];
+			for ( int i = 0; i < size; i++ ) {
+				String t = array.get(i).getTextValue();
+				int h = mix(t.hashCode()) & mask;
+				while ( slots[h] != 0 ) {
+					if ( texts[h].equals(t) )
+						return pair(slots[h] - 1, i);
+					h = (h + 1) & mask;
+				}
+				texts[h] = t;
+				slots[h] = i + 1;
 			}
-			
-			if ( set.size() < node.size()) {
-				errors.add( at + ": the items in the array must be unique");
+			return -1;
+
+		default:
+			Object[] keys = new Object[capacity];
+			for ( int i = 0; i < size; i++ ) {
+				Object key = EnumValidator.key(array.get(i));
+				int h = mix(key.hashCode()) & mask;
+				while ( slots[h] != 0 ) {
+					if ( keys[h].equals(key) )
+						return pair(slots[h] - 1, i);
+					h = (h + 1) & mask;
+				}
+				keys[h] = key;
+				slots[h] = i + 1;
 			}
+			return -1;
+		}
+	}
+
+	// the common type of the items, as far as the specialized tables go
+	private static int kind(JsonNode array, int size) {
+		JsonNode first = array.get(0);
+		int kind = first.isInt() || first.isLong() ? LONGS
+				: first.isDouble() ? DOUBLES
+				: first.isTextual() ? STRINGS
+				: ANY;
+		for ( int i = 1; i < size && kind != ANY; i++ ) {
+			JsonNode n = array.get(i);
+			boolean same = kind == LONGS ? n.isInt() || n.isLong()
+					: kind == DOUBLES ? n.isDouble()
+					: n.isTextual();
+			if ( !same )
+				kind = ANY;
 		}
-		
-		return errors;
+		return kind;
+	}
+
+	// 0.0 and -0.0 are equal doubles
+	private static long bits(double d) {
+		return Double.doubleToLongBits(d == 0 ? 0.0 : d);
+	}
+
+	private static int mix(int h) {
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private static long pair(int earlier, int later) {
+		return ((long) earlier << 32) | later;
 	}
 
 }
@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import eu.vahlas.json.schema.impl.JacksonSchemaProvider;
+
+public class ErrorCollectorTest {
+	private final String schema =
+			"{\"type\": \"array\", \"items\": {\"type\": \"integer\", \"maximum\": 10}, \"maxItems\": 3}";
+
+	/**
+	 * Aggregates the errors by code without ever rendering a message.
+	 */
+	private static class CountingCollector implements ErrorCollector {
+		final Map<ErrorCode, Integer> counts = new EnumMap<ErrorCode, Integer>(ErrorCode.class);
+
+		@Override
+		public void add(ValidationMessage message) {
+			Integer c = counts.get(message.getCode());
+			counts.put(message.getCode(), c == null ? 1 : c + 1);
+		}
+	}
+
+	@Test
+	public void testCustomCollector() throws Exception {
+		JSONSchema s = new JacksonSchemaProvider(new ObjectMapper()).getSchema(schema);
+		CountingCollector errors = new CountingCollector();
+		s.validate("[1, 20, 2.5, 30]", errors);
+
+		assertThat(errors.counts.get(ErrorCode.MAXIMUM), is(2));
+		assertThat(errors.counts.get(ErrorCode.TYPE), is(1));
+		assertThat(errors.counts.get(ErrorCode.MAX_ITEMS), is(1));
+	}
+
+	@Test
+	public void testListCollector() throws Exception {
+		JSONSchema s = new JacksonSchemaProvider(new ObjectMapper()).getSchema(schema);
+
+		ListErrorCollector valid = new ListErrorCollector();
+		s.validate("[1, 2]", valid);
+		assertThat(valid.isEmpty(), is(true));
+		assertThat(valid.getMessages().size(), is(0));
+
+		ListErrorCollector invalid = new ListErrorCollector();
+		s.validate("[1, 20]", invalid);
+		assertThat(invalid.size(), is(1));
+		assertThat(invalid.getErrors().get(0), is("$[1]: must have a maximum value of 10"));
+	}
+}
@@ -16,6 +16,7 @@
 package eu.vahlas.json.schema;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.is;
 
 import java.io.InputStream;
@@ -51,25 +52,26 @@ public class JSONSchemaTest {
 		InputStream instanceIS = getClass().getResourceAsStream("/card.json");
 		List<String> errors = schema.validate(instanceIS);
 
-		assertThat(errors.size(), is(10));
+		assertThat(errors.size(), is(7));
 		// YES THIS IS A REF !!!!
                 // commented-out the line below because the good folks at json-schema.org changed geo.longitude
                 // not to be required...
 		//assertThat(errors.get(0), is("$.geo.longitude: is missing and it is not optional"));
 
-                // Important: only "date" and "date-time" formats are supported for the moment
-                assertThat(errors.get(0), is("$.logo: unknown: unknown or unimplemented format type"));
-                assertThat(errors.get(1), is("$.tel.value: unknown: unknown or unimplemented format type"));
-                assertThat(errors.get(2), is("$.foo: integer found, but [string, null] is required"));
-                assertThat(errors.get(3), is("$.photo: unknown: unknown or unimplemented format type"));
-                assertThat(errors.get(4), is("$.url: unknown: unknown or unimplemented format type"));
-                assertThat(errors.get(5), is("$.email: string found, object expected"));
-                assertThat(errors.get(6), is("$.email.value: is missing and it is not optional"));
-                assertThat(errors.get(7), is("$.email.type: is missing and it is not optional"));
-                // $.email.value format validation is skipped because type validations fail
-                // TODO: (low priority) if node.isTextual, then apply fmt validations
-                // and get some meaningful error
-                assertThat(errors.get(8), is("$.sound: unknown: unknown or unimplemented format type"));
-                assertThat(errors.get(9), is("$.town: the presence of this property requires that state also be present"));
+                // The order of the errors depends on the order of the properties in the schema
+                // "url", "image" and "attachment" are not formats of the specification
+                assertThat(errors, hasItems(
+                        "$.logo: unknown: unknown or unimplemented format type",
+                        "$.foo: integer found, but [string, null] is required",
+                        "$.photo: unknown: unknown or unimplemented format type",
+                        "$.url: unknown: unknown or unimplemented format type",
+                        // "properties" are only checked on objects: the type error is the only one
+                        "$.email: string found, object expected",
+                        // $.email.value format validation is skipped because type validations fail
+                        // TODO: (low priority) if node.isTextual, then apply fmt validations
+                        // and get some meaningful error
+                        "$.sound: unknown: unknown or unimplemented format type",
+                        "$.town: the presence of this property requires that state also be present"));
+                // $.tel.value is a valid phone number
 	}
 }
@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import eu.vahlas.json.schema.impl.FormatRegistry;
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.JacksonSchema;
+import eu.vahlas.json.schema.impl.KeywordRegistry;
+import eu.vahlas.json.schema.impl.Parallelism;
+import eu.vahlas.json.schema.impl.SchemaContext;
+import eu.vahlas.json.schema.impl.resolvers.URLSchemaResolver;
+
+public class ValidationListenerTest {
+	private final String schema = "{\"type\": \"array\", \"items\": {\"type\": \"integer\", \"maximum\": 10}}";
+
+	/**
+	 * Records the events as text.
+	 */
+	private static class RecordingListener implements ValidationListener {
+		final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+		@Override
+		public void enter(String keyword, JsonNode node, JSONPath at) {
+			events.add("enter " + keyword + " " + at);
+		}
+
+		@Override
+		public void exit(String keyword, JsonNode node, JSONPath at, int errors) {
+			events.add("exit " + keyword + " " + at + " " + errors);
+		}
+
+		@Override
+		public void error(ValidationMessage message) {
+			events.add("error " + message);
+		}
+	}
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void testEvents() throws Exception {
+		RecordingListener listener = new RecordingListener();
+		JacksonSchema s = schema(listener, null);
+		List<String> errors = s.validate("[1, 20]");
+
+		assertThat(errors, is(Arrays.asList("$[1]: must have a maximum value of 10")));
+		assertThat(listener.events, is(Arrays.asList(
+				"enter items $",
+				"enter maximum $[0]",
+				"exit maximum $[0] 0",
+				"enter maximum $[1]",
+				"error $[1]: must have a maximum value of 10",
+				"exit maximum $[1] 1",
+				"exit items $ 1")));
+	}
+
+	@Test
+	public void testValidInstance() throws Exception {
+		RecordingListener listener = new RecordingListener();
+		assertThat(schema(listener, null).validate("[1, 2]").isEmpty(), is(true));
+		assertThat(listener.events, is(Arrays.asList(
+				"enter items $",
+				"enter maximum $[0]",
+				"exit maximum $[0] 0",
+				"enter maximum $[1]",
+				"exit maximum $[1] 0",
+				"exit items $ 0")));
+	}
+
+	@Test
+	public void testPropertyWithRequires() throws Exception {
+		RecordingListener listener = new RecordingListener();
+		JacksonSchema s = schema("{\"properties\": {\"a\": {\"maximum\": 10, \"requires\": \"b\"}, " +
+				"\"b\": {\"type\": \"string\", \"optional\": true}}}", listener, null);
+		List<String> errors = s.validate("{\"a\": 20}");
+
+		assertThat(errors.size(), is(2));
+		assertThat(listener.events, is(Arrays.asList(
+				"enter properties $",
+				"enter maximum $.a",
+				"error " + errors.get(0),
+				"exit maximum $.a 1",
+				"error " + errors.get(1),
+				"exit properties $ 2")));
+	}
+
+	@Test
+	public void testIsValidIsNotObserved() throws Exception {
+		RecordingListener listener = new RecordingListener();
+		assertThat(schema(listener, null).isValid("[1, 20]"), is(false));
+		assertThat(listener.events.isEmpty(), is(true));
+	}
+
+	@Test
+	public void testParallelErrorsAreReportedOnce() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			RecordingListener listener = new RecordingListener();
+			JacksonSchema s = schema(listener, new Parallelism(pool, 10, 4));
+			StringBuilder json = new StringBuilder("[");
+			for ( int i = 0; i < 100; i++ ) {
+				json.append(i == 0 ? "" : ", ").append(i % 10 == 0 ? 20 : 1);
+			}
+			List<String> errors = s.validate(json.append("]").toString());
+
+			int reported = 0;
+			for ( String event : listener.events ) {
+				if ( event.startsWith("error ") )
+					reported++;
+			}
+			assertThat(errors.size(), is(10));
+			assertThat(reported, is(10));
+			assertThat(listener.events.get(listener.events.size() - 1), is("exit items $ 10"));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private JacksonSchema schema(ValidationListener listener, Parallelism parallelism) throws Exception {
+		return schema(schema, listener, parallelism);
+	}
+
+	private JacksonSchema schema(String json, ValidationListener listener, Parallelism parallelism) throws Exception {
+		SchemaContext context = new SchemaContext(mapper, new URLSchemaResolver(), KeywordRegistry.getDefault(),
+				FormatRegistry.getDefault(), parallelism, listener);
+		return new JacksonSchema(context, mapper.readTree(json));
+	}
+}
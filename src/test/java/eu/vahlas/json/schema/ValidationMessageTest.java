@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.List;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.JacksonSchemaProvider;
+
+public class ValidationMessageTest {
+	private final String schema =
+			"{" +
+				"\"type\": \"object\"," +
+				"\"properties\": {" +
+					"\"name\": {\"type\": \"string\", \"maxLength\": 3}," +
+					"\"tags\": {\"type\": \"array\", \"items\": {\"type\": \"string\", \"pattern\": \"^[a-z]+$\"}}" +
+				"}" +
+			"}";
+
+	@Test
+	public void testStructuredMessages() throws Exception {
+		JSONSchema s = new JacksonSchemaProvider(new ObjectMapper()).getSchema(schema);
+		List<ValidationMessage> messages = s.validateMessages("{\"name\": \"abcd\", \"tags\": [\"ok\", \"KO\"]}");
+
+		assertThat(messages.size(), is(2));
+		for ( ValidationMessage m : messages ) {
+			if ( m.getCode() == ErrorCode.MAX_LENGTH ) {
+				assertThat(m.getKeyword(), is("maxLength"));
+				assertThat(m.getPath().toPointer(), is("/name"));
+				assertThat(m.getArgument(0), is((Object) 3));
+				assertThat(m.getMessage(), is("$.name: may only be 3 characters long"));
+			} else {
+				assertThat(m.getCode(), is(ErrorCode.PATTERN));
+				assertThat(m.getKeyword(), is("pattern"));
+				assertThat(m.getPath(), is(JSONPath.ROOT.property("tags").index(1)));
+				assertThat(m.toString(), is("$.tags[1]: does not match the regex pattern ^[a-z]+$"));
+			}
+		}
+	}
+
+	@Test
+	public void testTemplates() throws Exception {
+		JSONPath at = JSONPath.ROOT.property("a");
+		assertThat(new ValidationMessage("type", at, ErrorCode.TYPE, TYPE.STRING, TYPE.OBJECT).getMessage(),
+				is("$.a: string found, object expected"));
+		assertThat(new ValidationMessage("uniqueItems", at, ErrorCode.UNIQUE_ITEMS, 0, 2).getMessage(),
+				is("$.a: the items in the array must be unique, [2] is equal to [0]"));
+		assertThat(ErrorCode.PATTERN_TYPE.format(new StringBuilder(), "boolean", "x+").toString(),
+				is("cannot match a boolean against a regex pattern (x+)"));
+	}
+}
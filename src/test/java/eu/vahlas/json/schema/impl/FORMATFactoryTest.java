@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import eu.vahlas.json.schema.FORMAT;
+
+public class FORMATFactoryTest {
+
+	@Test
+	public void testDate() {
+		assertThat(FORMATFactory.isDate("2012-04-09"), is(true));
+		assertThat(FORMATFactory.isDate("2012-02-29"), is(true));
+		assertThat(FORMATFactory.isDate("2000-02-29"), is(true));
+		assertThat(FORMATFactory.isDate("1900-02-29"), is(false));
+		assertThat(FORMATFactory.isDate("2011-02-29"), is(false));
+		assertThat(FORMATFactory.isDate("2012-04-31"), is(false));
+		assertThat(FORMATFactory.isDate("2012-13-01"), is(false));
+		assertThat(FORMATFactory.isDate("2012-00-01"), is(false));
+		assertThat(FORMATFactory.isDate("2012-4-9"), is(false));
+		assertThat(FORMATFactory.isDate("2012/04/09"), is(false));
+		assertThat(FORMATFactory.isDate("2012-04-09T09:23:42Z"), is(false));
+		assertThat(FORMATFactory.isDate(""), is(false));
+		assertThat(FORMATFactory.isDate(null), is(false));
+	}
+
+	@Test
+	public void testDateTime() {
+		assertThat(FORMATFactory.isDateTime("2012-04-09T09:23:42Z"), is(true));
+		assertThat(FORMATFactory.isDateTime("2012-04-09t09:23:42z"), is(true));
+		assertThat(FORMATFactory.isDateTime("2012-04-09T09:23:42.123456Z"), is(true));
+		assertThat(FORMATFactory.isDateTime("2012-04-09T09:23:42+02:00"), is(true));
+		assertThat(FORMATFactory.isDateTime("2012-04-09T23:59:60-05:30"), is(true));
+		assertThat(FORMATFactory.isDateTime("2012-04-09T24:00:00Z"), is(false));
+		assertThat(FORMATFactory.isDateTime("2012-04-09T09:60:00Z"), is(false));
+		assertThat(FORMATFactory.isDateTime("2012-04-09T09:23:42"), is(false));
+		assertThat(FORMATFactory.isDateTime("2012-04-09T09:23:42.Z"), is(false));
+		assertThat(FORMATFactory.isDateTime("2012-04-09T09:23:42.123"), is(false));
+		assertThat(FORMATFactory.isDateTime("2012-04-09T09:23:42+0200"), is(false));
+		assertThat(FORMATFactory.isDateTime("2012-04-09T09:23:42+02:00x"), is(false));
+		assertThat(FORMATFactory.isDateTime("2012-04-09T09:23:42ZZ"), is(false));
+		assertThat(FORMATFactory.isDateTime("2012-04-09 09:23:42Z"), is(false));
+		assertThat(FORMATFactory.isDateTime("2012-02-30T09:23:42Z"), is(false));
+		assertThat(FORMATFactory.isDateTime("2012-04-09"), is(false));
+	}
+
+	@Test
+	public void testMatchesOnlyTheRequestedFormat() throws Exception {
+		ObjectMapper mapper = new ObjectMapper();
+		assertThat(FORMATFactory.matches(mapper.readTree("\"2012-04-09\""), FORMAT.DATE), is(true));
+		assertThat(FORMATFactory.matches(mapper.readTree("\"2012-04-09\""), FORMAT.DATE_TIME), is(false));
+		assertThat(FORMATFactory.matches(mapper.readTree("\"2012-04-09T09:23:42Z\""), FORMAT.DATE), is(false));
+		assertThat(FORMATFactory.matches(mapper.readTree("\"2012-04-09T09:23:42Z\""), FORMAT.DATE_TIME), is(true));
+		assertThat(FORMATFactory.matches(mapper.readTree("20120409"), FORMAT.DATE), is(false));
+		assertThat(FORMATFactory.matches(mapper.readTree("\"2012-04-09\""), FORMAT.UNKNOWN), is(false));
+		assertThat(FORMATFactory.matches(null, FORMAT.DATE), is(false));
+		assertThat(FORMATFactory.getNodeFormat(mapper.readTree("\"2012-04-09\"")), is(FORMAT.DATE));
+		assertThat(FORMATFactory.getNodeFormat(mapper.readTree("\"2012-04-09T09:23:42Z\"")), is(FORMAT.DATE_TIME));
+		assertThat(FORMATFactory.getNodeFormat(mapper.readTree("\"nonsense\"")), is(FORMAT.UNKNOWN));
+	}
+
+	@Test
+	public void testTime() {
+		assertThat(FORMATFactory.isTime("09:23:42"), is(true));
+		assertThat(FORMATFactory.isTime("23:59:59"), is(true));
+		assertThat(FORMATFactory.isTime("24:00:00"), is(false));
+		assertThat(FORMATFactory.isTime("9:23:42"), is(false));
+		assertThat(FORMATFactory.isTime("09:23"), is(false));
+	}
+
+	@Test
+	public void testColor() {
+		assertThat(FORMATFactory.isColor("#f00"), is(true));
+		assertThat(FORMATFactory.isColor("#FF0000"), is(true));
+		assertThat(FORMATFactory.isColor("red"), is(true));
+		assertThat(FORMATFactory.isColor("Fuchsia"), is(true));
+		assertThat(FORMATFactory.isColor("rgb(255, 0, 12)"), is(true));
+		assertThat(FORMATFactory.isColor("rgb(100%,0%,50%)"), is(true));
+		assertThat(FORMATFactory.isColor("rgb(256, 0, 0)"), is(false));
+		assertThat(FORMATFactory.isColor("rgb(10%, 0, 0)"), is(false));
+		assertThat(FORMATFactory.isColor("#ff00"), is(false));
+		assertThat(FORMATFactory.isColor("#gg0000"), is(false));
+		assertThat(FORMATFactory.isColor("redd"), is(false));
+	}
+
+	@Test
+	public void testStyle() {
+		assertThat(FORMATFactory.isStyle("color: red"), is(true));
+		assertThat(FORMATFactory.isStyle("color: red; -moz-border-radius: 3px;"), is(true));
+		assertThat(FORMATFactory.isStyle("color red"), is(false));
+		assertThat(FORMATFactory.isStyle("color:"), is(false));
+		assertThat(FORMATFactory.isStyle(""), is(false));
+	}
+
+	@Test
+	public void testPhone() {
+		assertThat(FORMATFactory.isPhone("555-555-5555"), is(true));
+		assertThat(FORMATFactory.isPhone("+44 (20) 7946 0958"), is(true));
+		assertThat(FORMATFactory.isPhone("+33.1.23.45.67.89"), is(true));
+		assertThat(FORMATFactory.isPhone("555--5555"), is(false));
+		assertThat(FORMATFactory.isPhone("(20 7946"), is(false));
+		assertThat(FORMATFactory.isPhone("call me"), is(false));
+		assertThat(FORMATFactory.isPhone("1234567890123456"), is(false));
+		assertThat(FORMATFactory.isPhone("+"), is(false));
+	}
+
+	@Test
+	public void testUri() {
+		assertThat(FORMATFactory.isUri("http://nico.vahlas.eu/a%20b?x=1#top"), is(true));
+		assertThat(FORMATFactory.isUri("urn:isbn:0451450523"), is(true));
+		assertThat(FORMATFactory.isUri("mailto:nico@vahlas.eu"), is(true));
+		assertThat(FORMATFactory.isUri("nico.vahlas.eu"), is(false));
+		assertThat(FORMATFactory.isUri("http://a b"), is(false));
+		assertThat(FORMATFactory.isUri("http://a%2"), is(false));
+		assertThat(FORMATFactory.isUri("1http://a"), is(false));
+	}
+
+	@Test
+	public void testEmailAndHostName() {
+		assertThat(FORMATFactory.isEmail("nico@vahlas.eu"), is(true));
+		assertThat(FORMATFactory.isEmail("first.last+tag@sub.example.com"), is(true));
+		assertThat(FORMATFactory.isEmail("nico@localhost"), is(true));
+		assertThat(FORMATFactory.isEmail("@vahlas.eu"), is(false));
+		assertThat(FORMATFactory.isEmail("nico.@vahlas.eu"), is(false));
+		assertThat(FORMATFactory.isEmail("ni..co@vahlas.eu"), is(false));
+		assertThat(FORMATFactory.isEmail("nico@-vahlas.eu"), is(false));
+		assertThat(FORMATFactory.isEmail("nico vahlas@vahlas.eu"), is(false));
+		assertThat(FORMATFactory.isEmail("nico"), is(false));
+
+		String h = "vahlas.eu";
+		assertThat(FORMATFactory.isHostName(h, 0, h.length()), is(true));
+		h = "a-b.c1.example";
+		assertThat(FORMATFactory.isHostName(h, 0, h.length()), is(true));
+		h = "a..b";
+		assertThat(FORMATFactory.isHostName(h, 0, h.length()), is(false));
+		h = "a-.b";
+		assertThat(FORMATFactory.isHostName(h, 0, h.length()), is(false));
+		h = "a_b.c";
+		assertThat(FORMATFactory.isHostName(h, 0, h.length()), is(false));
+	}
+
+	@Test
+	public void testIpAddresses() {
+		assertThat(FORMATFactory.isIpAddress("192.168.0.1"), is(true));
+		assertThat(FORMATFactory.isIpAddress("0.0.0.0"), is(true));
+		assertThat(FORMATFactory.isIpAddress("255.255.255.255"), is(true));
+		assertThat(FORMATFactory.isIpAddress("256.1.1.1"), is(false));
+		assertThat(FORMATFactory.isIpAddress("01.1.1.1"), is(false));
+		assertThat(FORMATFactory.isIpAddress("1.1.1"), is(false));
+		assertThat(FORMATFactory.isIpAddress("1.1.1.1.1"), is(false));
+
+		assertThat(FORMATFactory.isIpv6("2001:0db8:85a3:0000:0000:8a2e:0370:7334"), is(true));
+		assertThat(FORMATFactory.isIpv6("2001:db8::8a2e:370:7334"), is(true));
+		assertThat(FORMATFactory.isIpv6("::1"), is(true));
+		assertThat(FORMATFactory.isIpv6("::"), is(true));
+		assertThat(FORMATFactory.isIpv6("fe80::"), is(true));
+		assertThat(FORMATFactory.isIpv6("::ffff:192.168.0.1"), is(true));
+		assertThat(FORMATFactory.isIpv6("1:2:3:4:5:6:7"), is(false));
+		assertThat(FORMATFactory.isIpv6("1:2:3:4:5:6:7:8:9"), is(false));
+		assertThat(FORMATFactory.isIpv6("1::2::3"), is(false));
+		assertThat(FORMATFactory.isIpv6("12345::"), is(false));
+		assertThat(FORMATFactory.isIpv6("1:2:3:4:5:6:7:"), is(false));
+		assertThat(FORMATFactory.isIpv6(":1:2"), is(false));
+		assertThat(FORMATFactory.isIpv6("g::1"), is(false));
+	}
+
+	@Test
+	public void testOtherFormats() throws Exception {
+		ObjectMapper mapper = new ObjectMapper();
+		assertThat(FORMATFactory.matches(mapper.readTree("1318353825123"), FORMAT.UTC_MILLISEC), is(true));
+		assertThat(FORMATFactory.matches(mapper.readTree("\"1318353825123\""), FORMAT.UTC_MILLISEC), is(false));
+		assertThat(FORMATFactory.matches(mapper.readTree("\"^[a-z]+$\""), FORMAT.REGEX), is(true));
+		assertThat(FORMATFactory.matches(mapper.readTree("\"[a-z\""), FORMAT.REGEX), is(false));
+		assertThat(FORMATFactory.matches(mapper.readTree("\"GR-17124\""), FORMAT.POSTAL_CODE), is(true));
+		assertThat(FORMATFactory.matches(mapper.readTree("17124"), FORMAT.POSTAL_CODE), is(false));
+		assertThat(FORMATFactory.forName("ip-address"), is(FORMAT.IP_ADDRESS));
+		assertThat(FORMATFactory.forName("unknown"), is(FORMAT.UNKNOWN));
+		assertThat(FORMATFactory.forName("image"), is(FORMAT.UNKNOWN));
+	}
+
+}
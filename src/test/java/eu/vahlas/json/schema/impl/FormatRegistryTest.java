@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.List;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import eu.vahlas.json.schema.impl.resolvers.URLSchemaResolver;
+
+public class FormatRegistryTest {
+
+	private ObjectMapper mapper = new ObjectMapper();
+
+	/**
+	 * Custom format used by the tests: an even integer.
+	 */
+	private static class EvenChecker implements FormatChecker {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public boolean check(JsonNode value) {
+			return value.isIntegralNumber() && value.getLongValue() % 2 == 0;
+		}
+	}
+
+	private JacksonSchema schema(String json, FormatRegistry formats) throws Exception {
+		SchemaContext context = new SchemaContext(mapper, new URLSchemaResolver(), KeywordRegistry.getDefault(), formats, null);
+		return new JacksonSchema(context, mapper.readTree(json));
+	}
+
+	@Test
+	public void testBuiltinFormats() throws Exception {
+		JacksonSchema s = schema("{\"properties\": {"
+				+ "\"ip\": {\"type\": \"string\", \"format\": \"ip-address\"},"
+				+ "\"mail\": {\"type\": \"string\", \"format\": \"email\"},"
+				+ "\"home\": {\"type\": \"string\", \"format\": \"uri\"}}}", FormatRegistry.getDefault());
+
+		assertThat(s.validate("{\"ip\": \"10.0.0.1\", \"mail\": \"nico@vahlas.eu\", \"home\": \"http://nico.vahlas.eu\"}").isEmpty(), is(true));
+		List<String> errors = s.validate("{\"ip\": \"10.0.0.256\", \"mail\": \"nico@vahlas.eu\", \"home\": \"http://nico.vahlas.eu\"}");
+		assertThat(errors.size(), is(1));
+		assertThat(errors.get(0), is("$.ip: incorrect format, ip-address expected"));
+	}
+
+	@Test
+	public void testCustomFormat() throws Exception {
+		FormatRegistry formats = new FormatRegistry().register("even", new EvenChecker());
+		assertThat(formats.contains("date"), is(true));
+
+		JacksonSchema s = schema("{\"format\": \"even\"}", formats);
+		assertThat(s.isValid("42"), is(true));
+		assertThat(s.validate("43").get(0), is("$: incorrect format, even expected"));
+
+		// unknown to the default registry
+		s = schema("{\"format\": \"even\"}", FormatRegistry.getDefault());
+		assertThat(s.validate("42").get(0), is("$: unknown: unknown or unimplemented format type"));
+	}
+
+	@Test
+	public void testReplaceBuiltin() throws Exception {
+		FormatRegistry formats = new FormatRegistry().register("date", new EvenChecker());
+		assertThat(schema("{\"format\": \"date\"}", formats).isValid("2"), is(true));
+		assertThat(schema("{\"format\": \"date\"}", FormatRegistry.getDefault()).isValid("2"), is(false));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testDefaultIsFrozen() {
+		FormatRegistry.getDefault().register("even", new EvenChecker());
+	}
+
+	@Test
+	public void testUnknown() {
+		assertThat(FormatRegistry.getDefault().get("image"), is(nullValue()));
+		assertThat(FormatRegistry.getDefault().get(null), is(nullValue()));
+	}
+
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.List;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+public class JSONPathTest {
+
+	@Test
+	public void testRendering() throws Exception {
+		JSONPath path = JSONPath.ROOT.property("a").property("b").index(3);
+		assertThat(path.toString(), is("$.a.b[3]"));
+		assertThat(path.toPointer(), is("/a/b/3"));
+		assertThat(path.depth(), is(3));
+		assertThat(JSONPath.ROOT.toString(), is("$"));
+		assertThat(JSONPath.ROOT.toPointer(), is(""));
+	}
+
+	@Test
+	public void testPointerEscaping() throws Exception {
+		assertThat(JSONPath.ROOT.property("a/b").property("m~n").toPointer(), is("/a~1b/m~0n"));
+	}
+
+	@Test
+	public void testStringAdapter() throws Exception {
+		assertThat(JSONPath.of("$"), is(sameInstance(JSONPath.ROOT)));
+		assertThat(JSONPath.of("$.p1").index(0).toString(), is("$.p1[0]"));
+	}
+
+	@Test
+	public void testEquality() throws Exception {
+		JSONPath p1 = JSONPath.ROOT.property("a").index(1);
+		JSONPath p2 = JSONPath.ROOT.property("a").index(1);
+		assertThat(p1, is(p2));
+		assertThat(p1.hashCode(), is(p2.hashCode()));
+		assertThat(p1, is(not(JSONPath.ROOT.property("a").index(2))));
+	}
+
+	@Test
+	public void testErrorsAreRenderedFromThePath() throws Exception {
+		ObjectMapper mapper = new ObjectMapper();
+		JacksonSchema schema = new JacksonSchema(mapper, mapper.readTree(
+				"{\"properties\": {\"a\": {\"items\": {\"type\": \"string\"}}}}"));
+		List<String> errors = schema.validate(mapper.readTree("{\"a\": [\"x\", 2]}"), null, JSONPath.ROOT);
+		assertThat(errors.size(), is(1));
+		assertThat(errors.get(0), is("$.a[1]: integer found, string expected"));
+	}
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.node.ArrayNode;
+import org.codehaus.jackson.node.ObjectNode;
+import org.junit.Test;
+
+import eu.vahlas.json.schema.ListErrorCollector;
+
+/**
+ * Validates concurrently against one shared schema and checks every result
+ * against a single-threaded run.
+ */
+public class JacksonSchemaConcurrencyTest {
+
+	private static final int THREADS = 16;
+	private static final int ROUNDS = 200;
+
+	private static final String SCHEMA =
+			"{\"type\": \"object\", \"additionalProperties\": false, \"properties\": {"
+			+ "\"id\": {\"type\": \"integer\", \"minimum\": 1, \"maximum\": 1000, \"divisibleBy\": 1},"
+			+ "\"name\": {\"type\": \"string\", \"minLength\": 2, \"maxLength\": 10, \"pattern\": \"^[a-z]+$\"},"
+			+ "\"kind\": {\"enum\": [\"a\", \"b\", {\"c\": [1]}], \"optional\": true},"
+			+ "\"value\": {\"type\": [\"string\", \"number\", {\"type\": \"object\", \"properties\": {\"v\": {\"type\": \"boolean\"}}}], \"optional\": true},"
+			+ "\"tags\": {\"type\": \"array\", \"items\": {\"type\": \"string\"}, \"minItems\": 1, \"maxItems\": 3, \"uniqueItems\": true, \"optional\": true},"
+			+ "\"city\": {\"type\": \"string\", \"requires\": \"zip\", \"optional\": true},"
+			+ "\"zip\": {\"type\": \"string\", \"format\": \"date\", \"disallow\": \"null\", \"optional\": true}"
+			+ "}}";
+
+	private static final String[] INSTANCES = {
+		"{\"id\": 1, \"name\": \"abc\"}",
+		"{\"id\": 2000, \"name\": \"ABC\"}",
+		"{\"id\": 3, \"name\": \"x\", \"kind\": \"z\"}",
+		"{\"id\": 4, \"name\": \"abc\", \"kind\": {\"c\": [1]}, \"value\": {\"v\": true}}",
+		"{\"id\": 5, \"name\": \"abcdefghijkl\", \"value\": [1]}",
+		"{\"id\": 6, \"name\": \"abc\", \"tags\": [\"a\", \"a\", \"b\", \"c\"]}",
+		"{\"id\": 7, \"name\": \"abc\", \"tags\": [1]}",
+		"{\"id\": 8, \"name\": \"abc\", \"city\": \"x\"}",
+		"{\"id\": 9, \"name\": \"abc\", \"city\": \"x\", \"zip\": \"2010-13-45\"}",
+		"{\"id\": 10, \"extra\": true}",
+		"[1, 2]"
+	};
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void testSharedSchemaMatchesSingleThreadedRun() throws Exception {
+		final JacksonSchema schema = new JacksonSchema(mapper, mapper.readTree(SCHEMA));
+
+		final List<List<String>> expected = new ArrayList<List<String>>();
+		final List<Boolean> expectedValid = new ArrayList<Boolean>();
+		for ( String instance : INSTANCES ) {
+			expected.add(schema.validate(instance));
+			expectedValid.add(schema.isValid(instance));
+		}
+		assertThat(expected.get(0).isEmpty(), is(true));
+		assertThat(expected.get(1).isEmpty(), is(false));
+
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		final CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+			for ( int t = 0; t < THREADS; t++ ) {
+				final int offset = t;
+				futures.add(pool.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+						start.await();
+						int mismatches = 0;
+						for ( int r = 0; r < ROUNDS; r++ ) {
+							int i = (r + offset) % INSTANCES.length;
+							String instance = INSTANCES[i];
+							if ( !schema.validate(instance).equals(expected.get(i)) )
+								mismatches++;
+							if ( schema.isValid(instance) != expectedValid.get(i).booleanValue() )
+								mismatches++;
+							ListErrorCollector streamed = new ListErrorCollector();
+							schema.validateStream(new StringReader(instance), streamed);
+							if ( streamed.isEmpty() != expected.get(i).isEmpty() )
+								mismatches++;
+						}
+						return mismatches;
+					}
+				}));
+			}
+			start.countDown();
+			for ( Future<Integer> f : futures ) {
+				assertThat(f.get(), is(0));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testSchemaTreeChangesDoNotLeakIntoCompiledSchema() throws Exception {
+		JsonNode tree = mapper.readTree("{\"enum\": [{\"c\": [1]}, \"a\"]}");
+		JacksonSchema schema = new JacksonSchema(mapper, tree);
+		((ObjectNode) tree.get("enum").get(0)).put("c", "changed");
+		((ArrayNode) tree.get("enum")).add("b");
+
+		assertThat(schema.isValid("{\"c\": [1]}"), is(true));
+		assertThat(schema.isValid("{\"c\": \"changed\"}"), is(false));
+		assertThat(schema.isValid("\"b\""), is(false));
+
+		tree = mapper.readTree("{\"items\": {\"type\": \"string\"}}");
+		schema = new JacksonSchema(mapper, tree);
+		((ObjectNode) tree.get("items")).put("type", "integer");
+
+		assertThat(schema.isValid("[\"a\"]"), is(true));
+		assertThat(schema.isValid("[1]"), is(false));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testValidatorsAreUnmodifiable() throws Exception {
+		JacksonSchema schema = new JacksonSchema(mapper, mapper.readTree("{\"type\": \"string\"}"));
+		schema.validators.clear();
+	}
+
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.io.StringReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import eu.vahlas.json.schema.JSONSchema;
+
+public class JacksonSchemaProviderTest {
+	private final String schema1 = "{\"type\": \"string\", \"maxLength\": 3}";
+	private final String schema2 = "{\"type\": \"integer\"}";
+	private final String schema3 = "{\"type\": \"boolean\"}";
+
+	private ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void testSameContentIsCompiledOnce() throws Exception {
+		JacksonSchemaProvider provider = new JacksonSchemaProvider(mapper);
+
+		JSONSchema s1 = provider.getSchema(schema1);
+		JSONSchema s2 = provider.getSchema(new StringReader(schema1));
+		JSONSchema s3 = provider.getSchema(schema2);
+
+		assertThat(s2, is(sameInstance(s1)));
+		assertThat(s3, is(not(sameInstance(s1))));
+		assertThat(provider.getCache().getHitCount(), is(1L));
+		assertThat(provider.getCache().getMissCount(), is(2L));
+		assertThat(s2.validate("\"abcd\"").size(), is(1));
+	}
+
+	@Test
+	public void testUrlKey() throws Exception {
+		JacksonSchemaProvider provider = new JacksonSchemaProvider(mapper);
+		URL url = getClass().getResource("/card-schema.json");
+
+		assertThat(provider.getSchema(url), is(sameInstance(provider.getSchema(url))));
+		assertThat(provider.getCache().getHitCount(), is(1L));
+	}
+
+	@Test
+	public void testLruEviction() throws Exception {
+		JacksonSchemaProvider provider = new JacksonSchemaProvider(mapper, 2);
+
+		JSONSchema s1 = provider.getSchema(schema1);
+		provider.getSchema(schema2);
+		provider.getSchema(schema1); // schema1 is now the most recently used
+		provider.getSchema(schema3); // evicts schema2
+
+		assertThat(provider.getCache().size(), is(2));
+		assertThat(provider.getCache().getEvictionCount(), is(1L));
+		assertThat(provider.getSchema(schema1), is(sameInstance(s1)));
+		provider.getSchema(schema2);
+		assertThat(provider.getCache().getMissCount(), is(4L));
+	}
+
+	@Test
+	public void testDisabledCache() throws Exception {
+		JacksonSchemaProvider provider = new JacksonSchemaProvider(mapper, 0);
+
+		assertThat(provider.getSchema(schema1), is(not(sameInstance(provider.getSchema(schema1)))));
+		assertThat(provider.getCache().size(), is(0));
+		assertThat(provider.getCache().getMissCount(), is(2L));
+	}
+
+	@Test
+	public void testConcurrentMissesCompileOnce() throws Exception {
+		final SchemaCache cache = new SchemaCache(8);
+		final AtomicInteger compilations = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		final Callable<JacksonSchema> compiler = new Callable<JacksonSchema>() {
+			@Override
+			public JacksonSchema call() throws Exception {
+				compilations.incrementAndGet();
+				Thread.sleep(50);
+				return new JacksonSchema(mapper, mapper.readTree(schema1));
+			}
+		};
+
+		int threads = 16;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<JacksonSchema>> results = new ArrayList<Future<JacksonSchema>>();
+		for ( int i = 0; i < threads; i++ ) {
+			results.add(pool.submit(new Callable<JacksonSchema>() {
+				@Override
+				public JacksonSchema call() throws Exception {
+					start.await();
+					return cache.get("key", compiler);
+				}
+			}));
+		}
+		start.countDown();
+
+		JacksonSchema first = results.get(0).get();
+		for ( Future<JacksonSchema> f : results ) {
+			assertThat(f.get(), is(sameInstance(first)));
+		}
+		pool.shutdown();
+
+		assertThat(compilations.get(), is(1));
+		assertThat(cache.getMissCount(), is(1L));
+		assertThat(cache.getHitCount(), is((long) threads - 1));
+	}
+}
@@ -25,6 +25,8 @@ import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.junit.Test;
 
+import eu.vahlas.json.schema.ErrorCollector;
+
 public class JacksonSchemaTest {
 	private final String schema = 
 			"{" +
@@ -83,9 +85,10 @@ public class JacksonSchemaTest {
 		JsonNode schemaNode = mapper.readTree(schema);
 		JacksonSchema jschema = new JacksonSchema(mapper, schemaNode);
 		List<JSONValidator> validators = jschema.validators;
-		assertThat(validators.get(1).getClass().getName(), is("eu.vahlas.json.schema.impl.validators.NoOpValidator") );
-		assertThat(validators.get(2).getClass().getName(), is("eu.vahlas.json.schema.impl.validators.TypeValidator") );
-		assertThat(validators.get(3).getClass().getName(), is("eu.vahlas.json.schema.impl.validators.EnumValidator") );
+		// title and description have nothing to validate
+		assertThat(validators.size(), is(2) );
+		assertThat(validators.get(0).getClass().getName(), is("eu.vahlas.json.schema.impl.validators.TypeValidator") );
+		assertThat(validators.get(1).getClass().getName(), is("eu.vahlas.json.schema.impl.validators.EnumValidator") );
 	}
 	
 	@Test
@@ -109,4 +112,65 @@ public class JacksonSchemaTest {
 		assertThat(errors.get(1), is("$.p3: there must be a maximum of 2 items in the array"));
 	}
 	
+	@Test
+	public void testIsValid() throws Exception {
+		assertThat(jschema.isValid(json1), is(true));
+		assertThat(jschema.isValid(json2), is(false));
+		assertThat(jschema2.isValid(json3), is(false));
+		assertThat(jschema2.isValid("{\"p1\": \"GR-17124\", \"p2\": 4, \"p3\": [\"Megalou\"], \"p5\": 19}"), is(true));
+	}
+	
+	@Test
+	public void testValidatorsOfOtherTypesAreSkipped() throws Exception {
+		JacksonSchema s = new JacksonSchema(mapper, mapper.readTree(
+				"{\"type\": [\"string\", \"integer\", \"object\"], \"maxLength\": 3, \"minLength\": 2, \"minimum\": 0," +
+				" \"properties\": {\"a\": {}}}"));
+		assertThat(s.isValid("12"), is(true));
+		assertThat(s.isValid("\"abc\""), is(true));
+		assertThat(s.isValid("\"abcd\""), is(false));
+		assertThat(s.isValid("{}"), is(false));
+		
+		List<String> errors = s.validate("-1");
+		assertThat(errors.size(), is(1));
+		assertThat(errors.get(0), is("$: must have a minimum value of 0"));
+	}
+	
+	@Test
+	public void testCheapestFirst() throws Exception {
+		final int[] runs = new int[1];
+		KeywordRegistry registry = new KeywordRegistry().register("count", new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				return new AbstractJSONValidator() {
+					@Override
+					public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
+						runs[0]++;
+					}
+
+					@Override
+					public boolean isValid(JsonNode node, JsonNode parent) {
+						runs[0]++;
+						return true;
+					}
+				};
+			}
+		});
+		JacksonSchema s = new JacksonSchema(new SchemaContext(mapper, null, registry), mapper.readTree(
+				"{\"count\": true, \"enum\": [1, 2], \"type\": \"integer\"}"));
+		
+		// the type check fails before the custom keyword is reached
+		assertThat(s.isValid("\"a\""), is(false));
+		assertThat(runs[0], is(0));
+		assertThat(s.isValid("3"), is(false));
+		assertThat(runs[0], is(0));
+		assertThat(s.isValid("2"), is(true));
+		assertThat(runs[0], is(1));
+		
+		// errors are still reported in schema order
+		List<String> errors = s.validate("\"a\"");
+		assertThat(errors.size(), is(2));
+		assertThat(errors.get(0), is("$: does not have a value in the enumeration [1, 2]"));
+		assertThat(errors.get(1), is("$: string found, integer expected"));
+	}
+	
 }
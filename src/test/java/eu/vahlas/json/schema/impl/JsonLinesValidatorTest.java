@@ -0,0 +1,112 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.vahlas.json.schema.ErrorCode;
+
+public class JsonLinesValidatorTest {
+	private final String schema =
+			"{\"type\": \"object\", \"properties\": {\"id\": {\"type\": \"integer\"}, \"name\": {\"type\": \"string\", \"maxLength\": 8, \"optional\": true}}}";
+
+	private ObjectMapper mapper = new ObjectMapper();
+	private ExecutorService pool;
+	private File file;
+
+	@Before
+	public void setUp() throws Exception {
+		pool = Executors.newFixedThreadPool(4);
+		file = File.createTempFile("jsonlines", ".jsonl");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		pool.shutdown();
+		file.delete();
+	}
+
+	private void write(String content) throws Exception {
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+	@Test
+	public void testInvalidLinesAndOffsets() throws Exception {
+		String l1 = "{\"id\": 1, \"name\": \"one\"}\n";
+		String l2 = "{\"id\": \"2\", \"name\": \"two\"}\r\n";
+		String l3 = "\n";
+		String l4 = "{\"id\": 4, \"name\": \"far too long\"}\n";
+		String l5 = "{\"id\": 5,\n";
+		write(l1 + l2 + l3 + l4 + l5);
+
+		JsonLinesValidator v = new JsonLinesValidator(new JacksonSchema(mapper, mapper.readTree(schema)), pool, 16);
+		List<LineResult> invalid = v.validate(file);
+
+		assertThat(invalid.size(), is(3));
+		assertThat(invalid.get(0).getLine(), is(2L));
+		assertThat(invalid.get(0).getOffset(), is((long) l1.length()));
+		assertThat(invalid.get(0).getLength(), is(l2.length() - 2));
+		assertThat(invalid.get(0).getMessages().get(0).getMessage(), is("$.id: string found, integer expected"));
+		assertThat(invalid.get(1).getLine(), is(4L));
+		assertThat(invalid.get(1).getOffset(), is((long) (l1 + l2 + l3).length()));
+		assertThat(invalid.get(2).getLine(), is(5L));
+		assertThat(invalid.get(2).getMessages().get(0).getCode(), is(ErrorCode.PARSE));
+	}
+
+	@Test
+	public void testChunkingDoesNotChangeResults() throws Exception {
+		StringBuilder sb = new StringBuilder();
+		for ( int i = 1; i <= 5000; i++ ) {
+			sb.append("{\"id\": ").append(i % 7 == 0 ? "\"x\"" : String.valueOf(i)).append("}\n");
+		}
+		write(sb.toString());
+
+		JacksonSchema s = new JacksonSchema(mapper, mapper.readTree(schema));
+		List<LineResult> small = new JsonLinesValidator(s, pool, 100).validate(file);
+		List<LineResult> large = new JsonLinesValidator(s, pool).validate(file);
+
+		assertThat(small.size(), is(5000 / 7));
+		assertThat(large.size(), is(small.size()));
+		for ( int i = 0; i < small.size(); i++ ) {
+			assertThat(small.get(i).getLine(), is((long) (7 * (i + 1))));
+			assertThat(small.get(i).getOffset(), is(large.get(i).getOffset()));
+		}
+		assertThat(new JsonLinesValidator(s, pool, 100).validate(file, new JsonLinesValidator.LineHandler() {
+			@Override
+			public void invalid(LineResult result) {
+			}
+		}), is(5000L));
+	}
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.List;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import eu.vahlas.json.schema.ErrorCode;
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.JSONSchema;
+import eu.vahlas.json.schema.ValidationMessage;
+
+public class KeywordRegistryTest {
+	private final String schema =
+			"{" +
+				"\"type\": \"string\"," +
+				"\"title\": \"ignored\"," +
+				"\"x-unknown\": {\"foo\": 1}," +
+				"\"startsWith\": \"ab\"" +
+			"}";
+
+	private ObjectMapper mapper = new ObjectMapper();
+
+	/**
+	 * Custom keyword used by the tests: the string must start with the given prefix.
+	 */
+	private static class StartsWithValidator extends AbstractJSONValidator {
+		private final String prefix;
+
+		StartsWithValidator(String prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
+			if ( node.isTextual() && !node.getTextValue().startsWith(prefix) )
+				errors.add(new ValidationMessage("startsWith", at, ErrorCode.CUSTOM, "must start with " + prefix));
+		}
+
+		@Override
+		public boolean isValid(JsonNode node, JsonNode parent) {
+			return !node.isTextual() || node.getTextValue().startsWith(prefix);
+		}
+	}
+
+	@Test
+	public void testUnknownKeywordsAreIgnored() throws Exception {
+		JacksonSchema s = new JacksonSchema(mapper, mapper.readTree(schema));
+		assertThat(s.validators.size(), is(1));
+		assertThat(KeywordRegistry.getDefault().get("title"), is(nullValue()));
+		assertThat(s.validate("\"xyz\"").size(), is(0));
+	}
+
+	@Test
+	public void testCustomKeyword() throws Exception {
+		KeywordRegistry registry = new KeywordRegistry().register("startsWith", new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				return new StartsWithValidator(keywordNode.getTextValue());
+			}
+		});
+		SchemaContext context = new SchemaContext(mapper, null, registry);
+		JSONSchema s = new JacksonSchemaProvider(context, 0).getSchema(schema);
+
+		assertThat(s.validate("\"abc\"").size(), is(0));
+		assertThat(s.isValid("\"xyz\""), is(false));
+		List<String> errors = s.validate("\"xyz\"");
+		assertThat(errors.size(), is(1));
+		assertThat(errors.get(0), is("$: must start with ab"));
+		assertThat(registry.contains("type"), is(true));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testDefaultRegistryIsReadOnly() throws Exception {
+		KeywordRegistry.getDefault().register("startsWith", null);
+	}
+}
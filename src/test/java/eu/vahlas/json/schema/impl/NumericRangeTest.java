@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.DeserializationConfig;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+public class NumericRangeTest {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void testMixedTypes() throws Exception {
+		NumericRange r = range("{\"minimum\": 0, \"maximum\": 2.5}");
+		assertThat(r.check(node("1")), is(0));
+		assertThat(r.check(node("2.5")), is(0));
+		assertThat(r.check(node("3")), is(NumericRange.ABOVE_MAXIMUM));
+		assertThat(r.check(node("-0.5")), is(NumericRange.BELOW_MINIMUM));
+		assertThat(r.check(node("123456789012345678901234567890")), is(NumericRange.ABOVE_MAXIMUM));
+		assertThat(r.check(node("-9223372036854775807")), is(NumericRange.BELOW_MINIMUM));
+		assertThat(r.check(node("\"3\"")), is(0));
+	}
+
+	@Test
+	public void testCanEqualAcrossTypes() throws Exception {
+		NumericRange r = range("{\"minimum\": 2, \"minimumCanEqual\": false, \"maximum\": 4.0, \"maximumCanEqual\": false}");
+		assertThat(r.check(node("2.0")), is(NumericRange.BELOW_MINIMUM));
+		assertThat(r.check(node("2")), is(NumericRange.BELOW_MINIMUM));
+		assertThat(r.check(node("4")), is(NumericRange.ABOVE_MAXIMUM));
+		assertThat(r.check(node("3.999")), is(0));
+	}
+
+	@Test
+	public void testLargeLongs() throws Exception {
+		// 2^53 + 1 is not a double
+		NumericRange r = range("{\"maximum\": 9007199254740992.0}");
+		assertThat(r.check(node("9007199254740992")), is(0));
+		assertThat(r.check(node("9007199254740993")), is(NumericRange.ABOVE_MAXIMUM));
+		r = range("{\"minimum\": 9007199254740993}");
+		assertThat(r.check(node("9007199254740992.0")), is(NumericRange.BELOW_MINIMUM));
+	}
+
+	@Test
+	public void testBigDecimals() throws Exception {
+		ObjectMapper decimals = new ObjectMapper();
+		decimals.configure(DeserializationConfig.Feature.USE_BIG_DECIMAL_FOR_FLOATS, true);
+		NumericRange r = new NumericRange(decimals.readTree("0.1"), null, decimals.readTree("10"), null, null);
+		assertThat(r.check(decimals.readTree("0.1")), is(0));
+		assertThat(r.check(decimals.readTree("0.0999")), is(NumericRange.BELOW_MINIMUM));
+		assertThat(r.check(node("10")), is(0));
+		assertThat(r.check(decimals.readTree("10.000000000000000001")), is(NumericRange.ABOVE_MAXIMUM));
+	}
+
+	@Test
+	public void testDivisibleBy() throws Exception {
+		NumericRange r = range("{\"divisibleBy\": 3}");
+		assertThat(r.check(node("9")), is(0));
+		assertThat(r.check(node("-9")), is(0));
+		assertThat(r.check(node("10")), is(NumericRange.NOT_DIVISIBLE));
+		assertThat(r.check(node("9.0")), is(0));
+		assertThat(r.check(node("9.5")), is(NumericRange.NOT_DIVISIBLE));
+		assertThat(r.check(node("300000000000000000000000000000")), is(0));
+	}
+
+	@Test
+	public void testDivisibleByPowerOfTwo() throws Exception {
+		NumericRange r = range("{\"divisibleBy\": 8}");
+		assertThat(r.check(node("64")), is(0));
+		assertThat(r.check(node("-64")), is(0));
+		assertThat(r.check(node("0")), is(0));
+		assertThat(r.check(node("60")), is(NumericRange.NOT_DIVISIBLE));
+		assertThat(r.check(node("-60")), is(NumericRange.NOT_DIVISIBLE));
+		assertThat(r.check(node("1e300")), is(0));
+	}
+
+	@Test
+	public void testDecimalDivisor() throws Exception {
+		NumericRange r = range("{\"divisibleBy\": 0.1}");
+		assertThat(r.check(node("0.3")), is(0));
+		assertThat(r.check(node("7")), is(0));
+		assertThat(r.check(node("0.35")), is(NumericRange.NOT_DIVISIBLE));
+		assertThat(range("{\"divisibleBy\": 0}").check(node("7")), is(0));
+	}
+
+	@Test
+	public void testAllConstraints() throws Exception {
+		NumericRange r = range("{\"minimum\": 10, \"maximum\": 0, \"divisibleBy\": 4}");
+		assertThat(r.check(node("5")), is(NumericRange.BELOW_MINIMUM | NumericRange.ABOVE_MAXIMUM | NumericRange.NOT_DIVISIBLE));
+	}
+
+	private NumericRange range(String schema) throws Exception {
+		JsonNode s = mapper.readTree(schema);
+		return new NumericRange(s.get("minimum"), s.get("minimumCanEqual"),
+				s.get("maximum"), s.get("maximumCanEqual"), s.get("divisibleBy"));
+	}
+
+	private JsonNode node(String json) throws Exception {
+		return mapper.readTree(json);
+	}
+}
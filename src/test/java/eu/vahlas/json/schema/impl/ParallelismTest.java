@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.node.ArrayNode;
+import org.codehaus.jackson.node.ObjectNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.vahlas.json.schema.ValidationMessage;
+import eu.vahlas.json.schema.impl.resolvers.URLSchemaResolver;
+
+public class ParallelismTest {
+
+	private ObjectMapper mapper = new ObjectMapper();
+	private ExecutorService pool;
+
+	@Before
+	public void setUp() {
+		pool = Executors.newFixedThreadPool(3);
+	}
+
+	@After
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	private JacksonSchema schema(String json, Parallelism parallelism) throws Exception {
+		SchemaContext context = new SchemaContext(mapper, new URLSchemaResolver(), KeywordRegistry.getDefault(), parallelism);
+		return new JacksonSchema(context, mapper.readTree(json));
+	}
+
+	@Test
+	public void testLargeArraySameMessagesAsSequential() throws Exception {
+		String json = "{\"type\": \"array\", \"items\": {\"type\": \"object\", \"properties\": {\"id\": {\"type\": \"integer\"}}}}";
+		JacksonSchema sequential = schema(json, null);
+		JacksonSchema parallel = schema(json, new Parallelism(pool, 100, 4));
+
+		ArrayNode array = mapper.createArrayNode();
+		for ( int i = 0; i < 50000; i++ ) {
+			ObjectNode item = array.addObject();
+			if ( i % 997 == 0 )
+				item.put("id", "x");
+			else
+				item.put("id", i);
+		}
+
+		List<ValidationMessage> expected = sequential.validateMessages(array, null, JSONPath.ROOT);
+		List<ValidationMessage> actual = parallel.validateMessages(array, null, JSONPath.ROOT);
+		assertThat(actual.size() > 49, is(true));
+		assertThat(actual.size(), is(expected.size()));
+		for ( int i = 0; i < expected.size(); i++ ) {
+			assertThat(actual.get(i).getMessage(), is(expected.get(i).getMessage()));
+		}
+		assertThat(parallel.isValid(array, null), is(false));
+	}
+
+	@Test
+	public void testWideObject() throws Exception {
+		StringBuilder json = new StringBuilder("{\"type\": \"object\", \"properties\": {");
+		ObjectNode object = mapper.createObjectNode();
+		for ( int i = 0; i < 500; i++ ) {
+			if ( i > 0 )
+				json.append(", ");
+			json.append("\"p").append(i).append("\": {\"type\": \"integer\"}");
+			object.put("p" + i, i);
+		}
+		json.append("}}");
+		JacksonSchema sequential = schema(json.toString(), null);
+		JacksonSchema parallel = schema(json.toString(), new Parallelism(pool, 50, 4));
+
+		assertThat(parallel.isValid(object, null), is(true));
+		assertThat(parallel.validateMessages(object, null, JSONPath.ROOT).isEmpty(), is(true));
+
+		object.put("p7", "seven");
+		object.remove("p321");
+		List<String> expected = sequential.validate(object, null, JSONPath.ROOT);
+		assertThat(parallel.validate(object, null, JSONPath.ROOT), is(expected));
+		assertThat(expected.size(), is(2));
+		assertThat(parallel.isValid(object, null), is(false));
+	}
+
+	@Test
+	public void testSmallArrayStaysOnCallingThread() throws Exception {
+		JacksonSchema parallel = schema("{\"items\": {\"type\": \"string\"}}", new Parallelism(pool, 100, 4));
+		JsonNode array = mapper.readTree("[\"a\", 1, \"b\"]");
+		List<String> errors = parallel.validate(array, null, JSONPath.ROOT);
+		assertThat(errors.size(), is(1));
+		assertThat(errors.get(0), is("$[1]: integer found, string expected"));
+	}
+
+	@Test(timeout = 30000)
+	public void testCalledFromPoolThread() throws Exception {
+		// the only thread of the pool validates: it must run the other ranges itself
+		ExecutorService single = Executors.newSingleThreadExecutor();
+		try {
+			final JacksonSchema parallel = schema("{\"items\": {\"type\": \"integer\"}}", new Parallelism(single, 100, 4));
+			final ArrayNode array = mapper.createArrayNode();
+			for ( int i = 0; i < 999; i++ ) {
+				array.add(i);
+			}
+			array.add("last");
+			Future<List<String>> errors = single.submit(new Callable<List<String>>() {
+				@Override
+				public List<String> call() {
+					return parallel.validate(array, null, JSONPath.ROOT);
+				}
+			});
+			assertThat(errors.get(20, TimeUnit.SECONDS).size(), is(1));
+			Future<Boolean> valid = single.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					return parallel.isValid(array, null);
+				}
+			});
+			assertThat(valid.get(20, TimeUnit.SECONDS), is(false));
+		} finally {
+			single.shutdownNow();
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import eu.vahlas.json.schema.JSONSchemaException;
+
+public class RegexCacheTest {
+	private final String[] fastPatterns = {
+			"^[a-z0-9_-]+$", "[A-Z]{3}", "[^,;]*", "^[\\w.]{2,5}$", "[\\d]{4,}", "[a-]?", "[-\\s\\]x]+", "[^a-c]{2}", "[\\d-]+"
+	};
+
+	private final String[] slowPatterns = {
+			"[A-Z]{2}-[0-9]{5}", "(?i)[a-z]+", "[a-z[0-9]]+", "[a-z&&[^x]]+", "[\\p{L}]+", "[a-z]+?", ".*", "[\\u00e9]+",
+			"[\\.-z]+", "[\\--z]+"
+	};
+
+	private final String[] inputs = {
+			"", "a", "abc", "ABC", "AB", "ABCD", "abc_def-09", "a b", "a.b", "12", "1234", "x]x", "-", "été",
+			"😀", "d😀", "a,b", "  \t", "xyz\n", "de"
+	};
+
+	@Test
+	public void testFastPathMatchesRegexEngine() throws Exception {
+		for ( String p : fastPatterns ) {
+			RegexMatcher m = RegexCache.compile(p);
+			assertThat(p, m, instanceOf(RegexMatcher.CharClassMatcher.class));
+			for ( String input : inputs ) {
+				assertThat(p + " / " + input, m.matches(input), is(Pattern.compile(p).matcher(input).matches()));
+			}
+		}
+	}
+
+	@Test
+	public void testFallbackToRegexEngine() throws Exception {
+		for ( String p : slowPatterns ) {
+			RegexMatcher m = RegexCache.compile(p);
+			assertThat(p, m, instanceOf(RegexMatcher.JavaRegexMatcher.class));
+			for ( String input : inputs ) {
+				assertThat(p + " / " + input, m.matches(input), is(Pattern.compile(p).matcher(input).matches()));
+			}
+		}
+	}
+
+	@Test
+	public void testSharedInstances() throws Exception {
+		assertThat(RegexCache.get("[A-Z]{2}-[0-9]{5}"), is(sameInstance(RegexCache.get("[A-Z]{2}-[0-9]{5}"))));
+	}
+
+	@Test(expected = JSONSchemaException.class)
+	public void testInvalidPattern() throws Exception {
+		RegexCache.get("[a-z");
+	}
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.io.InputStream;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import eu.vahlas.json.schema.impl.resolvers.MapSchemaResolver;
+
+public class SchemaCompilerTest {
+	private final String schema1 = 
+			"{" +
+				"\"type\": \"object\"," +
+				"\"properties\": {" +
+					"\"p1\": {\"type\": \"string\", \"pattern\": \"[A-Z]{2}-[0-9]{5}\"}," +
+					"\"p2\": {\"type\": \"integer\", \"enum\":[1,2,3,4,5]}," +
+					"\"p3\": {" +
+						"\"type\": \"array\"," +
+						"\"items\" : {\"type\": \"string\", \"minLength\": 5, \"maxLength\": 10}," +
+						"\"minItems\": 1," +
+						"\"maxItems\": 2" +
+					"}," +
+					"\"p4\": {\"type\": \"boolean\", \"requires\": \"p2\", \"optional\": true}," +
+					"\"p5\": {\"type\": \"number\", \"minimum\": 0, \"minimumCanEqual\": false, \"maximum\": 20.0}" +
+				"}," +
+				"\"additionalProperties\": false" +
+			"}";
+	
+	private final String schema2 = 
+			"{" +
+				"\"type\": [\"string\", {\"type\": \"array\", \"items\": [{\"type\": \"integer\"}, {\"type\": \"string\"}]}]," +
+				"\"disallow\": \"null\"" +
+			"}";
+	
+	private final String schema3 = 
+			"{" +
+				"\"type\": \"object\"," +
+				"\"properties\": {\"id\": {\"type\": \"integer\"}, \"\\\"quoted\\\"\": {\"type\": \"string\", \"optional\": true}}," +
+				"\"additionalProperties\": {\"type\": \"number\"}" +
+			"}";
+	
+	private final String tree =
+			"{" +
+				"\"type\": \"object\"," +
+				"\"properties\": {" +
+					"\"name\": {\"type\": \"string\"}," +
+					"\"children\": {\"type\": \"array\", \"optional\": true, \"items\": {\"$ref\": \"urn:tree#\"}}" +
+				"}" +
+			"}";
+	
+	private ObjectMapper mapper = new ObjectMapper();
+	
+	@Test
+	public void testCompile() throws Exception {
+		JacksonSchema schema = new JacksonSchema(mapper, mapper.readTree(schema1));
+		JacksonSchema compiled = SchemaCompiler.compile(schema);
+		
+		assertThat(compiled, is(instanceOf(CompiledSchema.class)));
+		assertThat(SchemaCompiler.compile(compiled), is(sameInstance(compiled)));
+	}
+	
+	@Test
+	public void testProperties() throws Exception {
+		assertSame(schema1,
+				"{\"p1\": \"GR-17124\", \"p2\": 4, \"p3\": [\"Megalou\"], \"p5\": 19}",
+				"{\"p1\": \"GR-17124\", \"p2\": 4, \"p3\": [\"Megalou\", \"Spilaioy\", \"a\"], \"p5\": 19}",
+				"{\"p1\": \"GR-17124\", \"p2\": 4, \"p3\": [\"Mega\"], \"p5\": 19}",
+				"{\"p1\": \"GR-17124\", \"p2\": 6, \"p3\": [\"Megalou\"], \"p5\": 19}",
+				"{\"p1\": \"gr-17124\", \"p2\": 4, \"p3\": [\"Megalou\"], \"p5\": 0}",
+				"{\"p1\": \"GR-17124\", \"p2\": 4, \"p3\": [\"Megalou\"], \"p4\": true, \"p5\": 19}",
+				"{\"p1\": \"GR-17124\", \"p3\": [\"Megalou\"], \"p4\": true, \"p5\": 19}",
+				"{\"p1\": \"GR-17124\", \"p2\": 4, \"p3\": [\"Megalou\"], \"p5\": 19, \"p6\": 1}",
+				"{\"p1\": \"GR-17124\", \"p2\": 4, \"p3\": []}",
+				"[]", "\"p1\"");
+	}
+	
+	@Test
+	public void testUnionTypesAndTuples() throws Exception {
+		assertSame(schema2, "\"a\"", "[1, \"a\"]", "[1]", "[\"a\", 1]", "[1, \"a\", 2]", "null", "1", "{}");
+	}
+	
+	@Test
+	public void testAdditionalProperties() throws Exception {
+		assertSame(schema3, "{\"id\": 1}", "{\"id\": 1, \"\\\"quoted\\\"\": \"q\"}", "{\"id\": 1, \"\\\"quoted\\\"\": 2}",
+				"{\"id\": 1, \"x\": 2.5}", "{\"id\": 1, \"x\": \"2.5\"}", "{\"x\": 2.5}");
+	}
+	
+	@Test
+	public void testControlCharactersInNames() throws Exception {
+		String schema = "{\"type\": \"object\", \"properties\": {" +
+				"\"a\\nb\": {\"type\": \"integer\"}, \"c\\rd\": {\"type\": \"integer\"}, " +
+				"\"e\\tf\\u0001g\\u007f\": {\"type\": \"integer\"}, \"caf\\u00e9\": {\"type\": \"integer\"}}}";
+		assertSame(schema,
+				"{\"a\\nb\": 1, \"c\\rd\": 2, \"e\\tf\\u0001g\\u007f\": 3, \"caf\\u00e9\": 4}",
+				"{\"a\\nb\": \"1\", \"c\\rd\": 2, \"e\\tf\\u0001g\\u007f\": 3, \"caf\\u00e9\": 4}",
+				"{\"a\\nb\": 1, \"c\\rd\": 2, \"e\\tf\\u0001g\\u007f\": \"3\", \"caf\\u00e9\": 4}",
+				"{\"a\\nb\": 1, \"c\\rd\": 2, \"e\\tf\\u0001g\\u007f\": 3}",
+				"{\"ab\": 1, \"c\\rd\": 2, \"e\\tf\\u0001g\\u007f\": 3, \"caf\\u00e9\": 4}");
+	}
+	
+	@Test
+	public void testRecursiveRef() throws Exception {
+		JacksonSchemaProvider provider = new JacksonSchemaProvider(mapper, new MapSchemaResolver().register("urn:tree", tree));
+		JacksonSchema schema = (JacksonSchema) provider.getSchema("{\"$ref\": \"urn:tree\"}");
+		JacksonSchema compiled = SchemaCompiler.compile(schema);
+		assertThat(compiled, is(instanceOf(CompiledSchema.class)));
+		
+		assertThat(compiled.isValid("{\"name\": \"root\", \"children\": [{\"name\": \"a\"}, {\"name\": \"b\", \"children\": []}]}"), is(true));
+		assertThat(compiled.isValid("{\"name\": \"root\", \"children\": [{\"name\": \"a\"}, {\"name\": \"b\", \"children\": [{\"name\": 3}]}]}"), is(false));
+	}
+	
+	@Test
+	public void testCard() throws Exception {
+		JacksonSchemaProvider provider = new JacksonSchemaProvider(mapper);
+		JacksonSchema schema = (JacksonSchema) provider.getSchema(getClass().getResource("/card-schema.json"));
+		JacksonSchema compiled = SchemaCompiler.compile(schema);
+		assertThat(compiled, is(instanceOf(CompiledSchema.class)));
+		
+		InputStream card = getClass().getResourceAsStream("/card.json");
+		JsonNode node = mapper.readTree(card);
+		card.close();
+		assertThat(compiled.isValid(node, null), is(schema.isValid(node, null)));
+		// errors are still reported by the interpreter
+		assertThat(compiled.validate(node.toString()), is(schema.validate(node.toString())));
+	}
+	
+	private void assertSame(String schemaText, String... jsons) throws Exception {
+		JacksonSchema schema = new JacksonSchema(mapper, mapper.readTree(schemaText));
+		JacksonSchema compiled = SchemaCompiler.compile(schema);
+		assertThat(compiled, is(instanceOf(CompiledSchema.class)));
+		for ( String json : jsons ) {
+			JsonNode node = mapper.readTree(json);
+			assertThat(json, compiled.isValid(node, null), is(schema.isValid(node, null)));
+		}
+	}
+}
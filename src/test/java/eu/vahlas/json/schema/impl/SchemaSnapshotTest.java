@@ -0,0 +1,164 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.JSONSchemaException;
+import eu.vahlas.json.schema.impl.resolvers.MapSchemaResolver;
+
+public class SchemaSnapshotTest {
+	private final String schema1 = 
+			"{" +
+				"\"type\": \"object\"," +
+				"\"properties\": {" +
+					"\"code\": {\"type\": \"string\", \"pattern\": \"^[A-Z]{2}-[0-9]{5}$\"}," +
+					"\"status\": {\"enum\": [\"new\", \"paid\", 3]}," +
+					"\"tags\": {\"type\": \"array\", \"uniqueItems\": true, \"items\": {\"type\": \"string\"}, \"optional\": true}," +
+					"\"created\": {\"type\": \"string\", \"format\": \"date-time\"}," +
+					"\"total\": {\"type\": [\"number\", \"null\"], \"minimum\": 0, \"maximum\": 100.5, \"divisibleBy\": 0.5}," +
+					"\"owner\": {\"type\": [\"string\", {\"type\": \"object\", \"properties\": {\"id\": {\"type\": \"integer\"}}}]}" +
+				"}," +
+				"\"additionalProperties\": false" +
+			"}";
+	
+	private final String tree =
+			"{" +
+				"\"type\": \"object\"," +
+				"\"properties\": {" +
+					"\"name\": {\"type\": \"string\"}," +
+					"\"children\": {\"type\": \"array\", \"optional\": true, \"items\": {\"$ref\": \"urn:tree#\"}}" +
+				"}" +
+			"}";
+	
+	private ObjectMapper mapper = new ObjectMapper();
+	
+	@Test
+	public void testKeywords() throws Exception {
+		JacksonSchema schema = new JacksonSchema(mapper, mapper.readTree(schema1));
+		SchemaProgram program = roundTrip(mapper.readTree(schema1), new SchemaContext(mapper));
+		
+		String[] jsons = {
+			"{\"code\": \"GR-17124\", \"status\": \"new\", \"tags\": [\"a\", \"b\"], \"created\": \"2011-08-18T19:03:37Z\", \"total\": 10.5, \"owner\": \"me\"}",
+			"{\"code\": \"GR-17124\", \"status\": 3, \"created\": \"2011-08-18T19:03:37Z\", \"total\": null, \"owner\": {\"id\": 1}}",
+			"{\"code\": \"GR-171245\", \"status\": \"new\", \"created\": \"2011-08-18T19:03:37Z\", \"total\": 10.5, \"owner\": \"me\"}",
+			"{\"code\": \"GR-17124\", \"status\": \"old\", \"created\": \"2011-08-18T19:03:37Z\", \"total\": 10.5, \"owner\": \"me\"}",
+			"{\"code\": \"GR-17124\", \"status\": \"new\", \"tags\": [\"a\", \"a\"], \"created\": \"2011-08-18T19:03:37Z\", \"total\": 10.5, \"owner\": \"me\"}",
+			"{\"code\": \"GR-17124\", \"status\": \"new\", \"created\": \"yesterday\", \"total\": 10.5, \"owner\": \"me\"}",
+			"{\"code\": \"GR-17124\", \"status\": \"new\", \"created\": \"2011-08-18T19:03:37Z\", \"total\": 10.25, \"owner\": \"me\"}",
+			"{\"code\": \"GR-17124\", \"status\": \"new\", \"created\": \"2011-08-18T19:03:37Z\", \"total\": 101, \"owner\": \"me\"}",
+			"{\"code\": \"GR-17124\", \"status\": \"new\", \"created\": \"2011-08-18T19:03:37Z\", \"total\": 10.5, \"owner\": {\"id\": \"x\"}}",
+			"{\"code\": \"GR-17124\", \"status\": \"new\", \"created\": \"2011-08-18T19:03:37Z\", \"total\": 10.5, \"owner\": 1}",
+			"{\"code\": \"GR-17124\", \"status\": \"new\", \"created\": \"2011-08-18T19:03:37Z\", \"total\": 10.5, \"owner\": \"me\", \"x\": 1}"
+		};
+		for ( String json : jsons ) {
+			JsonNode node = mapper.readTree(json);
+			assertThat(json, program.isValid(node, null), is(schema.isValid(node, null)));
+			assertThat(json, program.getSchema().validate(json), is(schema.validate(json)));
+		}
+	}
+	
+	@Test
+	public void testRefsAreInTheSnapshot() throws Exception {
+		SchemaContext context = new SchemaContext(mapper, new MapSchemaResolver().register("urn:tree", tree));
+		// the resolver of the context reading the snapshot does not know urn:tree
+		SchemaProgram program = roundTrip(mapper.readTree("{\"$ref\": \"urn:tree\"}"), context, new SchemaContext(mapper));
+		
+		String valid = "{\"name\": \"root\", \"children\": [{\"name\": \"a\"}, {\"name\": \"b\", \"children\": []}]}";
+		String invalid = "{\"name\": \"root\", \"children\": [{\"name\": \"a\"}, {\"name\": \"b\", \"children\": [{\"name\": 3}]}]}";
+		assertThat(program.isValid(mapper.readTree(valid), null), is(true));
+		assertThat(program.isValid(mapper.readTree(invalid), null), is(false));
+		assertThat(program.getSchema().validate(invalid).get(0), is("$.children[1].children[0].name: integer found, string expected"));
+	}
+	
+	@Test
+	public void testMap() throws Exception {
+		InputStream in = getClass().getResourceAsStream("/card-schema.json");
+		JsonNode schemaNode = mapper.readTree(in);
+		in.close();
+		File file = File.createTempFile("card", ".snapshot");
+		file.deleteOnExit();
+		SnapshotTool.write(schemaNode, new SchemaContext(mapper), file);
+		
+		SchemaProgram program = SchemaSnapshot.map(file);
+		in = getClass().getResourceAsStream("/card.json");
+		JsonNode card = mapper.readTree(in);
+		in.close();
+		assertThat(program.isValid(card, null), is(new JacksonSchema(mapper, schemaNode).isValid(card, null)));
+		assertThat(program.getSchema().validate(card.toString()).size(), is(7));
+	}
+	
+	@Test(expected = JSONSchemaException.class)
+	public void testNotASnapshot() throws Exception {
+		SchemaSnapshot.read(ByteBuffer.wrap("{\"type\": \"string\"}".getBytes("UTF-8")), new SchemaContext(mapper));
+	}
+	
+	@Test
+	public void testCustomKeyword() throws Exception {
+		SchemaContext context = new SchemaContext(mapper, null, even());
+		SchemaProgram program = roundTrip(mapper.readTree("{\"type\": \"integer\", \"even\": true}"), context);
+		
+		assertThat(program.isValid(mapper.readTree("4"), null), is(true));
+		assertThat(program.isValid(mapper.readTree("3"), null), is(false));
+	}
+	
+	@Test(expected = JSONSchemaException.class)
+	public void testUnknownKeyword() throws Exception {
+		// read without the custom keyword
+		roundTrip(mapper.readTree("{\"type\": \"integer\", \"even\": true}"), new SchemaContext(mapper, null, even()),
+				new SchemaContext(mapper));
+	}
+	
+	private KeywordRegistry even() {
+		return new KeywordRegistry().register("even", new KeywordFactory() {
+			@Override
+			public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+				return new AbstractJSONValidator() {
+					@Override
+					public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
+					}
+					
+					@Override
+					public boolean isValid(JsonNode node, JsonNode parent) {
+						return !node.isInt() || node.getIntValue() % 2 == 0;
+					}
+				};
+			}
+		});
+	}
+	
+	private SchemaProgram roundTrip(JsonNode schemaNode, SchemaContext context) throws Exception {
+		return roundTrip(schemaNode, context, context);
+	}
+	
+	private SchemaProgram roundTrip(JsonNode schemaNode, SchemaContext writing, SchemaContext reading) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SchemaSnapshot.write(schemaNode, writing, out);
+		return SchemaSnapshot.read(ByteBuffer.wrap(out.toByteArray()), reading);
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import eu.vahlas.json.schema.JSONSchema;
+import eu.vahlas.json.schema.ListErrorCollector;
+import eu.vahlas.json.schema.impl.resolvers.MapSchemaResolver;
+
+public class StreamingValidatorTest {
+	private final String schema =
+			"{" +
+				"\"type\": \"object\"," +
+				"\"properties\": {" +
+					"\"id\": {\"type\": \"integer\", \"minimum\": 1}," +
+					"\"name\": {\"type\": \"string\", \"maxLength\": 5, \"requires\": \"id\"}," +
+					"\"tags\": {\"type\": \"array\", \"items\": {\"type\": \"string\"}, \"maxItems\": 2, \"optional\": true}," +
+					"\"point\": {\"type\": \"array\", \"items\": [{\"type\": \"number\"}, {\"type\": \"number\"}], \"optional\": true}," +
+					"\"kind\": {\"enum\": [\"a\", \"b\"], \"optional\": true}," +
+					"\"set\": {\"type\": \"array\", \"uniqueItems\": true, \"optional\": true}," +
+					"\"child\": {\"$ref\": \"urn:stream#\", \"optional\": true}" +
+				"}," +
+				"\"additionalProperties\": false" +
+			"}";
+
+	private final String[] instances = {
+			"{\"id\": 3, \"name\": \"abc\"}",
+			"{\"name\": \"abcdefg\", \"tags\": [\"x\", 1, \"z\"], \"extra\": {\"deep\": [1, 2, 3]}}",
+			"{\"id\": 0, \"name\": \"abc\", \"point\": [1, \"a\", 3], \"kind\": \"c\", \"set\": [[1], [1]]}",
+			"{\"id\": 1, \"name\": \"a\", \"child\": {\"name\": \"b\", \"child\": {\"id\": 1.5, \"tags\": [1]}}}",
+			"[1, 2]",
+			"42",
+	};
+
+	private ObjectMapper mapper = new ObjectMapper();
+
+	private JacksonSchema compile() throws Exception {
+		MapSchemaResolver resolver = new MapSchemaResolver();
+		resolver.register("urn:stream", schema);
+		return new JacksonSchema(new SchemaContext(mapper, resolver), mapper.readTree(schema));
+	}
+
+	private static List<String> sorted(List<String> errors) {
+		List<String> l = new ArrayList<String>(errors);
+		Collections.sort(l);
+		return l;
+	}
+
+	@Test
+	public void testSameErrorsAsTreeValidation() throws Exception {
+		JacksonSchema s = compile();
+		for ( String json : instances ) {
+			ListErrorCollector errors = new ListErrorCollector();
+			s.validateStream(new StringReader(json), errors);
+			assertThat(json, sorted(errors.getErrors()), is(sorted(s.validate(json))));
+		}
+	}
+
+	@Test
+	public void testCard() throws Exception {
+		JSONSchema s = new JacksonSchemaProvider(mapper).getSchema(getClass().getResource("/card-schema.json"));
+		InputStream tree = getClass().getResourceAsStream("/card.json");
+		InputStream stream = getClass().getResourceAsStream("/card.json");
+
+		ListErrorCollector errors = new ListErrorCollector();
+		s.validateStream(stream, errors);
+		assertThat(sorted(errors.getErrors()), is(sorted(s.validate(tree))));
+		assertThat(errors.size(), is(7));
+	}
+
+	@Test
+	public void testLargeArray() throws Exception {
+		JacksonSchema s = new JacksonSchema(mapper, mapper.readTree(
+				"{\"type\": \"array\", \"items\": {\"type\": \"object\", \"properties\": {\"n\": {\"type\": \"integer\"}}}}"));
+		StringBuilder sb = new StringBuilder("[");
+		for ( int i = 0; i < 10000; i++ ) {
+			sb.append(i == 0 ? "" : ",").append("{\"n\": ").append(i == 9999 ? "\"x\"" : String.valueOf(i)).append('}');
+		}
+		sb.append(']');
+
+		ListErrorCollector errors = new ListErrorCollector();
+		s.validateStream(new StringReader(sb.toString()), errors);
+		assertThat(errors.getErrors(), is(Collections.singletonList("$[9999].n: string found, integer expected")));
+	}
+}
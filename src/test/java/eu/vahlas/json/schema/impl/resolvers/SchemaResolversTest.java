@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl.resolvers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import eu.vahlas.json.schema.JSONSchema;
+import eu.vahlas.json.schema.impl.JacksonSchemaProvider;
+
+public class SchemaResolversTest {
+	private final String schema =
+			"{" +
+				"\"type\": \"object\"," +
+				"\"properties\": {" +
+					"\"adr\": {\"$ref\": \"http://json-schema.org/address\"}" +
+				"}" +
+			"}";
+
+	private final String json1 = "{\"adr\": {\"street-address\": \"megaloy spilaioy 4\", \"locality\": \"Nea Smyrni\"}}";
+	private final String json2 = "{\"adr\": {\"street-address\": \"megaloy spilaioy 4\"}}";
+
+	private ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void testClasspathResolver() throws Exception {
+		ClasspathSchemaResolver resolver = new ClasspathSchemaResolver("http://json-schema.org/", "/schemas/");
+
+		assertThat(resolver.resolve("http://json-schema.org/address", mapper), is(notNullValue()));
+		assertThat(resolver.resolve("http://json-schema.org/card", mapper), is(nullValue()));
+		assertThat(resolver.resolve("http://example.com/address", mapper), is(nullValue()));
+		assertThat(new ClasspathSchemaResolver().resolve("classpath:/schemas/address.json", mapper), is(notNullValue()));
+
+		JSONSchema s = new JacksonSchemaProvider(mapper, resolver).getSchema(schema);
+		assertThat(s.validate(json1).size(), is(0));
+		assertThat(s.validate(json2).size(), is(1));
+		assertThat(s.validate(json2).get(0), is("$.adr.locality: is missing and it is not optional"));
+	}
+
+	@Test
+	public void testFileResolver() throws Exception {
+		File dir = File.createTempFile("schemas", "");
+		dir.delete();
+		dir.mkdir();
+		File file = new File(dir, "address.json");
+		Writer w = new FileWriter(file);
+		w.write("{\"type\": \"object\", \"properties\": {\"locality\": {\"type\": \"string\"}}}");
+		w.close();
+
+		try {
+			FileSchemaResolver resolver = new FileSchemaResolver("http://json-schema.org/", dir);
+			JSONSchema s = new JacksonSchemaProvider(mapper, resolver).getSchema(schema);
+			assertThat(s.validate(json1).size(), is(0));
+			assertThat(s.validate(json2).size(), is(1));
+			assertThat(resolver.resolve("http://json-schema.org/geo", mapper), is(nullValue()));
+		} finally {
+			file.delete();
+			dir.delete();
+		}
+	}
+
+	@Test
+	public void testFileResolverStaysInBaseDir() throws Exception {
+		File parent = File.createTempFile("schemas", "");
+		parent.delete();
+		parent.mkdir();
+		File dir = new File(parent, "base");
+		dir.mkdir();
+		File secret = new File(parent, "secret.json");
+		Writer w = new FileWriter(secret);
+		w.write("{\"type\": \"string\"}");
+		w.close();
+
+		try {
+			FileSchemaResolver resolver = new FileSchemaResolver("urn:", dir);
+			for ( String ref : new String[] { "urn:../secret", "urn:../secret.json", "urn:" + secret.getAbsolutePath() } ) {
+				try {
+					resolver.resolve(ref, mapper);
+					fail(ref + " should be rejected");
+				} catch (IOException expected) {
+				}
+			}
+		} finally {
+			secret.delete();
+			dir.delete();
+			parent.delete();
+		}
+	}
+
+	@Test
+	public void testChainResolver() throws Exception {
+		JsonNode node = mapper.readTree("{\"type\": \"string\"}");
+		ChainSchemaResolver resolver = new ChainSchemaResolver(
+				new MapSchemaResolver().register("urn:a", node),
+				new ClasspathSchemaResolver("http://json-schema.org/", "/schemas/"));
+
+		assertThat(resolver.resolve("urn:a", mapper), is(node));
+		assertThat(resolver.resolve("http://json-schema.org/address", mapper), is(notNullValue()));
+		assertThat(resolver.resolve("urn:b", mapper), is(nullValue()));
+	}
+}
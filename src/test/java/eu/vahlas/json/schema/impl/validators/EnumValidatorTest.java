@@ -55,4 +55,55 @@ public class EnumValidatorTest {
 		assertThat(errors.get(0), is("$: does not have a value in the enumeration [1, 2, 3, 4, 5]"));
 	}
 
+	@Test
+	public void testNumbersAreComparedByValue() throws Exception {
+		EnumValidator e = new EnumValidator(mapper.readTree("[1, 2.5, 10000000000, 1e400, \"1\", true, null, [1, \"a\"], {\"a\": 1}]"));
+		assertThat(e.isValid(mapper.readTree("1"), null), is(true));
+		assertThat(e.isValid(mapper.readTree("1.0"), null), is(true));
+		assertThat(e.isValid(mapper.readTree("1e0"), null), is(true));
+		assertThat(e.isValid(mapper.readTree("2.50"), null), is(true));
+		assertThat(e.isValid(mapper.readTree("1e10"), null), is(true));
+		assertThat(e.isValid(mapper.readTree("\"1\""), null), is(true));
+		assertThat(e.isValid(mapper.readTree("true"), null), is(true));
+		assertThat(e.isValid(mapper.readTree("null"), null), is(true));
+		assertThat(e.isValid(mapper.readTree("[1, \"a\"]"), null), is(true));
+		assertThat(e.isValid(mapper.readTree("{\"a\": 1}"), null), is(true));
+
+		assertThat(e.isValid(mapper.readTree("2"), null), is(false));
+		assertThat(e.isValid(mapper.readTree("1.5"), null), is(false));
+		assertThat(e.isValid(mapper.readTree("\"2.5\""), null), is(false));
+		assertThat(e.isValid(mapper.readTree("false"), null), is(false));
+		assertThat(e.isValid(mapper.readTree("[\"a\", 1]"), null), is(false));
+	}
+
+	@Test
+	public void testLargeStringEnumeration() throws Exception {
+		StringBuilder codes = new StringBuilder("[");
+		for ( int i = 0; i < 50000; i++ ) {
+			codes.append(i == 0 ? "\"" : ", \"").append("SKU-").append(i).append('"');
+		}
+		EnumValidator e = new EnumValidator(mapper.readTree(codes.append(']').toString()));
+		assertThat(e.isValid(mapper.readTree("\"SKU-0\""), null), is(true));
+		assertThat(e.isValid(mapper.readTree("\"SKU-49999\""), null), is(true));
+		assertThat(e.isValid(mapper.readTree("\"SKU-50000\""), null), is(false));
+		assertThat(e.isValid(mapper.readTree("1"), null), is(false));
+
+		List<String> errors = e.validate(mapper.readTree("\"nope\""), JSONValidator.AT_ROOT);
+		assertThat(errors.size(), is(1));
+		assertThat(errors.get(0).startsWith("$: does not have a value in the enumeration [SKU-0, SKU-1, "), is(true));
+		assertThat(errors.get(0).endsWith(", SKU-49999]"), is(true));
+	}
+
+	@Test
+	public void testEmptyValueInError() throws Exception {
+		EnumValidator e = new EnumValidator(mapper.readTree("[\"\", \"a\"]"));
+		assertThat(e.validate(mapper.readTree("\"b\""), JSONValidator.AT_ROOT).get(0), is("$: does not have a value in the enumeration [, a]"));
+	}
+
+	@Test
+	public void testNotAnArray() throws Exception {
+		EnumValidator e = new EnumValidator(mapper.readTree("\"a\""));
+		assertThat(e.validate(mapper.readTree("\"a\""), JSONValidator.AT_ROOT).get(0), is("$: does not have a value in the enumeration [none]"));
+	}
+
 }
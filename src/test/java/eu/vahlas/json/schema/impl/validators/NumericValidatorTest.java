@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl.validators;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+import java.util.List;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.impl.JacksonSchema;
+
+public class NumericValidatorTest {
+	private final String schema = 
+		"{" +
+			"\"type\": \"number\"," +
+			"\"maximum\": 100," +
+			"\"divisibleBy\": 4," +
+			"\"minimum\": 0.5," +
+			"\"minimumCanEqual\": false" +
+		"}";
+	
+	private ObjectMapper mapper;
+	private NumericValidator v;
+	
+	public NumericValidatorTest() throws Exception {
+		mapper = new ObjectMapper();
+		v = new NumericValidator(mapper.readTree(schema));
+	}
+	
+	@Test
+	public void validateSuccess() throws Exception {
+		assertThat(v.validate(mapper.readTree("4"), JSONValidator.AT_ROOT).size(), is(0));
+		assertThat(v.validate(mapper.readTree("100.0"), JSONValidator.AT_ROOT).size(), is(0));
+		assertThat(v.isValid(mapper.readTree("\"a\""), null), is(true));
+	}
+	
+	@Test
+	public void validateFailure() throws Exception {
+		List<String> errors = v.validate(mapper.readTree("-2"), JSONValidator.AT_ROOT);
+		assertThat(errors.size(), is(2));
+		assertThat(errors.get(0), is("$: must have a minimum value of 0.5"));
+		assertThat(errors.get(1), is("$: must be divisible by 4"));
+		
+		errors = v.validate(mapper.readTree("101.5"), JSONValidator.AT_ROOT);
+		assertThat(errors.size(), is(2));
+		assertThat(errors.get(0), is("$: must have a maximum value of 100"));
+		assertThat(errors.get(1), is("$: must be divisible by 4"));
+	}
+	
+	@Test
+	public void builtOnce() throws Exception {
+		JacksonSchema s = new JacksonSchema(mapper.readTree(schema));
+		assertThat(s.getValidators().size(), is(2));
+		assertThat(s.getValidators().get(1), instanceOf(NumericValidator.class));
+		assertThat(NumericValidator.getKeyword(mapper.readTree(schema)), is(MinimumValidator.PROPERTY));
+	}
+}
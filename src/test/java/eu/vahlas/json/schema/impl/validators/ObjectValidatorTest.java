@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl.validators;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+import java.util.List;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.impl.JacksonSchema;
+import eu.vahlas.json.schema.impl.SchemaContext;
+
+public class ObjectValidatorTest {
+	private final String schema = "{" +
+		"\"type\" : \"object\"," +
+		"\"properties\": {" +
+			"\"p1\": {\"type\":\"string\", \"requires\":\"p2\"}, " +
+			"\"p2\": {\"type\":\"number\", \"optional\": true}," +
+			"\"p3\": {\"type\":\"boolean\", \"optional\": true, \"requires\":[\"p1\", \"p2\"]}," +
+			"\"p4\": {\"type\":\"boolean\", \"optional\": true, \"requires\":\"other\"}" +
+			"}," +
+		"\"additionalProperties\": false" +
+		"}";
+
+	private ObjectMapper mapper;
+	private ObjectValidator v;
+
+	public ObjectValidatorTest() throws Exception {
+		mapper = new ObjectMapper();
+		v = new ObjectValidator(mapper.readTree(schema), new SchemaContext(mapper));
+	}
+
+	@Test
+	public void validateSuccess() throws Exception {
+		assertValid("{\"p1\": \"a\", \"p2\": 1}");
+		assertValid("{\"p1\": \"a\", \"p2\": 1, \"p3\": true}");
+	}
+
+	@Test
+	public void reportsPropertyErrors() throws Exception {
+		List<String> errors = assertInvalid("{\"p1\": 1, \"p2\": 1}");
+		assertThat(errors.size(), is(1));
+		assertThat(errors.get(0), is("$.p1: integer found, string expected"));
+	}
+
+	@Test
+	public void reportsMissingProperties() throws Exception {
+		List<String> errors = assertInvalid("{\"p2\": 1}");
+		assertThat(errors.size(), is(1));
+		assertThat(errors.get(0), is("$.p1: is missing and it is not optional"));
+	}
+
+	@Test
+	public void reportsAdditionalProperties() throws Exception {
+		List<String> errors = assertInvalid("{\"p1\": \"a\", \"p2\": 1, \"x\": 1}");
+		assertThat(errors.size(), is(1));
+		assertThat(errors.get(0), is("$.x: is not defined in the schema and the schema does not allow additional properties"));
+	}
+
+	@Test
+	public void reportsRequiredProperties() throws Exception {
+		List<String> errors = assertInvalid("{\"p1\": \"a\", \"p3\": true}");
+		assertThat(errors.size(), is(2));
+		assertThat(errors, hasItems(
+				"$.p1: the presence of this property requires that p2 also be present",
+				"$.p3: the presence of this property requires that p2 also be present"));
+	}
+
+	@Test
+	public void nullDoesNotMeetRequires() throws Exception {
+		List<String> errors = assertInvalid("{\"p1\": \"a\", \"p2\": null}");
+		assertThat(errors, hasItems("$.p1: the presence of this property requires that p2 also be present"));
+	}
+
+	@Test
+	public void requiresOfUndeclaredProperties() throws Exception {
+		List<String> errors = assertInvalid("{\"p1\": \"a\", \"p2\": 1, \"p4\": true}");
+		assertThat(errors.size(), is(1));
+		assertThat(errors.get(0), is("$.p4: the presence of this property requires that other also be present"));
+	}
+
+	@Test
+	public void additionalPropertiesSchema() throws Exception {
+		ObjectValidator o = new ObjectValidator(mapper.readTree(
+				"{\"properties\": {\"a\": {}}, \"additionalProperties\": {\"type\": \"string\"}}"), new SchemaContext(mapper));
+		assertThat(o.isValid(mapper.readTree("{\"a\": 1, \"b\": \"x\"}"), null), is(true));
+		List<String> errors = o.validate(mapper.readTree("{\"a\": 1, \"b\": 2}"), JSONValidator.AT_ROOT);
+		assertThat(errors.size(), is(1));
+		assertThat(errors.get(0), is("$.b: integer found, string expected"));
+	}
+
+	@Test
+	public void compiledForProperties() throws Exception {
+		JacksonSchema s = new JacksonSchema(mapper.readTree(schema));
+		int objects = 0;
+		for ( JSONValidator validator : s.getValidators() ) {
+			assertThat(validator instanceof PropertiesValidator, is(false));
+			assertThat(validator instanceof AdditionalPropertiesValidator, is(false));
+			if ( validator instanceof ObjectValidator )
+				objects++;
+		}
+		assertThat(objects, is(1));
+
+		s = new JacksonSchema(mapper.readTree("{\"additionalProperties\": false}"));
+		assertThat(s.getValidators().get(0), instanceOf(ObjectValidator.class));
+		assertThat(s.isValid("{}"), is(true));
+		assertThat(s.isValid("{\"a\": 1}"), is(false));
+	}
+
+	@Test
+	public void wideSchemasAreNotFused() throws Exception {
+		StringBuilder wide = new StringBuilder("{\"properties\": {");
+		for ( int i = 0; i <= ObjectValidator.MAX_PROPERTIES; i++ ) {
+			wide.append(i == 0 ? "" : ", ").append("\"p").append(i).append("\": {}");
+		}
+		wide.append("}}");
+		JacksonSchema s = new JacksonSchema(mapper.readTree(wide.toString()));
+		assertThat(s.getValidators().get(0), instanceOf(PropertiesValidator.class));
+	}
+
+	private void assertValid(String json) throws Exception {
+		JsonNode node = mapper.readTree(json);
+		assertThat(v.isValid(node, null), is(true));
+		assertThat(v.validate(node, JSONValidator.AT_ROOT).size(), is(0));
+	}
+
+	private List<String> assertInvalid(String json) throws Exception {
+		JsonNode node = mapper.readTree(json);
+		assertThat(v.isValid(node, null), is(false));
+		return v.validate(node, JSONValidator.AT_ROOT);
+	}
+}
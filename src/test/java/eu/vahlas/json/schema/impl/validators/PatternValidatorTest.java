@@ -25,6 +25,7 @@ import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.junit.Test;
 
+import eu.vahlas.json.schema.JSONSchemaException;
 import eu.vahlas.json.schema.impl.JSONValidator;
 
 public class PatternValidatorTest {
@@ -58,4 +59,9 @@ public class PatternValidatorTest {
 		assertThat(errors.size(), is(1));
 		assertThat(errors.get(0), is("$: does not match the regex pattern [A-Z]{3}"));
 	}
+	
+	@Test(expected = JSONSchemaException.class)
+	public void testInvalidPatternIsRejectedAtCompileTime() throws Exception {
+		new PatternValidator(mapper.readTree("\"[A-Z\""));
+	}
 }
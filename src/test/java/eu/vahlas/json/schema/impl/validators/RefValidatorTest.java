@@ -0,0 +1,184 @@
+/**
+ * Copyright (C) 2010 Nicolas Vahlas <nico@vahlas.eu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.vahlas.json.schema.impl.validators;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import eu.vahlas.json.schema.JSONSchema;
+import eu.vahlas.json.schema.JSONSchemaException;
+import eu.vahlas.json.schema.impl.JacksonSchemaProvider;
+import eu.vahlas.json.schema.impl.SchemaContext;
+import eu.vahlas.json.schema.impl.SchemaResolver;
+import eu.vahlas.json.schema.impl.resolvers.MapSchemaResolver;
+
+public class RefValidatorTest {
+	private final String address =
+			"{" +
+				"\"type\": \"object\"," +
+				"\"properties\": {" +
+					"\"city\": {\"type\": \"string\"}" +
+				"}" +
+			"}";
+
+	private final String tree =
+			"{" +
+				"\"type\": \"object\"," +
+				"\"properties\": {" +
+					"\"name\": {\"type\": \"string\"}," +
+					"\"children\": {\"type\": \"array\", \"optional\": true, \"items\": {\"$ref\": \"urn:tree#\"}}" +
+				"}" +
+			"}";
+
+	private final String schema1 =
+			"{" +
+				"\"type\": \"object\"," +
+				"\"properties\": {" +
+					"\"home\": {\"$ref\": \"urn:address\"}," +
+					"\"work\": {\"$ref\": \"urn:address\"}" +
+				"}" +
+			"}";
+
+	private final String schema2 = "{\"$ref\": \"urn:tree\"}";
+
+	private final String schema3 = "{\"type\": \"object\", \"properties\": {\"p1\": {\"$ref\": \"urn:nowhere\"}}}";
+
+	private final String json1 = "{\"home\": {\"city\": \"Athens\"}, \"work\": {\"city\": 42}}";
+	private final String json2 =
+			"{\"name\": \"root\", \"children\": [" +
+				"{\"name\": \"a\"}," +
+				"{\"name\": \"b\", \"children\": [{\"name\": 3}]}" +
+			"]}";
+
+	private ObjectMapper mapper;
+	private JacksonSchemaProvider provider;
+
+	public RefValidatorTest() {
+		mapper = new ObjectMapper();
+		MapSchemaResolver registry = new MapSchemaResolver()
+				.register("urn:address", address)
+				.register("urn:tree", tree);
+		provider = new JacksonSchemaProvider(mapper, registry);
+	}
+
+	@Test
+	public void testSharedTarget() throws Exception {
+		JSONSchema schema = provider.getSchema(schema1);
+
+		List<String> errors = schema.validate(json1);
+		assertThat(errors.size(), is(1));
+		assertThat(errors.get(0), is("$.work.city: integer found, string expected"));
+
+		RefValidator ref = provider.getContext().resolveRef("urn:address");
+		assertThat(ref.getTarget(), is(sameInstance(provider.getContext().resolveRef("urn:address").getTarget())));
+		assertThat(provider.getContext().getResolvedCount(), is(1));
+	}
+
+	@Test
+	public void testRecursiveRef() throws Exception {
+		JSONSchema schema = provider.getSchema(schema2);
+
+		List<String> errors = schema.validate(json2);
+		assertThat(errors.size(), is(1));
+		assertThat(errors.get(0), is("$.children[1].children[0].name: integer found, string expected"));
+	}
+
+	@Test(expected = JSONSchemaException.class)
+	public void testUnresolvedRef() throws Exception {
+		provider.getSchema(schema3);
+	}
+
+	@Test
+	public void testProviderScopesRefs() throws Exception {
+		provider.getSchema(schema1);
+		provider.getSchema(schema2);
+		// the targets belong to the cached schemas, not to the provider
+		assertThat(provider.getContext().getResolvedCount(), is(0));
+	}
+
+	@Test
+	public void testRefsInDataAreNotLoaded() throws Exception {
+		final List<String> loaded = new ArrayList<String>();
+		final MapSchemaResolver registry = new MapSchemaResolver()
+				.register("urn:address", address)
+				.register("urn:data", "{}");
+		SchemaContext context = new SchemaContext(mapper, new SchemaResolver() {
+			@Override
+			public JsonNode resolve(String ref, ObjectMapper mapper) throws IOException {
+				loaded.add(ref);
+				return registry.resolve(ref, mapper);
+			}
+		});
+
+		registry.register("urn:wrapper", "{\"type\": \"object\", \"properties\": {" +
+				"\"kind\": {\"enum\": [{\"$ref\": \"urn:data\"}], \"default\": {\"$ref\": \"urn:data\"}}," +
+				"\"homes\": {\"type\": \"array\", \"items\": {\"$ref\": \"urn:address\"}}}}");
+		context.resolveRef("urn:wrapper");
+		assertThat(loaded, is(Arrays.asList("urn:wrapper", "urn:address")));
+	}
+
+	@Test(timeout = 30000)
+	public void testSlowRefDoesNotBlockOthers() throws Exception {
+		final CountDownLatch loading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final MapSchemaResolver registry = new MapSchemaResolver().register("urn:address", address);
+		final SchemaContext context = new SchemaContext(mapper, new SchemaResolver() {
+			@Override
+			public JsonNode resolve(String ref, ObjectMapper mapper) throws IOException {
+				if ( ref.equals("urn:slow") ) {
+					loading.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException ie) {
+						throw new IOException("interrupted");
+					}
+					return mapper.readTree("{\"type\": \"string\"}");
+				}
+				return registry.resolve(ref, mapper);
+			}
+		});
+
+		Thread slow = new Thread() {
+			@Override
+			public void run() {
+				context.resolveRef("urn:slow");
+			}
+		};
+		slow.start();
+		loading.await();
+		try {
+			assertThat(context.resolveRef("urn:address").isResolved(), is(true));
+		} finally {
+			release.countDown();
+		}
+		slow.join(TimeUnit.SECONDS.toMillis(20));
+		assertThat(context.resolveRef("urn:slow").isResolved(), is(true));
+		assertThat(context.getResolvedCount(), is(2));
+	}
+}
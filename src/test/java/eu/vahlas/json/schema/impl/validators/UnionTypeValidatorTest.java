@@ -22,6 +22,14 @@ import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.junit.Test;
 
+import eu.vahlas.json.schema.ErrorCollector;
+import eu.vahlas.json.schema.impl.AbstractJSONValidator;
+import eu.vahlas.json.schema.impl.JSONPath;
+import eu.vahlas.json.schema.impl.JSONValidator;
+import eu.vahlas.json.schema.impl.KeywordFactory;
+import eu.vahlas.json.schema.impl.KeywordRegistry;
+import eu.vahlas.json.schema.impl.SchemaContext;
+
 public class UnionTypeValidatorTest {
 
     private final String json = "\"test\"";  // a string
@@ -87,4 +95,59 @@ public class UnionTypeValidatorTest {
         assertThat(errors.get(0), is("$: integer found, but [string, null] is required"));
 
     }
+
+    @Test
+    public void testNullableUnion() throws IOException {
+        UnionTypeValidator v = new UnionTypeValidator(mapper.readTree(schema4).get("type"));
+
+        assertThat(v.isValid(jsonNode, null), is(true));
+        assertThat(v.isValid(mapper.readTree("null"), null), is(true));
+        assertThat(v.isValid(jsonNodeInt, null), is(false));
+        assertThat(v.isValid(mapper.readTree("{}"), null), is(false));
+    }
+
+    @Test
+    public void testNumberAndAny() throws IOException {
+        UnionTypeValidator number = new UnionTypeValidator(mapper.readTree("[\"number\", \"null\"]"));
+        assertThat(number.isValid(jsonNodeInt, null), is(true));
+        assertThat(number.isValid(mapper.readTree("4.2"), null), is(true));
+        assertThat(number.isValid(jsonNode, null), is(false));
+
+        UnionTypeValidator any = new UnionTypeValidator(mapper.readTree("[\"null\", {\"type\": \"any\", \"maxLength\": 2}]"));
+        assertThat(any.isValid(mapper.readTree("\"ab\""), null), is(true));
+        assertThat(any.isValid(jsonNode, null), is(false));
+    }
+
+    @Test
+    public void testSchemaBranchesAreProbedByType() throws IOException {
+        final int[] probes = new int[1];
+        KeywordRegistry registry = new KeywordRegistry().register("probe", new KeywordFactory() {
+            @Override
+            public JSONValidator create(JsonNode schemaNode, JsonNode keywordNode, SchemaContext context) {
+                return new AbstractJSONValidator() {
+                    @Override
+                    public void validate(JsonNode node, JsonNode parent, JSONPath at, ErrorCollector errors) {
+                        probes[0]++;
+                    }
+
+                    @Override
+                    public boolean isValid(JsonNode node, JsonNode parent) {
+                        probes[0]++;
+                        return true;
+                    }
+                };
+            }
+        });
+        UnionTypeValidator v = new UnionTypeValidator(mapper.readTree(
+                "[{\"type\": \"object\", \"probe\": true}, \"string\", {\"type\": \"integer\", \"probe\": true}]"),
+                new SchemaContext(mapper, null, registry));
+
+        assertThat(v.isValid(jsonNode, null), is(true));
+        assertThat(v.validate(mapper.readTree("true"), "$").get(0),
+                is("$: boolean found, but [object, string, integer] is required"));
+        assertThat(probes[0], is(0));
+
+        assertThat(v.isValid(jsonNodeInt, null), is(true));
+        assertThat(probes[0], is(1));
+    }
 }
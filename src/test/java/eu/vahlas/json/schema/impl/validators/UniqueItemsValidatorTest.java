@@ -22,6 +22,7 @@ import static org.hamcrest.Matchers.is;
 import java.util.List;
 
 import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.node.ArrayNode;
 import org.junit.Test;
 
 import eu.vahlas.json.schema.impl.JSONValidator;
@@ -55,6 +56,68 @@ public class UniqueItemsValidatorTest {
 		List<String> errors = v.validate(mapper.readTree(json2), JSONValidator.AT_ROOT);
 		
 		assertThat(errors.size(), is(1));
-		assertThat(errors.get(0), is("$: the items in the array must be unique"));
+		assertThat(errors.get(0), is("$: the items in the array must be unique, [2] is equal to [0]"));
+	}
+	
+	@Test
+	public void findDuplicateLongs() throws Exception {
+		assertThat(UniqueItemsValidator.findDuplicate(mapper.readTree("[1, 2, 3, 4, 5]")), is(-1L));
+		assertThat(UniqueItemsValidator.findDuplicate(mapper.readTree("[1, 9000000000, 3, 9000000000]")), is(pair(1, 3)));
+	}
+	
+	@Test
+	public void findDuplicateDoubles() throws Exception {
+		assertThat(UniqueItemsValidator.findDuplicate(mapper.readTree("[1.5, 2.5, 3.5]")), is(-1L));
+		assertThat(UniqueItemsValidator.findDuplicate(mapper.readTree("[0.0, 1.5, -0.0]")), is(pair(0, 2)));
+	}
+	
+	@Test
+	public void findDuplicateStrings() throws Exception {
+		assertThat(UniqueItemsValidator.findDuplicate(mapper.readTree("[\"a\", \"b\", \"c\"]")), is(-1L));
+		assertThat(UniqueItemsValidator.findDuplicate(mapper.readTree("[\"a\", \"b\", \"b\", \"a\"]")), is(pair(1, 2)));
+	}
+	
+	@Test
+	public void findDuplicateMixed() throws Exception {
+		assertThat(UniqueItemsValidator.findDuplicate(mapper.readTree("[1, \"1\", 1.5, true, null, {\"a\": 1}, [1]]")), is(-1L));
+		assertThat(UniqueItemsValidator.findDuplicate(mapper.readTree("[{\"a\": 1}, [1], {\"a\": 1}]")), is(pair(0, 2)));
+		assertThat(UniqueItemsValidator.findDuplicate(mapper.readTree("[null, 1, null]")), is(pair(0, 2)));
+	}
+	
+	@Test
+	public void findDuplicateNumbersByValue() throws Exception {
+		// the same rule whichever table the array goes to
+		ArrayNode longs = mapper.createArrayNode();
+		longs.add(1);
+		longs.add(1L);
+		assertThat(UniqueItemsValidator.findDuplicate(longs), is(pair(0, 1)));
+
+		ArrayNode mixed = mapper.createArrayNode();
+		mixed.add(1);
+		mixed.add("x");
+		mixed.add(1L);
+		assertThat(UniqueItemsValidator.findDuplicate(mixed), is(pair(0, 2)));
+
+		assertThat(UniqueItemsValidator.findDuplicate(mapper.readTree("[1, 2.5, 1.0]")), is(pair(0, 2)));
+		assertThat(UniqueItemsValidator.findDuplicate(mapper.readTree("[2.0, 1e0, 2]")), is(pair(0, 2)));
+		assertThat(UniqueItemsValidator.findDuplicate(mapper.readTree("[1, \"1\", true, 1.5]")), is(-1L));
+	}
+	
+	@Test
+	public void reportsTheFirstDuplicate() throws Exception {
+		List<String> errors = v.validate(mapper.readTree("[1, 2, 3, 2, 1]"), JSONValidator.AT_ROOT);
+		
+		assertThat(errors.size(), is(1));
+		assertThat(errors.get(0), is("$: the items in the array must be unique, [3] is equal to [1]"));
+	}
+	
+	@Test
+	public void ignoresNonArrays() throws Exception {
+		assertThat(v.validate(mapper.readTree("{\"a\": 1, \"b\": 1}"), JSONValidator.AT_ROOT).size(), is(0));
+		assertThat(v.isValid(mapper.readTree("\"aa\""), null), is(true));
+	}
+	
+	private static long pair(int earlier, int later) {
+		return ((long) earlier << 32) | later;
 	}
 }